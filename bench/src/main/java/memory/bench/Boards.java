@@ -0,0 +1,55 @@
+package memory.bench;
+
+import memory.model.CardFace;
+import memory.model.Deck;
+import memory.model.Memory;
+import memory.model.MemoryException;
+
+/**
+ * Helpers shared by the benchmarks to set up boards.
+ */
+final class Boards {
+    private Boards() {
+    }
+
+    /**
+     * Returns the number of columns in a size such as "4x5".
+     */
+    static int cols(String size) {
+        return Integer.parseInt(size.substring(0, size.indexOf('x')));
+    }
+
+    /**
+     * Returns the number of rows in a size such as "4x5".
+     */
+    static int rows(String size) {
+        return Integer.parseInt(size.substring(size.indexOf('x') + 1));
+    }
+
+    /**
+     * Returns a deck of the specified number of distinct faces.
+     */
+    static Deck deck(int count) {
+        return Deck.standard(count);
+    }
+
+    /**
+     * Fills the slots array with the indexes of cards that all have
+     * different symbols.
+     */
+    static void findMismatches(Memory game, int[] slots) throws MemoryException {
+        int rows = game.getRows();
+        int found = 0;
+        for(int index=0; found<slots.length; index++) {
+            CardFace face = game.getFace(index / rows, index % rows);
+            boolean unique = true;
+            for(int i=0; i<found; i++) {
+                int other = slots[i];
+                unique &= game.getFace(other / rows, other % rows) != face;
+            }
+            if(unique) {
+                slots[found++] = index;
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package memory.bench;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import memory.model.BoardType;
+import memory.model.Memory;
+import memory.view.BoardCanvas;
+import memory.view.ImageCache;
+
+/**
+ * Benchmarks a flip on a {@link BoardCanvas}, including repainting the
+ * cells it changed, on the JavaFX application thread. The cost should not
+ * grow with the size of the board. Runs on the headless Monocle platform,
+ * like {@link GuiBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {
+    "-Dglass.platform=Monocle", "-Dmonocle.platform=Headless", "-Dprism.order=sw"
+})
+@State(Scope.Benchmark)
+public class CanvasBenchmark {
+    private static final String BACK = "media/images/memory/back.png";
+    private static final String WOOD = "media/images/memory/wood.png";
+
+    /**
+     * The number of flips made per hop onto the application thread.
+     */
+    private static final int BATCH = 3 * 256;
+
+    @Param({"4x5", "100x100", "1000x1000"})
+    public String size;
+
+    private Memory game;
+    private Stage stage;
+    private final int[] batch = new int[BATCH];
+
+    @Setup
+    public void setup() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+
+        int cols = Boards.cols(this.size);
+        int rows = Boards.rows(this.size);
+        this.game = new Memory(cols, rows, Boards.deck(cols * rows / 2), BoardType.PACKED);
+        int[] cycle = new int[3];
+        Boards.findMismatches(this.game, cycle);
+        for(int i=0; i<BATCH; i++) {
+            this.batch[i] = cycle[i % 3];
+        }
+
+        double cell = BoardCanvas.fit(cols, rows, 900, 108);
+        ImageCache images = new ImageCache(cell, Map.of());
+        images.preload(BACK, WOOD);
+        onFxThread(() -> {
+            BoardCanvas canvas = new BoardCanvas(this.game, images, cell, BACK, WOOD);
+            canvas.paintAll();
+            this.game.addObserver(canvas);
+            // the canvas only flushes its drawing commands when it is shown
+            this.stage = new Stage();
+            this.stage.setScene(new Scene(new Group(canvas)));
+            this.stage.show();
+            return null;
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        onFxThread(() -> {
+            this.stage.close();
+            return null;
+        });
+        Platform.exit();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int flip() throws Exception {
+        return onFxThread(() -> this.game.applyMoves(this.batch));
+    }
+
+    /**
+     * Runs a task on the JavaFX application thread and waits for it.
+     */
+    private static <T> T onFxThread(Callable<T> task) throws Exception {
+        FutureTask<T> future = new FutureTask<>(task);
+        Platform.runLater(future);
+        return future.get();
+    }
+}
@@ -0,0 +1,49 @@
+package memory.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import memory.model.Card;
+import memory.model.MemoryException;
+
+/**
+ * Benchmarks {@link Card#toString()} for cards that are face up and face
+ * down.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CardBenchmark {
+    private Card faceUp;
+    private Card faceDown;
+
+    @Setup
+    public void setup() throws MemoryException {
+        this.faceUp = new Card('A');
+        this.faceUp.flip();
+        this.faceDown = new Card('B');
+    }
+
+    @Benchmark
+    public String faceUpToString() {
+        return this.faceUp.toString();
+    }
+
+    @Benchmark
+    public String faceDownToString() {
+        return this.faceDown.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package memory.bench;
+
+import memory.model.BoardType;
+import memory.model.Deck;
+import memory.model.Memory;
+import memory.model.MemoryException;
+
+/**
+ * Prints the per-game cost of each kind of board storage, both as estimated
+ * by {@link Memory#getFootprint()} and as measured on the heap by keeping
+ * many games alive at once.
+ *
+ * Usage: {@code FootprintReport [GAMES]}, the most games kept alive for
+ * each size, 2000 by default.
+ */
+public class FootprintReport {
+    private static final int[][] SIZES = {
+        {4, 5}, {6, 6}, {10, 10}, {100, 100}, {300, 200}, {1000, 1000}
+    };
+
+    public static void main(String[] args) throws MemoryException {
+        int games = 2000;
+        if(args.length == 1) {
+            games = Integer.parseInt(args[0]);
+        }
+
+        System.out.printf("%-9s %14s %14s %14s %14s %8s%n", "board",
+            "object est", "packed est", "object heap", "packed heap", "saving");
+        for(int[] size : SIZES) {
+            int cols = size[0];
+            int rows = size[1];
+            Deck deck = Deck.standard(cols * rows / 2);
+            // large boards are measured with fewer games to keep the heap small
+            int count = Math.max(1, Math.min(games, 4_000_000 / (cols * rows)));
+
+            long objectEstimate = new Memory(cols, rows, deck, BoardType.OBJECT).getFootprint();
+            long packedEstimate = new Memory(cols, rows, deck, BoardType.PACKED).getFootprint();
+            long objectHeap = measure(cols, rows, deck, BoardType.OBJECT, count);
+            long packedHeap = measure(cols, rows, deck, BoardType.PACKED, count);
+
+            System.out.printf("%-9s %14d %14d %14d %14d %7.1fx%n", cols + "x" + rows,
+                objectEstimate, packedEstimate, objectHeap, packedHeap,
+                (double)objectHeap / Math.max(1, packedHeap));
+        }
+    }
+
+    /**
+     * Measures the average heap used by a game by keeping the specified
+     * number of games reachable and comparing the heap before and after.
+     *
+     * @return The average number of bytes used by each game.
+     */
+    private static long measure(int cols, int rows, Deck deck, BoardType type,
+            int count) throws MemoryException {
+        Memory[] games = new Memory[count];
+        long before = usedHeap();
+        for(int i=0; i<count; i++) {
+            games[i] = new Memory(cols, rows, deck, type);
+        }
+        long after = usedHeap();
+        // keeps the games reachable until after the heap has been measured
+        if(games[count - 1].getCols() != cols) {
+            throw new IllegalStateException();
+        }
+        return (after - before) / count;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i=0; i<3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,66 @@
+package memory.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import memory.model.BoardType;
+import memory.model.GameState;
+import memory.model.Memory;
+import memory.model.MemoryException;
+
+/**
+ * Benchmarks branching a search: playing a turn from a {@link GameState},
+ * and taking the state of a {@link Memory} afresh, as a search would have
+ * to for every branch without persistent states.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameStateBenchmark {
+    @Param({"10x10", "100x100", "1000x1000"})
+    public String size;
+
+    private Memory game;
+    private GameState state;
+    private final SplittableRandom rng = new SplittableRandom(42);
+
+    @Setup
+    public void setup() throws MemoryException {
+        int cols = Boards.cols(this.size);
+        int rows = Boards.rows(this.size);
+        this.game = new Memory(cols, rows, Boards.deck(cols * rows / 2), BoardType.PACKED, 42);
+        this.state = this.game.toState();
+    }
+
+    /**
+     * Plays a turn of two random cards from the same state, and puts it
+     * away, removing the pair if it matched.
+     */
+    @Benchmark
+    public GameState turn() {
+        int size = this.game.getCols() * this.game.getRows();
+        int first = this.rng.nextInt(size);
+        int second = (first + 1 + this.rng.nextInt(size - 1)) % size;
+        return this.state.fork().apply(first).apply(second).endTurn();
+    }
+
+    @Benchmark
+    public GameState toState() {
+        return this.game.toState();
+    }
+}
@@ -0,0 +1,100 @@
+package memory.bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javafx.application.Platform;
+import javafx.stage.Stage;
+import memory.model.Card;
+import memory.view.MemoryGUI;
+
+/**
+ * Benchmarks {@link MemoryGUI#updateMemory} on the JavaFX application
+ * thread. By default the forked JVM uses the headless Monocle platform with
+ * software rendering so that no display is needed; pass different
+ * {@code -jvmArgs} to run against a real display.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {
+    "-Dglass.platform=Monocle", "-Dmonocle.platform=Headless", "-Dprism.order=sw"
+})
+@State(Scope.Benchmark)
+public class GuiBenchmark {
+    /**
+     * The number of updates made per hop onto the application thread, so
+     * that the cost of the hop does not swamp the cost of an update.
+     */
+    private static final int BATCH = 256;
+
+    private MemoryGUI gui;
+    private Stage stage;
+    private Card faceUp;
+    private Card faceDown;
+
+    @Setup
+    public void setup() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+
+        this.faceUp = new Card('A');
+        this.faceUp.flip();
+        this.faceDown = new Card('A');
+        // decodes the images off the FX thread, as the launcher would
+        this.gui = new MemoryGUI();
+        this.gui.init();
+        onFxThread(() -> {
+            this.stage = new Stage();
+            this.gui.start(this.stage);
+            return null;
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        onFxThread(() -> {
+            this.stage.close();
+            return null;
+        });
+        Platform.exit();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void updateMemory() throws Exception {
+        onFxThread(() -> {
+            for(int i=0; i<BATCH; i++) {
+                Card card = (i & 1) == 0 ? this.faceUp : this.faceDown;
+                this.gui.updateMemory(null, card, i & 3, i % 5);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Runs a task on the JavaFX application thread and waits for it.
+     */
+    private static <T> T onFxThread(Callable<T> task) throws Exception {
+        FutureTask<T> future = new FutureTask<>(task);
+        Platform.runLater(future);
+        return future.get();
+    }
+}
@@ -0,0 +1,454 @@
+package memory.bench;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Stage;
+import memory.model.BoardType;
+import memory.model.Deck;
+import memory.model.KnowledgeIndex;
+import memory.model.Memory;
+import memory.model.MemoryException;
+import memory.view.MemoryGUI;
+
+/**
+ * Plays recorded games on {@link MemoryGUI} by firing its card buttons, so
+ * every click goes through the same {@code MemoryMoveMaker} handler as a
+ * real one, and times each click and the frame that shows it. By default
+ * the headless Monocle platform with software rendering is used, so no
+ * display or GPU is needed.
+ *
+ * Usage: {@code GuiHarness [--size COLSxROWS] [--games N] [--seed SEED]
+ * [--script FILE] [--record FILE] [--warmup N] [--max-click-p99 MICROS]
+ * [--max-frame-p99 MICROS] [--display]}. Games are read from a script in
+ * the format of {@code MemoryCLI --batch}, or else played perfectly on
+ * boards dealt from consecutive seeds, and can be saved with
+ * {@code --record} to be replayed later. Every game is played
+ * {@code --warmup} times, once by default, before the measured pass.
+ *
+ * Three times are reported, each as a median, 99th percentile and maximum:
+ * <ul>
+ * <li>click: running the button's handler, i.e. making the move and
+ * updating the nodes;</li>
+ * <li>layout: the CSS and layout part of each pulse, from the scene's pre
+ * layout to its post layout pulse listeners;</li>
+ * <li>frame: from the start of a click until the pulse that shows it has
+ * finished on the application thread.</li>
+ * </ul>
+ * Clicks are made one at a time, each once the frame of the last is done.
+ * The exit status is 1 if a limit given with {@code --max-click-p99} or
+ * {@code --max-frame-p99} is exceeded, so the harness can gate a build.
+ */
+public class GuiHarness {
+    private final Samples clicks = new Samples();
+    private final Samples layouts = new Samples();
+    private final Samples frames = new Samples();
+
+    /**
+     * Whether the times are being kept, i.e. not during the warm-up.
+     */
+    private boolean measuring;
+
+    // only used on the application thread
+    private long layoutStart;
+    private long clickStart;
+    private CountDownLatch framed;
+
+    public static void main(String[] args) throws Exception {
+        int cols = 4;
+        int rows = 5;
+        int count = 20;
+        long seed = ThreadLocalRandom.current().nextLong();
+        String script = null;
+        String record = null;
+        int warmup = 1;
+        double maxClick = Double.MAX_VALUE;
+        double maxFrame = Double.MAX_VALUE;
+        boolean display = false;
+        for(int i=0; i<args.length; i++) {
+            switch(args[i]) {
+                case "--size":
+                    cols = Boards.cols(args[++i]);
+                    rows = Boards.rows(args[i]);
+                    break;
+                case "--games":
+                    count = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--script":
+                    script = args[++i];
+                    break;
+                case "--record":
+                    record = args[++i];
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--max-click-p99":
+                    maxClick = Double.parseDouble(args[++i]);
+                    break;
+                case "--max-frame-p99":
+                    maxFrame = Double.parseDouble(args[++i]);
+                    break;
+                case "--display":
+                    display = true;
+                    break;
+                default:
+                    usage();
+                    return;
+            }
+        }
+
+        List<Game> games = script != null ? Game.read(script) : Game.play(cols, rows, seed, count);
+        if(record != null) {
+            Game.write(games, record);
+        }
+        if(!display) {
+            // must be set before the toolkit starts; anything given on the command line wins
+            setDefault("glass.platform", "Monocle");
+            setDefault("monocle.platform", "Headless");
+            setDefault("prism.order", "sw");
+        }
+        // a build box has no sound card, and each window would load the sounds again
+        setDefault("memory.sound", "false");
+
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+        // closing the window of one game must not end the platform before the next
+        Platform.setImplicitExit(false);
+        GuiHarness harness = new GuiHarness();
+        try {
+            for(int pass=0; pass<=warmup; pass++) {
+                harness.measuring = pass == warmup;
+                for(Game game : games) {
+                    harness.replay(game);
+                }
+            }
+        } finally {
+            Platform.exit();
+        }
+
+        System.out.printf("%d games, %d clicks%n", games.size(), harness.clicks.size());
+        harness.clicks.print("click");
+        harness.layouts.print("layout");
+        harness.frames.print("frame");
+        boolean failed = check("click", harness.clicks, maxClick);
+        failed |= check("frame", harness.frames, maxFrame);
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * Opens a window on the game, clicks through it and closes the window.
+     */
+    private void replay(Game game) throws Exception {
+        MemoryGUI gui = new MemoryGUI(game.cols, game.rows, game.seed);
+        // decodes the card back off the FX thread, as the launcher would
+        gui.init();
+        Stage stage = onFxThread(() -> {
+            Stage newStage = new Stage();
+            gui.start(newStage);
+            Scene scene = newStage.getScene();
+            scene.addPreLayoutPulseListener(this::preLayout);
+            scene.addPostLayoutPulseListener(this::postLayout);
+            return newStage;
+        });
+        Button[][] buttons = onFxThread(() -> findButtons(stage.getScene(), game.cols, game.rows));
+        try {
+            // the first frame, and the status bar filled in just after it
+            awaitFrame(null);
+            for(int i=0; i<game.clicks.length; i+=2) {
+                awaitFrame(buttons[game.clicks[i]][game.clicks[i + 1]]);
+            }
+        } finally {
+            onFxThread(() -> {
+                stage.close();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Clicks a button, if one is given, and waits until a pulse has been
+     * run after it.
+     */
+    private void awaitFrame(Button button) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            long start = System.nanoTime();
+            if(button != null) {
+                button.fire();
+                if(this.measuring) {
+                    this.clicks.add(System.nanoTime() - start);
+                }
+            }
+            this.clickStart = button == null ? -1 : start;
+            this.framed = done;
+            Platform.requestNextPulse();
+        });
+        done.await();
+    }
+
+    private void preLayout() {
+        this.layoutStart = System.nanoTime();
+    }
+
+    private void postLayout() {
+        if(this.measuring) {
+            this.layouts.add(System.nanoTime() - this.layoutStart);
+        }
+        CountDownLatch done = this.framed;
+        if(done == null) {
+            return;
+        }
+        this.framed = null;
+        long start = this.clickStart;
+        // runs once the rest of the pulse is over
+        Platform.runLater(() -> {
+            if(this.measuring && start >= 0) {
+                this.frames.add(System.nanoTime() - start);
+            }
+            done.countDown();
+        });
+    }
+
+    /**
+     * Finds the card buttons in the grid at the center of the window.
+     */
+    private static Button[][] findButtons(Scene scene, int cols, int rows) {
+        GridPane grid = (GridPane)((BorderPane)scene.getRoot()).getCenter();
+        Button[][] buttons = new Button[cols][rows];
+        for(Node node : grid.getChildren()) {
+            buttons[GridPane.getColumnIndex(node)][GridPane.getRowIndex(node)] = (Button)node;
+        }
+        return buttons;
+    }
+
+    private static boolean check(String name, Samples samples, double maxMicros) {
+        double p99 = samples.percentile(0.99) / 1e3;
+        if(p99 <= maxMicros) {
+            return false;
+        }
+        System.err.printf("%s p99 of %.1fus is over the limit of %.1fus%n", name, p99, maxMicros);
+        return true;
+    }
+
+    private static void setDefault(String key, String value) {
+        if(System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    /**
+     * Runs a task on the JavaFX application thread and waits for it.
+     */
+    private static <T> T onFxThread(Callable<T> task) throws Exception {
+        FutureTask<T> future = new FutureTask<>(task);
+        Platform.runLater(future);
+        return future.get();
+    }
+
+    private static void usage() {
+        System.out.println("Usage: GuiHarness [--size COLSxROWS] [--games N] [--seed SEED] [--script FILE]"
+            + " [--record FILE] [--warmup N] [--max-click-p99 MICROS] [--max-frame-p99 MICROS] [--display]");
+    }
+
+    /**
+     * A game to replay: the board, its seed and the clicks made on it.
+     */
+    private static final class Game {
+        final int cols;
+        final int rows;
+        final long seed;
+
+        /**
+         * The column and row of each click, one after the other.
+         */
+        final int[] clicks;
+
+        Game(int cols, int rows, long seed, int[] clicks) {
+            this.cols = cols;
+            this.rows = rows;
+            this.seed = seed;
+            this.clicks = clicks;
+        }
+
+        /**
+         * Plays games perfectly, remembering every card seen, on boards
+         * dealt from consecutive seeds.
+         */
+        static List<Game> play(int cols, int rows, long seed, int count) throws MemoryException {
+            List<Game> games = new ArrayList<>();
+            for(int i=0; i<count; i++) {
+                Memory memory = new Memory(cols, rows, Deck.standard(cols * rows / 2), BoardType.OBJECT, seed + i);
+                KnowledgeIndex knowledge = memory.enableKnowledge();
+                SplittableRandom random = new SplittableRandom(seed + i);
+                int[] clicks = new int[0];
+                int size = 0;
+                while(!memory.isGameOver()) {
+                    int first = knowledge.hasKnownPair() ? knowledge.getKnownPair() : knowledge.randomUnseen(random);
+                    if(memory.isFaceUp(first)) {
+                        // still up from the last turn, so it can only be flipped second
+                        first = knowledge.getPartner(first);
+                    }
+                    if(size + 4 > clicks.length) {
+                        clicks = Arrays.copyOf(clicks, Math.max(16, clicks.length * 2));
+                    }
+                    size = click(memory, first, clicks, size);
+                    int second = knowledge.getPartner(first);
+                    size = click(memory, second >= 0 ? second : knowledge.randomUnseen(random), clicks, size);
+                }
+                games.add(new Game(cols, rows, seed + i, Arrays.copyOf(clicks, size)));
+            }
+            return games;
+        }
+
+        private static int click(Memory memory, int index, int[] clicks, int size) {
+            int col = index / memory.getRows();
+            int row = index % memory.getRows();
+            memory.tryFlip(col, row);
+            clicks[size] = col;
+            clicks[size + 1] = row;
+            return size + 2;
+        }
+
+        /**
+         * Reads games from a script. Games without a seed are dealt at
+         * random.
+         */
+        static List<Game> read(String file) throws IOException {
+            List<Game> games = new ArrayList<>();
+            int[] clicks = new int[16];
+            int size = 0;
+            int cols = 0;
+            int rows = 0;
+            long seed = 0;
+            boolean playing = false;
+            int number = 0;
+            try(BufferedReader in = Files.newBufferedReader(Paths.get(file), StandardCharsets.US_ASCII)) {
+                String line;
+                while(true) {
+                    line = in.readLine();
+                    number++;
+                    String[] words = line == null ? new String[] {"end"} : line.split("#", 2)[0].trim().split("\\s+");
+                    String command = words[0];
+                    if(command.isEmpty()) {
+                        continue;
+                    }
+                    if(command.equals("game") || command.equals("end")) {
+                        if(playing) {
+                            games.add(new Game(cols, rows, seed, Arrays.copyOf(clicks, size)));
+                            playing = false;
+                        }
+                        if(command.equals("game")) {
+                            if(words.length != 3 && words.length != 4) {
+                                throw new IOException(file + ":" + number + ": expected: game COLS ROWS [SEED]");
+                            }
+                            cols = Integer.parseInt(words[1]);
+                            rows = Integer.parseInt(words[2]);
+                            seed = words.length == 4 ? Long.parseLong(words[3]) : ThreadLocalRandom.current().nextLong();
+                            size = 0;
+                            playing = true;
+                        }
+                        if(line == null) {
+                            return games;
+                        }
+                        continue;
+                    }
+                    int at = command.equals("move") ? 1 : 0;
+                    if(!playing || words.length != at + 2) {
+                        throw new IOException(file + ":" + number + ": expected: move COL ROW, in a game");
+                    }
+                    int col = Integer.parseInt(words[at]);
+                    int row = Integer.parseInt(words[at + 1]);
+                    if(col < 0 || col >= cols || row < 0 || row >= rows) {
+                        throw new IOException(file + ":" + number + ": not on the board");
+                    }
+                    if(size + 2 > clicks.length) {
+                        clicks = Arrays.copyOf(clicks, clicks.length * 2);
+                    }
+                    clicks[size++] = col;
+                    clicks[size++] = row;
+                }
+            }
+        }
+
+        /**
+         * Writes games as a script that can be read back, or played with
+         * {@code MemoryCLI --batch}.
+         */
+        static void write(List<Game> games, String file) throws IOException {
+            try(Writer out = new BufferedWriter(Files.newBufferedWriter(Paths.get(file), StandardCharsets.US_ASCII))) {
+                for(Game game : games) {
+                    out.write("game " + game.cols + " " + game.rows + " " + game.seed + "\n");
+                    for(int i=0; i<game.clicks.length; i+=2) {
+                        out.write("move " + game.clicks[i] + " " + game.clicks[i + 1] + "\n");
+                    }
+                    out.write("end\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * A growing list of times in nanoseconds.
+     */
+    private static final class Samples {
+        private long[] times = new long[1024];
+        private int size;
+        private boolean sorted;
+
+        void add(long time) {
+            if(this.size == this.times.length) {
+                this.times = Arrays.copyOf(this.times, this.size * 2);
+            }
+            this.times[this.size++] = time;
+            this.sorted = false;
+        }
+
+        int size() {
+            return this.size;
+        }
+
+        /**
+         * Returns the time below which the specified fraction of the times
+         * fall, or 0 if there are none.
+         */
+        long percentile(double fraction) {
+            if(this.size == 0) {
+                return 0;
+            }
+            if(!this.sorted) {
+                Arrays.sort(this.times, 0, this.size);
+                this.sorted = true;
+            }
+            return this.times[Math.min(this.size - 1, (int)Math.ceil(fraction * this.size) - 1)];
+        }
+
+        void print(String name) {
+            System.out.printf("%-6s n=%-7d p50=%8.1fus p99=%8.1fus max=%8.1fus%n", name, this.size,
+                percentile(0.5) / 1e3, percentile(0.99) / 1e3, percentile(1) / 1e3);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package memory.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import memory.model.BoardType;
+import memory.model.Memory;
+import memory.model.MemoryException;
+
+/**
+ * Benchmarks picking a random card to flip at the end of a game, when only
+ * a few pairs are left on the board: by looking through the board from a
+ * random slot, and with {@link Memory#randomFaceDown}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LateGameBenchmark {
+    /**
+     * The number of pairs left on the board.
+     */
+    private static final int PAIRS_LEFT = 2;
+
+    @Param({"10x10", "100x100", "1000x1000"})
+    public String size;
+
+    @Param({"OBJECT", "PACKED"})
+    public BoardType type;
+
+    private Memory game;
+    private final SplittableRandom rng = new SplittableRandom(42);
+
+    @Setup
+    public void setup() throws MemoryException {
+        int cols = Boards.cols(this.size);
+        int rows = Boards.rows(this.size);
+        this.game = new Memory(cols, rows, Boards.deck(cols * rows / 2), this.type, 42);
+        // removes every pair but the last few
+        Map<Integer, Integer> firsts = new HashMap<>();
+        int removed = 0;
+        for(int i=0; i<cols * rows && removed < cols * rows / 2 - PAIRS_LEFT; i++) {
+            Integer first = firsts.remove(this.game.getFace(i).getId());
+            if(first == null) {
+                firsts.put(this.game.getFace(i).getId(), i);
+            } else {
+                this.game.flip(first / rows, first % rows);
+                this.game.flip(i / rows, i % rows);
+                this.game.endTurn();
+                removed++;
+            }
+        }
+        // builds the index before measuring
+        this.game.getFaceDownCount();
+    }
+
+    @Benchmark
+    public int scan() {
+        int size = this.game.getCols() * this.game.getRows();
+        int start = this.rng.nextInt(size);
+        for(int i=0; i<size; i++) {
+            int index = start + i < size ? start + i : start + i - size;
+            if(!this.game.isRemoved(index) && !this.game.isFaceUp(index)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public int randomFaceDown() {
+        return this.game.randomFaceDown(this.rng);
+    }
+}
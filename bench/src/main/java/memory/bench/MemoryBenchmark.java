@@ -0,0 +1,114 @@
+package memory.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import memory.model.BoardType;
+import memory.model.Card;
+import memory.model.Deck;
+import memory.model.Memory;
+import memory.model.MemoryException;
+
+/**
+ * Benchmarks the hot paths in {@link Memory} over a range of board sizes
+ * and both kinds of board storage.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MemoryBenchmark {
+    /**
+     * The number of moves made by each call to {@link Memory#applyMoves}.
+     */
+    private static final int BATCH = 3 * 1024;
+
+    @Param({"4x5", "10x10", "100x100", "256x256", "1000x1000"})
+    public String size;
+
+    @Param({"OBJECT", "PACKED"})
+    public BoardType type;
+
+    private int cols;
+    private int rows;
+    private Deck deck;
+    private Memory game;
+
+    /**
+     * Three slots with different symbols. Flipping them in turn never makes
+     * a match, so the game can be flipped forever.
+     */
+    private final int[] cycle = new int[3];
+    private final int[] batch = new int[BATCH];
+    private int next;
+    private int probe;
+
+    @Setup
+    public void setup() throws MemoryException {
+        this.cols = Boards.cols(this.size);
+        this.rows = Boards.rows(this.size);
+        this.deck = Boards.deck(this.cols * this.rows / 2);
+        this.game = new Memory(this.cols, this.rows, this.deck, this.type);
+        Boards.findMismatches(this.game, this.cycle);
+        for(int i=0; i<BATCH; i++) {
+            this.batch[i] = this.cycle[i % 3];
+        }
+    }
+
+    @Benchmark
+    public Memory construct() throws MemoryException {
+        return new Memory(this.cols, this.rows, this.deck, this.type);
+    }
+
+    @Benchmark
+    public Memory reset() {
+        this.game.reset();
+        return this.game;
+    }
+
+    @Benchmark
+    public void flip() throws MemoryException {
+        int index = this.cycle[this.next];
+        this.next = this.next == 2 ? 0 : this.next + 1;
+        this.game.flip(index / this.rows, index % this.rows);
+    }
+
+    @Benchmark
+    public int tryFlip() {
+        int index = this.cycle[this.next];
+        this.next = this.next == 2 ? 0 : this.next + 1;
+        return this.game.tryFlip(index / this.rows, index % this.rows);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int applyMoves() {
+        return this.game.applyMoves(this.batch);
+    }
+
+    @Benchmark
+    public Card getCard() throws MemoryException {
+        int index = this.probe;
+        this.probe = index + 1 == this.cols * this.rows ? 0 : index + 1;
+        return this.game.getCard(index / this.rows, index % this.rows);
+    }
+
+    @Benchmark
+    public String memoryToString() {
+        return this.game.toString();
+    }
+}
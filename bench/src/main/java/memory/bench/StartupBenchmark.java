@@ -0,0 +1,141 @@
+package memory.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javafx.application.Application;
+import memory.view.MemoryGUI;
+
+/**
+ * Measures how long the game takes to start: from launching a new JVM
+ * until {@code MemoryCLI} shows its first prompt, or until
+ * {@code MemoryGUI} has drawn its first frame. Startup happens once per
+ * JVM, which JMH can't repeat, so every run is a fresh process and the
+ * time is taken from outside it.
+ *
+ * Usage: {@code StartupBenchmark cli|gui [--runs N] [--java PATH]
+ * [--cp CLASSPATH] [--jvm-arg ARG]... [--display]}. By default the JVM
+ * running the benchmark is launched with its own class path, e.g.
+ * benchmarks.jar. To time a packaged image, pass its {@code bin/java}, its
+ * {@code app/memory.jar} and e.g.
+ * {@code --jvm-arg -XX:SharedArchiveFile=target/image/app/cli.jsa}. The GUI
+ * is run on the headless Monocle platform unless {@code --display} is
+ * given, and must have Monocle on its class path.
+ */
+public class StartupBenchmark {
+    private static final byte[] PROMPT = ">> ".getBytes(StandardCharsets.US_ASCII);
+
+    public static void main(String[] args) throws Exception {
+        if(args.length == 0 || !(args[0].equals("cli") || args[0].equals("gui"))) {
+            usage();
+            return;
+        }
+        boolean gui = args[0].equals("gui");
+        int runs = 10;
+        String java = ProcessHandle.current().info().command().orElse("java");
+        String ownClassPath = System.getProperty("java.class.path");
+        String classPath = ownClassPath;
+        List<String> jvmArgs = new ArrayList<>();
+        boolean display = false;
+        for(int i=1; i<args.length; i++) {
+            switch(args[i]) {
+                case "--runs":
+                    runs = Integer.parseInt(args[++i]);
+                    break;
+                case "--java":
+                    java = args[++i];
+                    break;
+                case "--cp":
+                    classPath = args[++i];
+                    break;
+                case "--jvm-arg":
+                    jvmArgs.add(args[++i]);
+                    break;
+                case "--display":
+                    display = true;
+                    break;
+                default:
+                    usage();
+                    return;
+            }
+        }
+
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(jvmArgs);
+        byte[] marker;
+        if(gui) {
+            if(!display) {
+                command.addAll(List.of("-Dglass.platform=Monocle", "-Dmonocle.platform=Headless",
+                    "-Dprism.order=sw"));
+            }
+            command.add("-D" + MemoryGUI.EXIT_AFTER_FIRST_FRAME + "=true");
+            marker = MemoryGUI.FIRST_FRAME.getBytes(StandardCharsets.US_ASCII);
+        } else {
+            marker = PROMPT;
+        }
+        String main = "memory.view.MemoryCLI";
+        if(gui) {
+            // with JavaFX on the class path rather than in the runtime, as it is in
+            // benchmarks.jar, the java launcher refuses to start an Application itself
+            main = classPath.equals(ownClassPath) ? GuiLauncher.class.getName() : "memory.view.MemoryGUI";
+        }
+        command.addAll(List.of("-cp", classPath, main));
+
+        // the first run fills the file system cache and isn't counted
+        time(command, marker);
+        long[] times = new long[runs];
+        for(int i=0; i<runs; i++) {
+            times[i] = time(command, marker);
+        }
+        Arrays.sort(times);
+        System.out.printf("%s time to %s over %d runs: min=%.1fms median=%.1fms max=%.1fms%n",
+            args[0], gui ? "first frame" : "first prompt", runs, times[0] / 1e6,
+            times[runs / 2] / 1e6, times[runs - 1] / 1e6);
+    }
+
+    /**
+     * Starts the program and waits for it to print the marker.
+     *
+     * @return The time taken in nanoseconds.
+     */
+    private static long time(List<String> command, byte[] marker) throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        long start = System.nanoTime();
+        Process process = builder.start();
+        try(InputStream out = process.getInputStream()) {
+            int matched = 0;
+            int b;
+            while((b = out.read()) >= 0) {
+                // nothing printed before a marker overlaps it, so a mismatch can restart the match
+                matched = b == marker[matched] ? matched + 1 : (b == marker[0] ? 1 : 0);
+                if(matched == marker.length) {
+                    return System.nanoTime() - start;
+                }
+            }
+            throw new IOException("Exited with " + process.waitFor() + " before starting: " + command);
+        } finally {
+            process.destroyForcibly();
+            process.waitFor();
+        }
+    }
+
+    /**
+     * Starts the GUI from a class that isn't an {@link Application}.
+     */
+    public static class GuiLauncher {
+        public static void main(String[] args) {
+            Application.launch(MemoryGUI.class, args);
+        }
+    }
+
+    private static void usage() {
+        System.out.println("Usage: StartupBenchmark cli|gui [--runs N] [--java PATH] [--cp CLASSPATH]"
+            + " [--jvm-arg ARG]... [--display]");
+    }
+}
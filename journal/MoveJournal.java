@@ -0,0 +1,576 @@
+package memory.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import memory.model.BoardType;
+import memory.model.Deck;
+import memory.model.Memory;
+import memory.model.MemoryException;
+import memory.model.MoveRecorder;
+
+/**
+ * An append-only log of games of Memory, from which any recorded game can
+ * be rebuilt exactly as it was after any number of flips. Games are added
+ * with {@link #record(Memory)}, and any number of games may be recorded in
+ * one journal, from any number of threads.
+ *
+ * The file is a sequence of 8 byte little-endian records after an 8 byte
+ * magic number. A record holds a game id in its high 32 bits and either
+ * the slot that was flipped, {@link #END_TURN} or {@link #DEAL}, in its low
+ * 32 bits. A deal
+ * is followed by two more records holding the board size, as
+ * {@code cols << 32 | rows}, and the seed the cards were shuffled with.
+ * Game ids start at 1, so a zero record marks the end of the log.
+ *
+ * Records are written straight into memory-mapped regions of the file, so
+ * recording a flip costs about as much as an uncontended lock. A background
+ * thread forces what has been written to disk every
+ * {@link #COMMIT_INTERVAL} milliseconds, or sooner when a caller waits in
+ * {@link #commit()}, and every record written before a force is made
+ * durable by it: one disk write commits the moves of every game at once.
+ *
+ * Usage: {@code MoveJournal FILE [GAME [FLIPS]]} lists the games in a
+ * journal, or prints a game as it was after the specified number of flips,
+ * or at the end of the log.
+ */
+public class MoveJournal implements Closeable {
+    /**
+     * The first record of every journal: "MEMJRNL1" in ASCII.
+     */
+    static final long MAGIC = 0x314c4e524a4d454dL;
+
+    /**
+     * The low half of a record that starts a deal.
+     */
+    static final int DEAL = -1;
+
+    /**
+     * The low half of a record for a turn ended by {@link Memory#endTurn()}.
+     */
+    static final int END_TURN = -2;
+
+    /**
+     * The number of milliseconds between forces when nobody is waiting.
+     */
+    public static final long COMMIT_INTERVAL = 10;
+
+    /**
+     * The size of each mapped region of the file. A multiple of the record
+     * size, so that no record spans two regions.
+     */
+    private static final int REGION = 1 << 24;
+
+    private final Path file;
+    private final FileChannel channel;
+
+    /**
+     * The mapped regions, indexed by their position in the file divided by
+     * {@link #REGION}. Regions that have been filled and forced are dropped.
+     */
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+
+    /**
+     * Guards everything below, and is waited on by the committer and by
+     * callers of {@link #commit()}.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * The number of bytes written to the log.
+     */
+    private long end;
+
+    /**
+     * The number of bytes that have been forced to disk.
+     */
+    private long committed;
+
+    /**
+     * The id of the last game recorded.
+     */
+    private int lastGame;
+
+    /**
+     * Set when somebody is waiting for a commit.
+     */
+    private boolean requested;
+
+    private boolean closed;
+
+    private final Thread committer;
+
+    /**
+     * Opens a journal, creating it if it doesn't exist. New games are
+     * added after any already in it.
+     *
+     * @param file The journal file.
+     *
+     * @throws IOException If the file can't be opened or is not a journal.
+     */
+    public MoveJournal(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if(this.channel.size() == 0) {
+            put(0, MAGIC);
+            this.end = Long.BYTES;
+        } else {
+            int[] lastGame = new int[1];
+            this.end = scan(this.channel, new Visitor() {
+                @Override
+                public void dealt(int game, int cols, int rows, long seed) {
+                    lastGame[0] = Math.max(lastGame[0], game);
+                }
+
+                @Override
+                public void flipped(int game, int slot) {
+                }
+
+                @Override
+                public void endedTurn(int game) {
+                }
+            });
+            this.lastGame = lastGame[0];
+        }
+        this.committed = this.end;
+        this.committer = new Thread(this::commitLoop, "memory-journal");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Returns the journal file.
+     *
+     * @return The file.
+     */
+    public Path getFile() {
+        return this.file;
+    }
+
+    /**
+     * Records a game from now on, starting with its current deal. Every
+     * later deal and flip is added to the journal until the game's recorder
+     * is replaced.
+     *
+     * @param game The game to record. Should not have been played yet.
+     *
+     * @return The id of the game in the journal.
+     */
+    public int record(Memory game) {
+        int id;
+        synchronized(this.lock) {
+            id = ++this.lastGame;
+        }
+        game.setRecorder(new GameRecorder(id));
+        return id;
+    }
+
+    /**
+     * Waits until everything recorded so far is on disk. Callers waiting
+     * at the same time share a single force.
+     *
+     * @throws IOException If the journal was closed before the records
+     * could be committed.
+     */
+    public void commit() throws IOException {
+        synchronized(this.lock) {
+            long target = this.end;
+            this.requested = true;
+            this.lock.notifyAll();
+            while(this.committed < target) {
+                if(this.closed && !this.committer.isAlive()) {
+                    throw new IOException("The journal was closed.");
+                }
+                try {
+                    this.lock.wait();
+                } catch(InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while committing.", ie);
+                }
+            }
+        }
+    }
+
+    /**
+     * Commits everything recorded so far and closes the file. Games still
+     * being recorded must not be played after this.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized(this.lock) {
+            if(this.closed) {
+                return;
+            }
+            this.requested = true;
+            this.closed = true;
+            this.lock.notifyAll();
+        }
+        try {
+            this.committer.join();
+        } catch(InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        this.channel.close();
+    }
+
+    /**
+     * Rebuilds a game from a journal as it was at the end of the log. Games
+     * recorded with a standard deck are rebuilt with one.
+     *
+     * @param file The journal file.
+     * @param game The id of the game.
+     *
+     * @return The game.
+     *
+     * @throws IOException If the journal can't be read.
+     * @throws MemoryException If the game is not in the journal, or the
+     * journal's moves can't be made in it.
+     */
+    public static Memory replay(Path file, int game) throws IOException, MemoryException {
+        return replay(file, game, null, Long.MAX_VALUE);
+    }
+
+    /**
+     * Rebuilds a game from a journal as it was after the specified number
+     * of flips. Deals are replayed as they happened, so a game that was
+     * reset is rebuilt on its latest deal before that point.
+     *
+     * @param file The journal file.
+     * @param game The id of the game.
+     * @param deck The faces the game was played with, or null if it was
+     * played with a standard deck.
+     * @param flips The number of flips to replay.
+     *
+     * @return The game.
+     *
+     * @throws IOException If the journal can't be read.
+     * @throws MemoryException If the game is not in the journal, or the
+     * journal's moves can't be made in it.
+     */
+    public static Memory replay(Path file, int game, Deck deck, long flips)
+            throws IOException, MemoryException {
+        Replay replay = new Replay(game, deck, flips);
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            scan(channel, replay);
+        }
+        if(replay.error != null) {
+            throw replay.error;
+        } else if(replay.memory == null) {
+            throw new MemoryException("Game " + game + " is not in " + file + ".");
+        }
+        return replay.memory;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if(args.length < 1) {
+            System.out.println("Usage: MoveJournal FILE [GAME [FLIPS]]");
+            return;
+        }
+        Path file = Paths.get(args[0]);
+        if(args.length == 1) {
+            Map<Integer, long[]> games = new TreeMap<>();
+            try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                scan(channel, new Visitor() {
+                    @Override
+                    public void dealt(int game, int cols, int rows, long seed) {
+                        games.computeIfAbsent(game, g -> new long[2])[0]++;
+                    }
+
+                    @Override
+                    public void flipped(int game, int slot) {
+                        games.get(game)[1]++;
+                    }
+
+                    @Override
+                    public void endedTurn(int game) {
+                    }
+                });
+            }
+            for(Map.Entry<Integer, long[]> game : games.entrySet()) {
+                System.out.println("game " + game.getKey() + ": " + game.getValue()[0]
+                    + " deals, " + game.getValue()[1] + " flips");
+            }
+            return;
+        }
+        int game = Integer.parseInt(args[1]);
+        long flips = args.length > 2 ? Long.parseLong(args[2]) : Long.MAX_VALUE;
+        Memory memory = replay(file, game, null, flips);
+        System.out.println("Moves: " + memory.getMoves());
+        System.out.println("Score: " + memory.getScore());
+        System.out.println();
+        System.out.println(memory);
+    }
+
+    /**
+     * Appends a deal.
+     */
+    private void dealt(int game, int cols, int rows, long seed) {
+        synchronized(this.lock) {
+            long at = this.end;
+            put(at, record(game, DEAL));
+            put(at + Long.BYTES, (long)cols << 32 | rows);
+            put(at + 2 * Long.BYTES, seed);
+            this.end = at + 3 * Long.BYTES;
+        }
+    }
+
+    /**
+     * Appends a flip.
+     */
+    private void flipped(int game, int slot) {
+        synchronized(this.lock) {
+            put(this.end, record(game, slot));
+            this.end += Long.BYTES;
+        }
+    }
+
+    /**
+     * Appends the end of a turn.
+     */
+    private void endedTurn(int game) {
+        flipped(game, END_TURN);
+    }
+
+    /**
+     * Writes a record at the specified position in the file, mapping a new
+     * region if it is past the end of the mapped ones.
+     */
+    private void put(long position, long value) {
+        int index = (int)(position / REGION);
+        while(this.regions.size() <= index) {
+            try {
+                MappedByteBuffer region = this.channel.map(FileChannel.MapMode.READ_WRITE,
+                    (long)this.regions.size() * REGION, REGION);
+                region.order(ByteOrder.LITTLE_ENDIAN);
+                this.regions.add(region);
+            } catch(IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }
+        this.regions.get(index).putLong((int)(position % REGION), value);
+    }
+
+    /**
+     * Forces what has been written to disk, whenever somebody asks for it
+     * or the interval has passed, until the journal is closed.
+     */
+    private void commitLoop() {
+        while(true) {
+            long from;
+            long to;
+            List<MappedByteBuffer> dirty = new ArrayList<>();
+            boolean last;
+            synchronized(this.lock) {
+                while(!this.requested && !this.closed) {
+                    try {
+                        this.lock.wait(COMMIT_INTERVAL);
+                    } catch(InterruptedException ie) {
+                        return;
+                    }
+                    if(this.end > this.committed) {
+                        break;
+                    }
+                }
+                this.requested = false;
+                last = this.closed;
+                from = this.committed;
+                to = this.end;
+                for(long region=from / REGION; region<=(to - 1) / REGION && to > from; region++) {
+                    dirty.add(this.regions.get((int)region));
+                }
+            }
+
+            // forces without the lock, so recording carries on meanwhile
+            long regionStart = from / REGION * REGION;
+            for(MappedByteBuffer region : dirty) {
+                int start = (int)Math.max(0, from - regionStart);
+                int length = (int)(Math.min(to, regionStart + REGION) - regionStart) - start;
+                region.force(start, length);
+                regionStart += REGION;
+            }
+
+            synchronized(this.lock) {
+                this.committed = to;
+                // regions before the one being written to are done with
+                for(int region=0; region<to / REGION; region++) {
+                    this.regions.set(region, null);
+                }
+                this.lock.notifyAll();
+            }
+            if(last) {
+                return;
+            }
+        }
+    }
+
+    private static long record(int game, int low) {
+        return (long)game << 32 | (low & 0xffffffffL);
+    }
+
+    /**
+     * Reads every record in a journal, in order, until the end of the log.
+     *
+     * @return The position of the end of the log.
+     */
+    private static long scan(FileChannel channel, Visitor visitor) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        long position = 0;
+        long size = channel.size();
+        long[] deal = new long[3];
+        int dealRecords = 0;
+        boolean first = true;
+        while(position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if(read < 0) {
+                break;
+            }
+            buffer.flip();
+            while(buffer.remaining() >= Long.BYTES) {
+                long record = buffer.getLong();
+                if(first) {
+                    if(record != MAGIC) {
+                        throw new IOException("Not a move journal.");
+                    }
+                    first = false;
+                } else if(dealRecords > 0) {
+                    deal[3 - dealRecords--] = record;
+                    if(dealRecords == 0) {
+                        int cols = (int)(deal[1] >>> 32);
+                        int rows = (int)deal[1];
+                        if(cols == 0) {
+                            // a deal that was cut off part way through
+                            return position + buffer.position() - 3 * Long.BYTES;
+                        }
+                        visitor.dealt((int)(deal[0] >>> 32), cols, rows, deal[2]);
+                    }
+                } else if(record == 0) {
+                    return position + buffer.position() - Long.BYTES;
+                } else if((int)record == DEAL) {
+                    deal[0] = record;
+                    dealRecords = 2;
+                } else if((int)record == END_TURN) {
+                    visitor.endedTurn((int)(record >>> 32));
+                } else {
+                    visitor.flipped((int)(record >>> 32), (int)record);
+                }
+            }
+            position += buffer.position();
+        }
+        if(first) {
+            throw new IOException("Not a move journal.");
+        }
+        return position - (dealRecords > 0 ? (3 - dealRecords) * Long.BYTES : 0);
+    }
+
+    /**
+     * Told about every record read by {@link MoveJournal#scan}.
+     */
+    private interface Visitor {
+        void dealt(int game, int cols, int rows, long seed);
+
+        void flipped(int game, int slot);
+
+        void endedTurn(int game);
+    }
+
+    /**
+     * Rebuilds one game from the records read.
+     */
+    private static class Replay implements Visitor {
+        private final int game;
+        private final Deck deck;
+        private final long flips;
+        private long flipped;
+        private Memory memory;
+        private MemoryException error;
+
+        Replay(int game, Deck deck, long flips) {
+            this.game = game;
+            this.deck = deck;
+            this.flips = flips;
+        }
+
+        @Override
+        public void dealt(int game, int cols, int rows, long seed) {
+            // a deal after the last flip replayed belongs to the next state
+            if(game != this.game || this.error != null
+                    || (this.memory != null && this.flipped >= this.flips)) {
+                return;
+            }
+            if(this.memory != null && this.memory.getCols() == cols
+                    && this.memory.getRows() == rows) {
+                this.memory.reset(seed);
+                return;
+            }
+            try {
+                Deck deck = this.deck != null ? this.deck : Deck.standard(cols * rows / 2);
+                this.memory = new Memory(cols, rows, deck, BoardType.OBJECT, seed);
+            } catch(MemoryException me) {
+                this.error = me;
+            }
+        }
+
+        @Override
+        public void flipped(int game, int slot) {
+            if(game != this.game || this.flipped >= this.flips || this.error != null) {
+                return;
+            }
+            this.flipped++;
+            int rows = this.memory.getRows();
+            int status = this.memory.tryFlip(slot / rows, slot % rows);
+            if(status < 0) {
+                this.error = new MemoryException("Flip " + this.flipped + " of game " + game
+                    + " can't be replayed: " + Memory.describe(status, slot / rows, slot % rows));
+            }
+        }
+
+        @Override
+        public void endedTurn(int game) {
+            // like a deal, an end of turn after the last flip replayed belongs to the next state
+            if(game != this.game || this.flipped >= this.flips || this.error != null) {
+                return;
+            }
+            this.memory.endTurn();
+        }
+    }
+
+    /**
+     * Records one game into the journal.
+     */
+    private class GameRecorder implements MoveRecorder {
+        private final int id;
+
+        GameRecorder(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void dealt(int cols, int rows, long seed) {
+            MoveJournal.this.dealt(this.id, cols, rows, seed);
+        }
+
+        @Override
+        public void flipped(int slot) {
+            MoveJournal.this.flipped(this.id, slot);
+        }
+
+        @Override
+        public void endedTurn() {
+            MoveJournal.this.endedTurn(this.id);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package memory.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An image decoded for the board.
+ */
+@Name("memory.AssetLoad")
+@Label("Asset Load")
+@Description("An image decoded for the board")
+public final class AssetLoadEvent extends TimedEvent {
+    @Label("Path")
+    String path;
+
+    private AssetLoadEvent() {
+        super(Metrics.ASSET_LOAD);
+    }
+
+    /**
+     * Starts timing a load. Only call this if {@link Metrics#ENABLED}.
+     *
+     * @return The event.
+     */
+    public static AssetLoadEvent start() {
+        return new AssetLoadEvent();
+    }
+
+    /**
+     * Ends the load.
+     *
+     * @param path The path of the image that was loaded.
+     */
+    public void finish(String path) {
+        this.path = path;
+        finish();
+    }
+}
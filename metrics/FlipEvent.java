@@ -0,0 +1,45 @@
+package memory.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A card flipped in a game of Memory.
+ */
+@Name("memory.Flip")
+@Label("Flip")
+@Description("A card flipped in a game of Memory, including telling its observers")
+public final class FlipEvent extends TimedEvent {
+    @Label("Slot")
+    int slot;
+
+    @Label("Status")
+    @Description("FLIPPED (0) or MATCHED (1)")
+    int status;
+
+    private FlipEvent() {
+        super(Metrics.FLIP);
+    }
+
+    /**
+     * Starts timing a flip. Only call this if {@link Metrics#ENABLED}.
+     *
+     * @return The event.
+     */
+    public static FlipEvent start() {
+        return new FlipEvent();
+    }
+
+    /**
+     * Ends the flip.
+     *
+     * @param slot The slot that was flipped.
+     * @param status The status of the flip.
+     */
+    public void finish(int slot, int status) {
+        this.slot = slot;
+        this.status = status;
+        finish();
+    }
+}
@@ -0,0 +1,122 @@
+package memory.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The timers kept for the busiest parts of the game, and the switch that
+ * turns them on. Metrics are off unless the JVM is started with
+ * {@code -Dmemory.metrics=true}. The switch is a constant, so when it is
+ * off the JIT drops the timing code altogether and an instrumented method
+ * costs what it did before.
+ *
+ * When metrics are on, every timer is published over JMX and flips, renders
+ * and image loads are also sent to JDK Flight Recorder as
+ * {@link FlipEvent}, {@link RenderEvent} and {@link AssetLoadEvent}.
+ */
+public final class Metrics {
+    /**
+     * True if metrics are being kept.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("memory.metrics");
+
+    /**
+     * Flips made through {@code Memory}, including telling the observers.
+     */
+    public static final Timer FLIP = new Timer("flip");
+
+    /**
+     * Handing a flip's changes to the observers of a game.
+     */
+    public static final Timer DISPATCH = new Timer("dispatch");
+
+    /**
+     * Drawing the cards changed by a flip in the GUI.
+     */
+    public static final Timer RENDER = new Timer("render");
+
+    /**
+     * Resetting the game and every card on screen when the GUI restarts.
+     */
+    public static final Timer RESTART = new Timer("restart");
+
+    /**
+     * Decoding an image.
+     */
+    public static final Timer ASSET_LOAD = new Timer("assetLoad");
+
+    /**
+     * Starting a sound cue, from the flip that called for it until the clip
+     * has been told to play.
+     */
+    public static final Timer CUE = new Timer("cue");
+
+    /**
+     * Drawing a card face from its parts.
+     */
+    public static final Timer COMPOSE = new Timer("compose");
+
+    private static final List<Timer> TIMERS = List.of(FLIP, DISPATCH, RENDER, RESTART, ASSET_LOAD, CUE, COMPOSE);
+
+    static {
+        if(ENABLED) {
+            register();
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns every timer.
+     *
+     * @return The timers.
+     */
+    public static List<Timer> timers() {
+        return TIMERS;
+    }
+
+    /**
+     * Returns a table of every timer, one per line, with its latencies in
+     * microseconds.
+     *
+     * @return The table.
+     */
+    public static String report() {
+        if(!ENABLED) {
+            return "Metrics are disabled. Start with -Dmemory.metrics=true to keep them.\n";
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-10s %10s %10s %10s %10s %10s%n",
+            "", "count", "mean(us)", "p50(us)", "p99(us)", "max(us)"));
+        for(Timer timer : TIMERS) {
+            builder.append(String.format("%-10s %10d %10.1f %10.1f %10.1f %10.1f%n",
+                timer.getName(), timer.getCount(), timer.getMeanNanos() / 1e3,
+                timer.getP50Nanos() / 1e3, timer.getP99Nanos() / 1e3,
+                timer.getMaxNanos() / 1e3));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Publishes every timer with the platform MBean server.
+     */
+    private static void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for(Timer timer : TIMERS) {
+            try {
+                ObjectName name = new ObjectName("memory:type=Timer,name=" + timer.getName());
+                if(!server.isRegistered(name)) {
+                    server.registerMBean(timer, name);
+                }
+            } catch(JMException jme) {
+                // the timers still work, they just can't be seen over JMX
+                System.err.println("Could not publish " + timer.getName() + ": " + jme.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package memory.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Cards drawn on screen after a flip or a restart.
+ */
+@Name("memory.Render")
+@Label("Render")
+@Description("Cards drawn on screen after a flip or a restart")
+public final class RenderEvent extends TimedEvent {
+    @Label("Cards")
+    int cards;
+
+    @Label("Restart")
+    boolean restart;
+
+    private RenderEvent(Timer timer) {
+        super(timer);
+    }
+
+    /**
+     * Starts timing a render.
+     *
+     * @param restart True if the whole board is being drawn for a new game,
+     * false if only the cards changed by a flip are.
+     *
+     * @return The event.
+     */
+    public static RenderEvent start(boolean restart) {
+        RenderEvent event = new RenderEvent(restart ? Metrics.RESTART : Metrics.RENDER);
+        event.restart = restart;
+        return event;
+    }
+
+    /**
+     * Ends the render.
+     *
+     * @param cards The number of cards drawn.
+     */
+    public void finish(int cards) {
+        this.cards = cards;
+        finish();
+    }
+}
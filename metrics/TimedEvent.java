@@ -0,0 +1,37 @@
+package memory.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+
+/**
+ * A Flight Recorder event that also records its duration with a
+ * {@link Timer}. The fields here are transient, so they are not recorded.
+ *
+ * Events must only be created when {@link Metrics#ENABLED} is true, and the
+ * check must be made before the event class is touched: loading an event
+ * class is enough to measurably slow down every flip, even if no event is
+ * ever created.
+ */
+@Category("Memory")
+abstract class TimedEvent extends Event {
+    private final transient Timer timer;
+    private final transient long started;
+
+    TimedEvent(Timer timer) {
+        this.timer = timer;
+        this.started = System.nanoTime();
+        begin();
+    }
+
+    /**
+     * Ends the event, records it if Flight Recorder wants it, and records
+     * its duration with the timer.
+     */
+    void finish() {
+        this.timer.record(System.nanoTime() - this.started);
+        end();
+        if(shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package memory.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the times a piece of code runs and keeps a histogram of how long
+ * it takes. Any number of threads may record at once.
+ *
+ * Latencies are kept in buckets whose width is a quarter of the power of
+ * two below them, so percentiles are accurate to within 25% whatever their
+ * size, in a fixed 2KB per timer.
+ */
+public final class Timer implements TimerMXBean {
+    /**
+     * The number of bits of each latency, after the leading one, that pick
+     * its bucket within a power of two.
+     */
+    private static final int SUB_BITS = 2;
+
+    private static final int SUBS = 1 << SUB_BITS;
+
+    private static final int BUCKETS = 64 * SUBS;
+
+    private final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Creates a new timer.
+     *
+     * @param name The name used in reports and by JMX.
+     */
+    Timer(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the time to pass to {@link #stop(long)}, or 0 without reading
+     * the clock if metrics are disabled.
+     *
+     * @return The start time in nanoseconds.
+     */
+    public long start() {
+        return Metrics.ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since {@link #start()} if metrics are enabled.
+     *
+     * @param start The time returned by {@link #start()}.
+     */
+    public void stop(long start) {
+        if(Metrics.ENABLED) {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records one run that took the specified time.
+     *
+     * @param nanos The time taken in nanoseconds.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        this.buckets.incrementAndGet(bucket(value));
+        this.count.increment();
+        this.total.add(value);
+        this.max.accumulate(value);
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    @Override
+    public long getTotalNanos() {
+        return this.total.sum();
+    }
+
+    @Override
+    public long getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : getTotalNanos() / count;
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return percentile(0.50);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return percentile(0.99);
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return this.max.get();
+    }
+
+    @Override
+    public void reset() {
+        for(int i=0; i<BUCKETS; i++) {
+            this.buckets.set(i, 0);
+        }
+        this.count.reset();
+        this.total.reset();
+        this.max.reset();
+    }
+
+    /**
+     * Returns the latency that the specified fraction of runs took no
+     * longer than, rounded up to the top of its bucket.
+     *
+     * @param fraction The fraction, from 0 to 1.
+     *
+     * @return The latency in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long percentile(double fraction) {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for(int i=0; i<BUCKETS; i++) {
+            counts[i] = this.buckets.get(i);
+            count += counts[i];
+        }
+        long rank = Math.max(1, (long)Math.ceil(fraction * count));
+        long seen = 0;
+        for(int i=0; i<BUCKETS; i++) {
+            seen += counts[i];
+            if(seen >= rank) {
+                return Math.min(highest(i), getMaxNanos());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the bucket a latency is counted in.
+     */
+    private static int bucket(long nanos) {
+        if(nanos < SUBS) {
+            return (int)nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int)(nanos >>> (exponent - SUB_BITS)) & (SUBS - 1);
+        return (exponent - SUB_BITS + 1) * SUBS + sub;
+    }
+
+    /**
+     * Returns the largest latency counted in a bucket.
+     */
+    private static long highest(int bucket) {
+        if(bucket < SUBS) {
+            return bucket;
+        }
+        int shift = bucket / SUBS - 1;
+        long lowest = (long)(SUBS + bucket % SUBS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,62 @@
+package memory.metrics;
+
+/**
+ * The view of a {@link Timer} published over JMX, under
+ * {@code memory:type=Timer,name=<name>}.
+ */
+public interface TimerMXBean {
+    /**
+     * Returns the name of the timer.
+     *
+     * @return The name.
+     */
+    String getName();
+
+    /**
+     * Returns the number of runs recorded.
+     *
+     * @return The number of runs.
+     */
+    long getCount();
+
+    /**
+     * Returns the time taken by every run recorded, added up.
+     *
+     * @return The total time in nanoseconds.
+     */
+    long getTotalNanos();
+
+    /**
+     * Returns the mean time taken by a run.
+     *
+     * @return The mean in nanoseconds, or 0 if nothing was recorded.
+     */
+    long getMeanNanos();
+
+    /**
+     * Returns the median time taken by a run.
+     *
+     * @return The median in nanoseconds, or 0 if nothing was recorded.
+     */
+    long getP50Nanos();
+
+    /**
+     * Returns the time that 99% of runs took no longer than.
+     *
+     * @return The 99th percentile in nanoseconds, or 0 if nothing was
+     * recorded.
+     */
+    long getP99Nanos();
+
+    /**
+     * Returns the longest time taken by a run.
+     *
+     * @return The maximum in nanoseconds, or 0 if nothing was recorded.
+     */
+    long getMaxNanos();
+
+    /**
+     * Forgets every run recorded so far.
+     */
+    void reset();
+}
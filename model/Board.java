@@ -0,0 +1,135 @@
+package memory.model;
+
+/**
+ * The storage for the cards in a game of Memory. Slots are addressed by
+ * index using the same column-major layout as {@link Memory}, i.e.
+ * {@code col * rows + row}.
+ *
+ * A board holds two cards for each of the first {@code size / 2} faces in
+ * its deck. The cards are numbered from 0 to {@code size - 1}, and card
+ * {@code c} shows the face with symbol id {@code c % (size / 2)}. A deal
+ * says which card is in each slot.
+ */
+interface Board {
+    /**
+     * The size of an object header, assuming compressed class pointers.
+     */
+    int OBJECT_HEADER = 12;
+
+    /**
+     * The size of an array header, assuming compressed class pointers.
+     */
+    int ARRAY_HEADER = 16;
+
+    /**
+     * The size of a reference, assuming compressed object pointers.
+     */
+    int REFERENCE = 4;
+
+    /**
+     * Returns the number of slots on the board.
+     *
+     * @return The number of slots on the board.
+     */
+    int size();
+
+    /**
+     * Deals the cards onto the board, face down, replacing any cards that
+     * are on it. Nothing is allocated, so a board can be dealt again to
+     * start a new game.
+     *
+     * @param deal The number of the card in each slot, a permutation of 0
+     * to {@code size - 1}.
+     */
+    void deal(int[] deal);
+
+    /**
+     * Returns the face of the card in the specified slot.
+     *
+     * @param index The slot.
+     *
+     * @return The face of the card, or {@link CardFace#NULL} if the card has
+     * been removed.
+     */
+    CardFace getFace(int index);
+
+    /**
+     * Returns true if the card in the specified slot is face up.
+     *
+     * @param index The slot.
+     *
+     * @return True if the card is face up, false otherwise.
+     */
+    boolean isFaceUp(int index);
+
+    /**
+     * Returns true if the card in the specified slot has been removed.
+     *
+     * @param index The slot.
+     *
+     * @return True if the card has been removed, false otherwise.
+     */
+    boolean isRemoved(int index);
+
+    /**
+     * Turns the card in the specified slot face up.
+     *
+     * @param index The slot.
+     */
+    void turnFaceUp(int index);
+
+    /**
+     * Turns the card in the specified slot face down if it is not already.
+     *
+     * @param index The slot.
+     */
+    void turnFaceDown(int index);
+
+    /**
+     * Removes the card in the specified slot from the board.
+     *
+     * @param index The slot.
+     */
+    void remove(int index);
+
+    /**
+     * Returns the card in the specified slot.
+     *
+     * @param index The slot.
+     *
+     * @return The card in the slot, or {@link Card#NULL_CARD} if it has been
+     * removed.
+     */
+    Card getCard(int index);
+
+    /**
+     * Returns an estimate of the number of bytes of heap used by the board,
+     * assuming a 64-bit JVM with compressed object pointers.
+     *
+     * @return The estimated size of the board in bytes.
+     */
+    long footprint();
+
+    /**
+     * Rounds a size up to the 8 byte alignment used for objects on the heap.
+     *
+     * @param bytes The unaligned size.
+     *
+     * @return The aligned size.
+     */
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Returns the size of an array on the heap.
+     *
+     * @param length The number of elements in the array.
+     * @param elementSize The size of each element in bytes.
+     *
+     * @return The aligned size of the array.
+     */
+    static long arraySize(int length, int elementSize) {
+        return align(ARRAY_HEADER + (long)length * elementSize);
+    }
+}
@@ -0,0 +1,20 @@
+package memory.model;
+
+/**
+ * The storage used for the cards on a Memory board.
+ */
+public enum BoardType {
+    /**
+     * One {@link Card} object per slot on the board. This is the original
+     * representation.
+     */
+    OBJECT,
+
+    /**
+     * The symbol on each slot is stored as a small id in a primitive array,
+     * and the face up and removed state of each slot is stored in a bit set.
+     * Much cheaper to keep around than {@link #OBJECT}, at the cost of a
+     * short lived {@link Card} whenever a card is requested from the board.
+     */
+    PACKED
+}
@@ -22,15 +22,22 @@ public class Card {
     private static final String FACE_DOWN = "[ ]";
 
     /**
-     * The symbol on the card.
+     * The face of the card. Faces are shared by every card with the same
+     * symbol.
      */
-    private final char symbol;
+    private final CardFace face;
 
     /**
      * Indicates whether the card is face up or not.
      */
     private boolean faceUp;
 
+    /**
+     * True if the card was made to show the state of a slot on a board that
+     * keeps no card objects, in which case flipping it would change nothing.
+     */
+    private final boolean snapshot;
+
     /**
      * Creates a new Card with the specified symbol that is face down.
      * 
@@ -39,26 +46,37 @@ public class Card {
      * @throws MemoryException If the symbol is invalid.
      */
     public Card(char symbol) throws MemoryException {
-        if(symbol == NULL_SYMBOL) {
+        this(CardFace.of(symbol));
+    }
+
+    /**
+     * Creates a new Card with the specified face that is face down.
+     * 
+     * @param face The face of the card.
+     * 
+     * @throws MemoryException If the face is blank.
+     */
+    public Card(CardFace face) throws MemoryException {
+        if(face == CardFace.NULL) {
             throw new MemoryException("Blank cards are not allowed.");
         }
-        this.symbol = symbol;
+        this.face = face;
         this.faceUp = false;
+        this.snapshot = false;
     }
 
-    // holds the path for an image for a card
-    public String path;
-
-    // new constructor for a card with an image
-    public Card(char symbol, String path) {
-        this.symbol = symbol;
-        this.faceUp = false;
-        this.path = path;
-    }  
-
-    // returns the image path of a card
-    public String getPath(){
-        return this.path;
+    /**
+     * Not visible outside of the package. Used by boards that do not keep
+     * card objects around to hand out a card in the current state of a slot.
+     * The card is a snapshot, and can't be flipped.
+     *
+     * @param face The face of the card.
+     * @param faceUp Whether the card is face up.
+     */
+    Card(CardFace face, boolean faceUp) {
+        this.face = face;
+        this.faceUp = faceUp;
+        this.snapshot = true;
     }
 
     /**
@@ -66,23 +84,43 @@ public class Card {
      * 
      */
     private Card() {
-        this.symbol = NULL_SYMBOL;
+        this.face = CardFace.NULL;
         this.faceUp = true;
+        this.snapshot = false;
     }
 
     /**
-     * Returns the symbol on the card.
+     * Returns the face of the card.
+     * 
+     * @return The face of this card.
+     */
+    public CardFace getFace() {
+        return this.face;
+    }
+
+    /**
+     * Returns the first character of the symbol on the card. Use
+     * {@link #getFace()} for symbols that are longer than one character.
      * 
      * @return The symbol on this card.
      */
     public char getSymbol() {
-        return this.symbol;
+        return this.face.getSymbol().charAt(0);
     }
 
     /**
      * Flips the card.
+     * 
+     * @throws UnsupportedOperationException If the card is a snapshot of a
+     * slot on a board that keeps no cards, e.g. one returned by
+     * {@link Memory#getCard(int, int)} for a {@link BoardType#PACKED} game.
+     * Flipping it would not change the game.
      */
     public void flip() {
+        if(this.snapshot) {
+            throw new UnsupportedOperationException(
+                "This card is a snapshot of a slot and can't be flipped; flip it through the game instead.");
+        }
         this.faceUp = !this.faceUp;
     }
 
@@ -104,7 +142,7 @@ public class Card {
     @Override
     public String toString() {
         if(this.faceUp) {
-            return "[" + this.symbol + "]";
+            return "[" + this.face + "]";
         } else {
             return FACE_DOWN;
         }
@@ -118,9 +156,18 @@ public class Card {
     public boolean equals(Object o) {
         if(o instanceof Card) {
             Card other = (Card)o;
-            return this.symbol == other.symbol;
+            return this.face == other.face;
         } else {
             return false;
         }
     }
+
+    /**
+     * Cards with the same symbol have the same hash code, whether they are
+     * face up or not.
+     */
+    @Override
+    public int hashCode() {
+        return this.face.hashCode();
+    }
 }
@@ -0,0 +1,106 @@
+package memory.model;
+
+/**
+ * A board that keeps one {@link Card} object in each slot.
+ */
+class CardBoard implements Board {
+    /**
+     * The estimated size of a single card: the object header, the face
+     * reference, and the face up and snapshot flags. Faces are shared and
+     * not counted.
+     */
+    private static final long CARD_SIZE = Board.align(OBJECT_HEADER + REFERENCE + 2);
+
+    /**
+     * Every card in the game, by card number. Removed cards are kept here so
+     * that they can be dealt again.
+     */
+    private final Card[] all;
+
+    /**
+     * The cards on the board.
+     */
+    private final Card[] cards;
+
+    /**
+     * Creates a new, empty board and the cards to deal onto it.
+     *
+     * @param deck The faces used on the cards.
+     * @param size The number of slots on the board.
+     *
+     * @throws MemoryException If any of the faces is invalid.
+     */
+    CardBoard(Deck deck, int size) throws MemoryException {
+        int pairs = size / 2;
+        this.all = new Card[size];
+        for(int c=0; c<size; c++) {
+            this.all[c] = new Card(deck.get(c % pairs));
+        }
+        this.cards = new Card[size];
+    }
+
+    @Override
+    public void deal(int[] deal) {
+        for(int i=0; i<deal.length; i++) {
+            Card card = this.all[deal[i]];
+            if(card.isFaceUp()) {
+                card.flip();
+            }
+            this.cards[i] = card;
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.cards.length;
+    }
+
+    @Override
+    public CardFace getFace(int index) {
+        return this.cards[index].getFace();
+    }
+
+    @Override
+    public boolean isFaceUp(int index) {
+        return this.cards[index].isFaceUp();
+    }
+
+    @Override
+    public boolean isRemoved(int index) {
+        return this.cards[index] == Card.NULL_CARD;
+    }
+
+    @Override
+    public void turnFaceUp(int index) {
+        Card card = this.cards[index];
+        if(!card.isFaceUp()) {
+            card.flip();
+        }
+    }
+
+    @Override
+    public void turnFaceDown(int index) {
+        Card card = this.cards[index];
+        if(card.isFaceUp() && card != Card.NULL_CARD) {
+            card.flip();
+        }
+    }
+
+    @Override
+    public void remove(int index) {
+        this.cards[index] = Card.NULL_CARD;
+    }
+
+    @Override
+    public Card getCard(int index) {
+        return this.cards[index];
+    }
+
+    @Override
+    public long footprint() {
+        // every card is kept, even once it has been removed from the board
+        return Board.align(OBJECT_HEADER + 2 * REFERENCE)
+            + 2 * Board.arraySize(this.cards.length, REFERENCE)
+            + this.all.length * CARD_SIZE;
+    }
+}
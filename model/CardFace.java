@@ -0,0 +1,258 @@
+package memory.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The immutable face of a card, i.e. its symbol. Faces are interned: there
+ * is only ever one face for each symbol, shared by every card, board and
+ * game that uses it, so faces can be compared with {@code ==}.
+ *
+ * Every face has a small id that can be used to look it up again with
+ * {@link #get(int)}.
+ */
+public final class CardFace {
+    /**
+     * The face of the null card. It is not registered and has no id.
+     */
+    public static final CardFace NULL = new CardFace(-1, String.valueOf(Card.NULL_SYMBOL));
+
+    /**
+     * The number of letters used by the standard symbols.
+     */
+    private static final int LETTERS = 26;
+
+    /**
+     * The longest standard symbol. Six letters is over 300 million faces.
+     */
+    private static final int MAX_STANDARD_LENGTH = 6;
+
+    /**
+     * Every face that is not a standard face, by symbol.
+     */
+    private static final ConcurrentHashMap<String, CardFace> BY_SYMBOL =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Every face, by id. Only the first {@link #count} entries are valid.
+     */
+    private static volatile CardFace[] byId = new CardFace[64];
+
+    /**
+     * The number of faces that have been created.
+     */
+    private static int count;
+
+    /**
+     * The standard faces, in order: "A" to "Z", then "AA", "AB" and so on.
+     * The table is replaced by a longer copy when more faces are needed.
+     */
+    private static volatile CardFace[] standard = new CardFace[0];
+
+    /**
+     * The id of the face.
+     */
+    private final int id;
+
+    /**
+     * The symbol on the face.
+     */
+    private final String symbol;
+
+    /**
+     * Not visible outside of the class. Faces are created by interning.
+     *
+     * @param id The id of the face.
+     * @param symbol The symbol on the face.
+     */
+    private CardFace(int id, String symbol) {
+        this.id = id;
+        this.symbol = symbol;
+    }
+
+    /**
+     * Returns the face with the specified symbol, creating it if needed.
+     *
+     * @param symbol The symbol.
+     *
+     * @return The one face with that symbol.
+     *
+     * @throws MemoryException If the symbol is blank.
+     */
+    public static CardFace of(String symbol) throws MemoryException {
+        if(symbol.isEmpty() || symbol.equals(NULL.symbol)) {
+            throw new MemoryException("Blank cards are not allowed.");
+        }
+        int index = standardIndex(symbol);
+        if(index >= 0) {
+            return standard(index + 1)[index];
+        }
+        CardFace face = BY_SYMBOL.get(symbol);
+        return face != null ? face : register(symbol);
+    }
+
+    /**
+     * Returns the face with the specified single character symbol, creating
+     * it if needed.
+     *
+     * @param symbol The symbol.
+     *
+     * @return The one face with that symbol.
+     *
+     * @throws MemoryException If the symbol is blank.
+     */
+    public static CardFace of(char symbol) throws MemoryException {
+        if(symbol >= 'A' && symbol <= 'Z') {
+            return standard(LETTERS)[symbol - 'A'];
+        }
+        return of(String.valueOf(symbol));
+    }
+
+    /**
+     * Returns the face with the specified id.
+     *
+     * @param id The id.
+     *
+     * @return The face.
+     *
+     * @throws IndexOutOfBoundsException If there is no face with that id.
+     */
+    public static CardFace get(int id) {
+        CardFace[] faces = byId;
+        if(id < 0 || id >= faces.length || faces[id] == null) {
+            throw new IndexOutOfBoundsException("No face with id " + id);
+        }
+        return faces[id];
+    }
+
+    /**
+     * Returns the number of faces that have been created.
+     *
+     * @return The number of faces.
+     */
+    public static synchronized int count() {
+        return count;
+    }
+
+    /**
+     * Returns a table holding at least the specified number of standard
+     * faces. The table is shared and must not be modified.
+     *
+     * @param size The number of standard faces needed.
+     *
+     * @return The standard faces.
+     */
+    static CardFace[] standard(int size) {
+        CardFace[] faces = standard;
+        if(size <= faces.length) {
+            return faces;
+        }
+        synchronized(CardFace.class) {
+            faces = standard;
+            if(size > faces.length) {
+                int created = faces.length;
+                faces = Arrays.copyOf(faces, Math.max(Math.max(size, LETTERS), created * 2));
+                for(int i=created; i<faces.length; i++) {
+                    faces[i] = create(standardSymbol(i));
+                }
+                standard = faces;
+            }
+            return faces;
+        }
+    }
+
+    /**
+     * Returns the id of the face.
+     *
+     * @return The id.
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * Returns the symbol on the face.
+     *
+     * @return The symbol.
+     */
+    public String getSymbol() {
+        return this.symbol;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        // faces are interned
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.id;
+    }
+
+    @Override
+    public String toString() {
+        return this.symbol;
+    }
+
+    /**
+     * Creates and registers a face that is not a standard face.
+     */
+    private static synchronized CardFace register(String symbol) {
+        CardFace face = BY_SYMBOL.get(symbol);
+        if(face == null) {
+            face = create(symbol);
+            BY_SYMBOL.put(symbol, face);
+        }
+        return face;
+    }
+
+    /**
+     * Creates a face with the next id. Must hold the class lock.
+     */
+    private static CardFace create(String symbol) {
+        CardFace[] faces = byId;
+        if(count == faces.length) {
+            faces = Arrays.copyOf(faces, faces.length * 2);
+        }
+        CardFace face = new CardFace(count, symbol);
+        faces[count++] = face;
+        byId = faces;
+        return face;
+    }
+
+    /**
+     * Returns the standard symbol with the specified index: "A" to "Z", then
+     * "AA" to "ZZ", then "AAA" and so on.
+     */
+    private static String standardSymbol(int index) {
+        char[] letters = new char[MAX_STANDARD_LENGTH + 1];
+        int start = letters.length;
+        int n = index + 1;
+        while(n > 0) {
+            n--;
+            letters[--start] = (char)('A' + n % LETTERS);
+            n /= LETTERS;
+        }
+        return new String(letters, start, letters.length - start);
+    }
+
+    /**
+     * Not visible outside of the package. Returns the index of a standard
+     * symbol, or -1 if the symbol is not a standard symbol.
+     */
+    static int standardIndex(String symbol) {
+        if(symbol.length() > MAX_STANDARD_LENGTH) {
+            return -1;
+        }
+        int n = 0;
+        for(int i=0; i<symbol.length(); i++) {
+            char c = symbol.charAt(i);
+            if(c < 'A' || c > 'Z') {
+                return -1;
+            }
+            n = n * LETTERS + (c - 'A' + 1);
+        }
+        return n - 1;
+    }
+}
@@ -0,0 +1,357 @@
+package memory.model;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A game of Memory played by any number of players at once on one shared
+ * board. Each player takes a {@link Seat}, which keeps that player's own
+ * pending pair, score and move count, and plays by the same rules as
+ * {@link Memory}: the third card a player flips puts their previous pair
+ * back face down, or removes it if it matched.
+ *
+ * The state of every slot is a single int that only changes by
+ * compare-and-set, so two players can never both turn up the same card.
+ * No locks are taken. The totals for the whole board are kept in
+ * {@link LongAdder}s, so they do not become a point of contention.
+ */
+public class ConcurrentMemory {
+    /**
+     * The state of a slot whose card is face down. A slot whose card is
+     * face up holds the id of the seat that turned it up.
+     */
+    private static final int FACE_DOWN = 0;
+
+    /**
+     * The state of a slot whose card has been removed.
+     */
+    private static final int REMOVED = -1;
+
+    /**
+     * Used for an empty move slot.
+     */
+    private static final int NO_MOVE = -1;
+
+    private final Deck deck;
+    private final int cols;
+    private final int rows;
+    private final int pairs;
+    private final long seed;
+
+    /**
+     * The symbol id of the card in each slot. Never changes once dealt.
+     */
+    private final int[] ids;
+
+    /**
+     * The state of each slot: {@link #FACE_DOWN}, {@link #REMOVED} or the id
+     * of the seat holding it face up.
+     */
+    private final AtomicIntegerArray slots;
+
+    /**
+     * The number of matches made by every player.
+     */
+    private final LongAdder score = new LongAdder();
+
+    /**
+     * The number of moves made by every player.
+     */
+    private final LongAdder moves = new LongAdder();
+
+    /**
+     * The id of the last seat that was taken.
+     */
+    private final AtomicInteger seats = new AtomicInteger();
+
+    /**
+     * The number of pairs not matched yet. Only touched by a match, so that
+     * the last match can be told without summing {@link #score}.
+     */
+    private final AtomicInteger pairsLeft;
+
+    /**
+     * Set once the last pair has been matched. Checked on every flip
+     * instead of summing {@link #score}.
+     */
+    private volatile boolean gameOver;
+
+    /**
+     * Creates a new shared game shuffled with a random seed.
+     *
+     * @param cols The number of columns on the board.
+     * @param rows The number of rows on the board.
+     * @param deck The faces used on the cards.
+     *
+     * @throws MemoryException If the provided configuration is invalid for a
+     * game of memory.
+     */
+    public ConcurrentMemory(int cols, int rows, Deck deck) throws MemoryException {
+        this(cols, rows, deck, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Creates a new shared game. The cards are dealt exactly as they would
+     * be in a {@link Memory} with the same size, deck and seed.
+     *
+     * @param cols The number of columns on the board.
+     * @param rows The number of rows on the board.
+     * @param deck The faces used on the cards.
+     * @param seed The seed used to shuffle the cards.
+     *
+     * @throws MemoryException If the provided configuration is invalid for a
+     * game of memory.
+     */
+    public ConcurrentMemory(int cols, int rows, Deck deck, long seed)
+            throws MemoryException {
+        int cardCount = cols * rows;
+        if(cardCount % 2 != 0) {
+            throw new MemoryException("Can't play memory with an odd number of cards.");
+        } else if(deck.size() < cardCount / 2) {
+            throw new MemoryException(cardCount + " symbols needed for a "
+                + cols + "x" + rows + " board, but only "
+                + deck.size() + " provided.");
+        }
+        this.deck = deck;
+        this.cols = cols;
+        this.rows = rows;
+        this.pairs = cardCount / 2;
+        this.pairsLeft = new AtomicInteger(this.pairs);
+        this.seed = seed;
+
+        int[] deal = new int[cardCount];
+        for(int c=0; c<cardCount; c++) {
+            deal[c] = c;
+        }
+        Shuffler.shuffle(deal, seed);
+        for(int i=0; i<cardCount; i++) {
+            deal[i] %= this.pairs;
+        }
+        this.ids = deal;
+        this.slots = new AtomicIntegerArray(cardCount);
+    }
+
+    /**
+     * Takes a new seat at the table. A seat must only be used by one thread
+     * at a time.
+     *
+     * @return The seat.
+     */
+    public Seat join() {
+        return new Seat(this.seats.incrementAndGet());
+    }
+
+    public int getCols() {
+        return this.cols;
+    }
+
+    public int getRows() {
+        return this.rows;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public Deck getDeck() {
+        return this.deck;
+    }
+
+    /**
+     * Returns the number of matches made by every player so far.
+     *
+     * @return The total score.
+     */
+    public long getScore() {
+        return this.score.sum();
+    }
+
+    /**
+     * Returns the number of moves made by every player so far.
+     *
+     * @return The total number of moves.
+     */
+    public long getMoves() {
+        return this.moves.sum();
+    }
+
+    /**
+     * Returns true once every pair has been matched.
+     *
+     * @return True if the game is over, false otherwise.
+     */
+    public boolean isGameOver() {
+        return this.gameOver;
+    }
+
+    /**
+     * Returns the face of the card in the specified slot, whatever its state.
+     *
+     * @param index The slot, i.e. {@code col * rows + row}.
+     *
+     * @return The face of the card.
+     */
+    public CardFace getFace(int index) {
+        return this.deck.face(this.ids[index]);
+    }
+
+    /**
+     * Returns true if the card in the specified slot is face up.
+     *
+     * @param index The slot, i.e. {@code col * rows + row}.
+     *
+     * @return True if the card is face up, false otherwise.
+     */
+    public boolean isFaceUp(int index) {
+        return this.slots.get(index) > 0;
+    }
+
+    /**
+     * Returns true if the card in the specified slot has been removed.
+     *
+     * @param index The slot, i.e. {@code col * rows + row}.
+     *
+     * @return True if the card has been removed, false otherwise.
+     */
+    public boolean isRemoved(int index) {
+        return this.slots.get(index) == REMOVED;
+    }
+
+    /**
+     * Returns the number of slots on the board.
+     *
+     * @return The number of slots.
+     */
+    public int size() {
+        return this.ids.length;
+    }
+
+    /**
+     * One player's place at a shared game. Keeps the player's pending pair,
+     * score and moves. Not thread safe: each player uses their own seat.
+     */
+    public class Seat {
+        private final int id;
+        private int move1 = NO_MOVE;
+        private int move2 = NO_MOVE;
+        private int score;
+        private int moves;
+
+        private Seat(int id) {
+            this.id = id;
+        }
+
+        /**
+         * Returns the game this seat is at.
+         *
+         * @return The game.
+         */
+        public ConcurrentMemory getGame() {
+            return ConcurrentMemory.this;
+        }
+
+        /**
+         * Returns the number of matches this player has made.
+         *
+         * @return The score.
+         */
+        public int getScore() {
+            return this.score;
+        }
+
+        /**
+         * Returns the number of moves this player has made.
+         *
+         * @return The number of moves.
+         */
+        public int getMoves() {
+            return this.moves;
+        }
+
+        /**
+         * Flips the card at the specified location, unless another player
+         * got to it first.
+         *
+         * @param col The column of the card to flip.
+         * @param row The row of the card to flip.
+         *
+         * @return {@link Memory#FLIPPED} or {@link Memory#MATCHED} if the
+         * card was flipped, otherwise one of the negative status codes from
+         * {@link Memory} explaining why it was not.
+         */
+        public int tryFlip(int col, int row) {
+            if(col < 0 || col >= cols) {
+                return Memory.INVALID_COLUMN;
+            } else if(row < 0 || row >= rows) {
+                return Memory.INVALID_ROW;
+            }
+            return flipSlot(col * rows + row);
+        }
+
+        /**
+         * Flips the card in the specified slot, unless another player got
+         * to it first.
+         *
+         * @param index The slot, i.e. {@code col * rows + row}. Must be on
+         * the board.
+         *
+         * @return The status of the move, as for {@link #tryFlip(int, int)}.
+         */
+        public int flipSlot(int index) {
+            if(gameOver) {
+                return Memory.GAME_OVER;
+            }
+            // claims the card; this is the only way a card is turned up
+            if(!slots.compareAndSet(index, FACE_DOWN, this.id)) {
+                return slots.get(index) == REMOVED ? Memory.REMOVED : Memory.FACE_UP;
+            }
+            this.moves++;
+            ConcurrentMemory.this.moves.increment();
+            int status = Memory.FLIPPED;
+
+            if(this.move1 == NO_MOVE) {
+                this.move1 = index;
+            } else if(this.move2 == NO_MOVE) {
+                this.move2 = index;
+                if(ids[this.move1] == ids[index]) {
+                    this.score++;
+                    ConcurrentMemory.this.score.increment();
+                    if(pairsLeft.decrementAndGet() == 0) {
+                        gameOver = true;
+                    }
+                    status = Memory.MATCHED;
+                }
+            } else {
+                endTurn();
+                this.move1 = index;
+            }
+            return status;
+        }
+
+        /**
+         * Ends this player's turn early: a pending pair is removed if it
+         * matched and turned face down if it did not, just as it would be
+         * by the next flip. A lone face up card is turned face down. Lets
+         * other players at cards this player is holding.
+         */
+        public void endTurn() {
+            if(this.move1 != NO_MOVE && this.move2 != NO_MOVE
+                    && ids[this.move1] == ids[this.move2]) {
+                // only this seat can change a slot it holds
+                slots.set(this.move1, REMOVED);
+                slots.set(this.move2, REMOVED);
+            } else {
+                if(this.move1 != NO_MOVE) {
+                    slots.set(this.move1, FACE_DOWN);
+                }
+                if(this.move2 != NO_MOVE) {
+                    slots.set(this.move2, FACE_DOWN);
+                }
+            }
+            this.move1 = NO_MOVE;
+            this.move2 = NO_MOVE;
+        }
+    }
+}
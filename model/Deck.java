@@ -0,0 +1,172 @@
+package memory.model;
+
+import java.util.IdentityHashMap;
+
+/**
+ * An immutable list of distinct card faces used to deal a game of Memory.
+ * Each face is dealt twice. The position of a face in the deck is its
+ * symbol id within a game.
+ *
+ * Decks made with {@link #standard(int)} share one table of faces, so even
+ * a deck with hundreds of thousands of faces costs each game nothing more
+ * than a reference.
+ */
+public final class Deck {
+    /**
+     * The faces in the deck. Only the first {@link #size} are part of the
+     * deck; the table may be shared with other decks.
+     */
+    private final CardFace[] faces;
+
+    /**
+     * The number of faces in the deck.
+     */
+    private final int size;
+
+    /**
+     * The position of each face in the deck, or null for a standard deck,
+     * where the position of a face follows from its symbol.
+     */
+    private final IdentityHashMap<CardFace, Integer> positions;
+
+    /**
+     * Not visible outside of the class.
+     *
+     * @param faces The faces in the deck.
+     * @param size The number of faces in the deck.
+     * @param positions The position of each face, or null for a standard
+     * deck.
+     */
+    private Deck(CardFace[] faces, int size, IdentityHashMap<CardFace, Integer> positions) {
+        this.faces = faces;
+        this.size = size;
+        this.positions = positions;
+    }
+
+    /**
+     * Returns a deck of the first {@code size} standard faces: "A" to "Z",
+     * then "AA", "AB" and so on.
+     *
+     * @param size The number of faces.
+     *
+     * @return The deck.
+     */
+    public static Deck standard(int size) {
+        if(size < 0) {
+            throw new IllegalArgumentException("Negative deck size: " + size);
+        }
+        return new Deck(CardFace.standard(size), size, null);
+    }
+
+    /**
+     * Returns a deck of the specified faces.
+     *
+     * @param faces The faces.
+     *
+     * @return The deck.
+     *
+     * @throws MemoryException If a face is blank or appears more than once.
+     */
+    public static Deck of(CardFace... faces) throws MemoryException {
+        IdentityHashMap<CardFace, Integer> positions = new IdentityHashMap<>();
+        for(int i=0; i<faces.length; i++) {
+            CardFace face = faces[i];
+            if(face == null || face == CardFace.NULL) {
+                throw new MemoryException("Blank cards are not allowed.");
+            } else if(positions.put(face, i) != null) {
+                throw new MemoryException("Duplicate symbol: " + face);
+            }
+        }
+        return new Deck(faces.clone(), faces.length, positions);
+    }
+
+    /**
+     * Returns a deck of the faces with the specified symbols.
+     *
+     * @param symbols The symbols.
+     *
+     * @return The deck.
+     *
+     * @throws MemoryException If a symbol is blank or appears more than once.
+     */
+    public static Deck of(String... symbols) throws MemoryException {
+        CardFace[] faces = new CardFace[symbols.length];
+        for(int i=0; i<symbols.length; i++) {
+            faces[i] = CardFace.of(symbols[i]);
+        }
+        return of(faces);
+    }
+
+    /**
+     * Returns a deck of the faces with the specified symbols.
+     *
+     * @param symbols The symbols.
+     *
+     * @return The deck.
+     *
+     * @throws MemoryException If a symbol is blank or appears more than once.
+     */
+    public static Deck of(char... symbols) throws MemoryException {
+        CardFace[] faces = new CardFace[symbols.length];
+        for(int i=0; i<symbols.length; i++) {
+            faces[i] = CardFace.of(symbols[i]);
+        }
+        return of(faces);
+    }
+
+    /**
+     * Returns the number of faces in the deck.
+     *
+     * @return The number of faces.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the face with the specified symbol id.
+     *
+     * @param id The symbol id, i.e. the position of the face in the deck.
+     *
+     * @return The face.
+     */
+    public CardFace get(int id) {
+        if(id < 0 || id >= this.size) {
+            throw new IndexOutOfBoundsException("No symbol with id " + id);
+        }
+        return this.faces[id];
+    }
+
+    /**
+     * Returns the symbol id of a face, i.e. its position in the deck. Takes
+     * the same time however many faces have been created, so a small game
+     * can look up its faces cheaply even after a huge deck has been made.
+     *
+     * @param face The face.
+     *
+     * @return The symbol id, or -1 if the face is not in the deck.
+     */
+    public int indexOf(CardFace face) {
+        int index;
+        if(this.positions != null) {
+            Integer position = this.positions.get(face);
+            index = position != null ? position : -1;
+        } else {
+            index = CardFace.standardIndex(face.getSymbol());
+        }
+        return index >= 0 && index < this.size && this.faces[index] == face ? index : -1;
+    }
+
+    /**
+     * Not visible outside of the package. Returns the face with the
+     * specified symbol id without checking it, for boards looking up the
+     * face in a slot.
+     *
+     * @param id The symbol id.
+     *
+     * @return The face.
+     */
+    CardFace face(int id) {
+        return this.faces[id];
+    }
+}
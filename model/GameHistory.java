@@ -0,0 +1,120 @@
+package memory.model;
+
+import java.util.Arrays;
+
+/**
+ * The states of a game, one per move, with a cursor that can be moved back
+ * and forth to undo and redo moves. Since {@link GameState}s share most of
+ * their structure, keeping every state of a game costs little more than
+ * keeping the moves.
+ *
+ * Making a move after undoing some forgets the moves that were undone.
+ */
+public final class GameHistory {
+    private GameState[] states = new GameState[16];
+    private int size;
+
+    /**
+     * The index of the current state.
+     */
+    private int cursor;
+
+    /**
+     * Creates a new history starting from a state.
+     *
+     * @param start The first state.
+     */
+    public GameHistory(GameState start) {
+        this.states[0] = start;
+        this.size = 1;
+    }
+
+    /**
+     * Returns the current state.
+     *
+     * @return The state.
+     */
+    public GameState current() {
+        return this.states[this.cursor];
+    }
+
+    /**
+     * Flips a card in the current state.
+     *
+     * @param slot The slot, i.e. {@code col * rows + row}.
+     *
+     * @return The new current state.
+     *
+     * @throws IllegalArgumentException If the card can't be flipped.
+     */
+    public GameState apply(int slot) {
+        return push(current().apply(slot));
+    }
+
+    /**
+     * Ends the turn in the current state, if two cards are face up.
+     *
+     * @return The new current state.
+     */
+    public GameState endTurn() {
+        GameState next = current().endTurn();
+        return next == current() ? next : push(next);
+    }
+
+    /**
+     * Goes back to the state before the current one.
+     *
+     * @return The new current state.
+     *
+     * @throws IllegalStateException If there is nothing to undo.
+     */
+    public GameState undo() {
+        if(!canUndo()) {
+            throw new IllegalStateException("Nothing to undo.");
+        }
+        return this.states[--this.cursor];
+    }
+
+    /**
+     * Goes forward to the state after the current one.
+     *
+     * @return The new current state.
+     *
+     * @throws IllegalStateException If there is nothing to redo.
+     */
+    public GameState redo() {
+        if(!canRedo()) {
+            throw new IllegalStateException("Nothing to redo.");
+        }
+        return this.states[++this.cursor];
+    }
+
+    /**
+     * Returns true if there is a state before the current one.
+     *
+     * @return True if a move can be undone, false otherwise.
+     */
+    public boolean canUndo() {
+        return this.cursor > 0;
+    }
+
+    /**
+     * Returns true if there is a state after the current one.
+     *
+     * @return True if a move can be redone, false otherwise.
+     */
+    public boolean canRedo() {
+        return this.cursor < this.size - 1;
+    }
+
+    private GameState push(GameState state) {
+        if(this.cursor + 1 == this.states.length) {
+            this.states = Arrays.copyOf(this.states, this.states.length * 2);
+        }
+        // forgets the states that were undone
+        Arrays.fill(this.states, this.cursor + 1, this.size, null);
+        this.states[++this.cursor] = state;
+        this.size = this.cursor + 1;
+        return state;
+    }
+}
@@ -0,0 +1,300 @@
+package memory.model;
+
+/**
+ * A game of Memory frozen at one moment, for players that search ahead.
+ * A state never changes: {@link #apply(int)} and {@link #endTurn()} return
+ * a new state and leave the old one as it was, so a search can branch from
+ * any state as often as it likes, and states can be shared between threads.
+ *
+ * The deal is the same for every state of a game and is shared between
+ * them. The cards that have been removed are kept in a
+ * {@link PersistentBitSet}, which shares all but one path with the state
+ * before, and the face up cards are the ones flipped this turn, just as in
+ * {@link Memory}. A flip therefore costs constant time, or time in the log
+ * of the size of the board when it removes a pair, and a state takes a few
+ * dozen bytes more than the one before it.
+ *
+ * {@link Memory#toState()} and {@link #toMemory(BoardType)} convert to and
+ * from a game, exactly, including the pair still face up from the last
+ * turn. {@link GameHistory} keeps the states of a game for undo and redo.
+ */
+public final class GameState {
+    private static final int NO_MOVE = -1;
+
+    private final int cols;
+    private final int rows;
+    private final int pairs;
+    private final Deck deck;
+    private final long seed;
+
+    /**
+     * The symbol of the card in each slot, i.e. the index of its face in
+     * the deck. Shared by every state of the game, so never changed.
+     */
+    private final int[] symbols;
+
+    private final PersistentBitSet removed;
+    private final int score;
+    private final int moves;
+
+    /**
+     * The slots flipped this turn, or {@link #NO_MOVE}.
+     */
+    private final int move1;
+    private final int move2;
+
+    GameState(int cols, int rows, Deck deck, long seed, int[] symbols, PersistentBitSet removed,
+            int score, int moves, int move1, int move2) {
+        this.cols = cols;
+        this.rows = rows;
+        this.pairs = symbols.length / 2;
+        this.deck = deck;
+        this.seed = seed;
+        this.symbols = symbols;
+        this.removed = removed;
+        this.score = score;
+        this.moves = moves;
+        this.move1 = move1;
+        this.move2 = move2;
+    }
+
+    /**
+     * Returns a state with the same deal as this one.
+     */
+    private GameState with(PersistentBitSet removed, int score, int moves, int move1, int move2) {
+        return new GameState(this.cols, this.rows, this.deck, this.seed, this.symbols, removed,
+            score, moves, move1, move2);
+    }
+
+    /**
+     * Checks whether the card in a slot can be flipped.
+     *
+     * @param slot The slot, i.e. {@code col * rows + row}.
+     *
+     * @return {@link Memory#MATCHED} if flipping the card would make a
+     * match, {@link Memory#FLIPPED} if it can be flipped otherwise, or one
+     * of the negative status codes of {@link Memory} explaining why not.
+     */
+    public int check(int slot) {
+        if(slot < 0 || slot >= this.symbols.length) {
+            return Memory.INVALID_COLUMN;
+        } else if(isGameOver()) {
+            return Memory.GAME_OVER;
+        } else if(this.removed.get(slot)) {
+            return Memory.REMOVED;
+        } else if(slot == this.move1 || slot == this.move2) {
+            return Memory.FACE_UP;
+        }
+        return this.move1 != NO_MOVE && this.move2 == NO_MOVE && this.symbols[this.move1] == this.symbols[slot]
+            ? Memory.MATCHED
+            : Memory.FLIPPED;
+    }
+
+    /**
+     * Returns the state after flipping a card, just as
+     * {@link Memory#tryFlip(int, int)} would: the first flip of a turn puts
+     * away the pair from the last turn, removing it if it matched.
+     *
+     * @param slot The slot, i.e. {@code col * rows + row}.
+     *
+     * @return The new state.
+     *
+     * @throws IllegalArgumentException If the card can't be flipped.
+     */
+    public GameState apply(int slot) {
+        int status = check(slot);
+        if(status < 0) {
+            throw new IllegalArgumentException(Memory.describe(status, slot / this.rows, slot % this.rows));
+        }
+        if(this.move1 == NO_MOVE) {
+            return with(this.removed, this.score, this.moves + 1, slot, NO_MOVE);
+        } else if(this.move2 == NO_MOVE) {
+            int score = status == Memory.MATCHED ? this.score + 1 : this.score;
+            return with(this.removed, score, this.moves + 1, this.move1, slot);
+        }
+        return with(settled(), this.score, this.moves + 1, slot, NO_MOVE);
+    }
+
+    /**
+     * Returns the state after ending the turn early, as
+     * {@link Memory#endTurn()} does.
+     *
+     * @return The new state, or this one if fewer than two cards are face
+     * up.
+     */
+    public GameState endTurn() {
+        if(this.move2 == NO_MOVE) {
+            return this;
+        }
+        return with(settled(), this.score, this.moves, NO_MOVE, NO_MOVE);
+    }
+
+    /**
+     * Returns the removed cards once the pair flipped this turn is put
+     * away.
+     */
+    private PersistentBitSet settled() {
+        if(this.symbols[this.move1] != this.symbols[this.move2]) {
+            return this.removed;
+        }
+        return this.removed.set(this.move1).set(this.move2);
+    }
+
+    /**
+     * Returns a state to branch from. States never change, so this is the
+     * state itself, and costs nothing.
+     *
+     * @return This state.
+     */
+    public GameState fork() {
+        return this;
+    }
+
+    /**
+     * Makes a game in this state.
+     *
+     * @param type The storage used for the board.
+     *
+     * @return The game.
+     *
+     * @throws MemoryException If the deck can't be played on the board,
+     * which can't happen for a state taken from a game.
+     */
+    public Memory toMemory(BoardType type) throws MemoryException {
+        Memory memory = new Memory(this.cols, this.rows, this.deck, type, this.seed);
+        memory.load(this);
+        return memory;
+    }
+
+    /**
+     * Returns the card numbers that deal this state's cards, as used by
+     * {@link Board#deal(int[])}: card c shows symbol c % pairs.
+     */
+    int[] deal() {
+        int[] deal = new int[this.symbols.length];
+        boolean[] first = new boolean[this.pairs];
+        for(int i=0; i<deal.length; i++) {
+            int symbol = this.symbols[i];
+            deal[i] = first[symbol] ? symbol + this.pairs : symbol;
+            first[symbol] = true;
+        }
+        return deal;
+    }
+
+    /**
+     * Returns the number of columns on the board.
+     *
+     * @return The number of columns.
+     */
+    public int getCols() {
+        return this.cols;
+    }
+
+    /**
+     * Returns the number of rows on the board.
+     *
+     * @return The number of rows.
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Returns the deck the game was dealt from.
+     *
+     * @return The deck.
+     */
+    public Deck getDeck() {
+        return this.deck;
+    }
+
+    /**
+     * Returns the seed the game was dealt with.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Returns the number of matches made.
+     *
+     * @return The score.
+     */
+    public int getScore() {
+        return this.score;
+    }
+
+    /**
+     * Returns the number of cards flipped.
+     *
+     * @return The number of moves.
+     */
+    public int getMoves() {
+        return this.moves;
+    }
+
+    /**
+     * Returns true once every pair has been matched.
+     *
+     * @return True if the game is over, false otherwise.
+     */
+    public boolean isGameOver() {
+        return this.score == this.pairs;
+    }
+
+    /**
+     * Returns the first slot flipped this turn.
+     *
+     * @return The slot, or -1 if no card has been flipped this turn.
+     */
+    public int getFirstSlot() {
+        return this.move1;
+    }
+
+    /**
+     * Returns the second slot flipped this turn.
+     *
+     * @return The slot, or -1 if only one card or none has been flipped.
+     */
+    public int getSecondSlot() {
+        return this.move2;
+    }
+
+    /**
+     * Returns true if the card in a slot is face up. Removed cards are not
+     * face up.
+     *
+     * @param slot The slot, i.e. {@code col * rows + row}.
+     *
+     * @return True if the card is face up, false otherwise.
+     */
+    public boolean isFaceUp(int slot) {
+        // a pair is removed only when it is put away
+        return slot == this.move1 || slot == this.move2;
+    }
+
+    /**
+     * Returns true if the card in a slot has been removed.
+     *
+     * @param slot The slot, i.e. {@code col * rows + row}.
+     *
+     * @return True if the card has been removed, false otherwise.
+     */
+    public boolean isRemoved(int slot) {
+        return this.removed.get(slot);
+    }
+
+    /**
+     * Returns the face of the card in a slot, whether it is face up or not.
+     *
+     * @param slot The slot, i.e. {@code col * rows + row}.
+     *
+     * @return The face, or {@link CardFace#NULL} if the card has been
+     * removed.
+     */
+    public CardFace getFace(int slot) {
+        return this.removed.get(slot) ? CardFace.NULL : this.deck.get(this.symbols[slot]);
+    }
+}
@@ -0,0 +1,127 @@
+package memory.model;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * A set of the indexes in the range {@code [0, capacity)} stored densely so
+ * that adding, removing and picking a random member all take constant time.
+ */
+public final class IndexSet {
+    /**
+     * The members of the set. Only the first {@link #size} are valid.
+     */
+    private final int[] members;
+
+    /**
+     * The position of each index in {@link #members}, or -1 if the index is
+     * not in the set.
+     */
+    private final int[] positions;
+
+    /**
+     * The number of members in the set.
+     */
+    private int size;
+
+    /**
+     * Creates a new, empty set.
+     *
+     * @param capacity One more than the largest index that can be added.
+     */
+    public IndexSet(int capacity) {
+        this.members = new int[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(this.positions, -1);
+    }
+
+    /**
+     * Returns one more than the largest index that can be added.
+     *
+     * @return The capacity of the set.
+     */
+    public int capacity() {
+        return this.positions.length;
+    }
+
+    /**
+     * Returns the number of members in the set.
+     *
+     * @return The number of members in the set.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns true if the index is in the set.
+     *
+     * @param index The index.
+     *
+     * @return True if the index is in the set, false otherwise.
+     */
+    public boolean contains(int index) {
+        return this.positions[index] >= 0;
+    }
+
+    /**
+     * Adds an index to the set if it is not already a member.
+     *
+     * @param index The index to add.
+     */
+    public void add(int index) {
+        if(this.positions[index] < 0) {
+            this.positions[index] = this.size;
+            this.members[this.size++] = index;
+        }
+    }
+
+    /**
+     * Removes an index from the set if it is a member by moving the last
+     * member into its place.
+     *
+     * @param index The index to remove.
+     */
+    public void remove(int index) {
+        int position = this.positions[index];
+        if(position >= 0) {
+            int last = this.members[--this.size];
+            this.members[position] = last;
+            this.positions[last] = position;
+            this.positions[index] = -1;
+        }
+    }
+
+    /**
+     * Returns the member at a position in the set. Members move when
+     * another member is removed, so positions are only good until then.
+     *
+     * @param position The position, from 0 to {@code size() - 1}.
+     *
+     * @return The member at the position.
+     */
+    public int get(int position) {
+        return this.members[position];
+    }
+
+    /**
+     * Returns a member of the set picked uniformly at random.
+     *
+     * @param rng The random number generator to use.
+     *
+     * @return A random member, or -1 if the set is empty.
+     */
+    public int random(RandomGenerator rng) {
+        return this.size == 0 ? -1 : this.members[rng.nextInt(this.size)];
+    }
+
+    /**
+     * Removes every member from the set.
+     */
+    public void clear() {
+        for(int i=0; i<this.size; i++) {
+            this.positions[this.members[i]] = -1;
+        }
+        this.size = 0;
+    }
+}
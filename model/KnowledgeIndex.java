@@ -0,0 +1,193 @@
+package memory.model;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Everything a player with perfect recall knows about a game of Memory:
+ * where each card that has been turned up and is still on the board lies,
+ * and which slots have never been turned up. It is kept up to date by the
+ * game it belongs to as cards are flipped and removed, so hints and bots
+ * can ask about it without scanning the board. See
+ * {@link Memory#enableKnowledge()}.
+ *
+ * Every question is answered in constant time and without allocating.
+ */
+public final class KnowledgeIndex {
+    /**
+     * The symbol id of the card in each slot, i.e. the position of its face
+     * in the deck, or -1 if the slot was already empty when the index was
+     * built. Only ever given out for slots that have been seen.
+     */
+    private final int[] symbols;
+
+    /**
+     * The first slot seen with each symbol that is still on the board, or
+     * -1.
+     */
+    private final int[] first;
+
+    /**
+     * The second slot seen with each symbol that is still on the board, or
+     * -1.
+     */
+    private final int[] second;
+
+    /**
+     * The slots still on the board that have never been turned up.
+     */
+    private final IndexSet unseen;
+
+    /**
+     * The symbols whose cards have both been seen but not yet matched.
+     */
+    private final IndexSet pairs;
+
+    /**
+     * Creates an index for a board with every card face down and unseen.
+     *
+     * @param size The number of slots on the board.
+     */
+    KnowledgeIndex(int size) {
+        this.symbols = new int[size];
+        this.first = new int[size / 2];
+        this.second = new int[size / 2];
+        this.unseen = new IndexSet(size);
+        this.pairs = new IndexSet(size / 2);
+    }
+
+    /**
+     * Forgets everything and starts again with a new deal, every card on
+     * the board unseen.
+     *
+     * @param dealt The symbol id of the card in each slot, or -1 for a slot
+     * that is empty.
+     */
+    void dealt(int[] dealt) {
+        System.arraycopy(dealt, 0, this.symbols, 0, this.symbols.length);
+        Arrays.fill(this.first, -1);
+        Arrays.fill(this.second, -1);
+        this.unseen.clear();
+        this.pairs.clear();
+        for(int i=0; i<dealt.length; i++) {
+            if(dealt[i] >= 0) {
+                this.unseen.add(i);
+            }
+        }
+    }
+
+    /**
+     * Called when the card in a slot is turned up.
+     *
+     * @param index The slot.
+     */
+    void revealed(int index) {
+        if(!this.unseen.contains(index)) {
+            return;
+        }
+        this.unseen.remove(index);
+        int symbol = this.symbols[index];
+        if(this.first[symbol] < 0) {
+            this.first[symbol] = index;
+        } else {
+            this.second[symbol] = index;
+            this.pairs.add(symbol);
+        }
+    }
+
+    /**
+     * Called when the card in a slot is matched. Its pair is no longer
+     * there to be played, though both cards stay face up until the next
+     * flip removes them.
+     *
+     * @param index The slot.
+     */
+    void matched(int index) {
+        this.pairs.remove(this.symbols[index]);
+    }
+
+    /**
+     * Called when the card in a slot is removed from the board.
+     *
+     * @param index The slot.
+     */
+    void removed(int index) {
+        int symbol = this.symbols[index];
+        this.pairs.remove(symbol);
+        if(this.first[symbol] == index) {
+            this.first[symbol] = this.second[symbol];
+            this.second[symbol] = -1;
+        } else if(this.second[symbol] == index) {
+            this.second[symbol] = -1;
+        }
+    }
+
+    /**
+     * Returns true if both cards of some pair have been seen and the pair
+     * has not been matched yet.
+     *
+     * @return True if a known pair is available, false otherwise.
+     */
+    public boolean hasKnownPair() {
+        return this.pairs.size() > 0;
+    }
+
+    /**
+     * Returns one of the cards of a pair whose cards have both been seen and
+     * not yet matched. {@link #getPartner(int)} gives the other.
+     *
+     * @return The slot of the card, or -1 if no pair is known.
+     */
+    public int getKnownPair() {
+        return this.pairs.size() == 0 ? -1 : this.first[this.pairs.get(0)];
+    }
+
+    /**
+     * Returns where the other card with the same symbol as the card in a
+     * slot lies, if it has been seen and is still on the board.
+     *
+     * @param index The slot.
+     *
+     * @return The slot of the partner, or -1 if it is not known.
+     */
+    public int getPartner(int index) {
+        if(this.unseen.contains(index) || this.symbols[index] < 0) {
+            return -1;
+        }
+        int symbol = this.symbols[index];
+        return this.first[symbol] == index ? this.second[symbol] : this.first[symbol];
+    }
+
+    /**
+     * Returns true if the card in a slot has been turned up at least once,
+     * or has been removed.
+     *
+     * @param index The slot.
+     *
+     * @return True if the card has been seen, false otherwise.
+     */
+    public boolean isSeen(int index) {
+        return !this.unseen.contains(index);
+    }
+
+    /**
+     * Returns the number of cards on the board that have never been turned
+     * up.
+     *
+     * @return The number of unseen cards.
+     */
+    public int getUnseenCount() {
+        return this.unseen.size();
+    }
+
+    /**
+     * Picks a slot whose card has never been turned up, uniformly at random.
+     *
+     * @param rng The random number generator to use.
+     *
+     * @return The slot, or -1 if every card has been seen.
+     */
+    public int randomUnseen(RandomGenerator rng) {
+        return this.unseen.random(rng);
+    }
+}
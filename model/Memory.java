@@ -1,46 +1,77 @@
 package memory.model;
 
-import java.util.Random;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+import memory.metrics.FlipEvent;
+import memory.metrics.Metrics;
 
 /**
  * Implements a simple game of Memory.
  */
 public class Memory {
 
-    // creates a memory observer for the main memory class
-    private MemoryObserver observer;
+    /**
+     * Returned by {@link #tryFlip(int, int)} when the card was flipped.
+     */
+    public static final int FLIPPED = 0;
 
-    // a setOnChange method for the memory buttons in the MemoryGUI
-    public void setOnChange(MemoryObserver observer){
-        this.observer = observer;
-    }
+    /**
+     * Returned by {@link #tryFlip(int, int)} when the card was flipped and
+     * matches the other card flipped this round.
+     */
+    public static final int MATCHED = 1;
 
-    // a notifyObserver function for any changes that are made to the main memory game
-    private void notifyObserver(Card card, int col, int row) throws MemoryException{
-        if(observer != null){
-            observer.memoryChanged(card, col, row);
-        }
-    }
+    /**
+     * Returned by {@link #tryFlip(int, int)} when the column is invalid.
+     */
+    public static final int INVALID_COLUMN = -1;
+
+    /**
+     * Returned by {@link #tryFlip(int, int)} when the row is invalid.
+     */
+    public static final int INVALID_ROW = -2;
+
+    /**
+     * Returned by {@link #tryFlip(int, int)} when the game is already over.
+     */
+    public static final int GAME_OVER = -3;
+
+    /**
+     * Returned by {@link #tryFlip(int, int)} when the card has been removed.
+     */
+    public static final int REMOVED = -4;
+
+    /**
+     * Returned by {@link #tryFlip(int, int)} when the card is already face up.
+     */
+    public static final int FACE_UP = -5;
 
     /**
-     * Used to shuffle the cards in the deck before playing them on the board.
+     * Used for an empty move slot.
      */
-    private static final Random RNG = new Random();
+    private static final int NO_MOVE = -1;
 
     /**
-     * The default symbols used for the cards in the game if no other symbols
-     * are provided.
+     * The faces used on the cards. The first {@link #pairs} faces are each
+     * dealt twice.
      */
-    private static final char[] DEFAULT_SYMBOLS = {
-        'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M',
-        'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z'
-    };
+    private final Deck deck;
 
     /**
-     * The deck used to play the game. It will contain two cards for each 
-     * unique symbol.
+     * The cards on the board. It will contain two cards for each unique
+     * symbol.
      */
-    private final Card[] board;
+    private final Board board;
+
+    /**
+     * The kind of storage used for the board.
+     */
+    private final BoardType type;
 
     /**
      * The number of columns on the board.
@@ -57,6 +88,11 @@ public class Memory {
      */
     private final int pairs;
 
+    /**
+     * The seed the current deal was shuffled with.
+     */
+    private long seed;
+
     /**
      * Used to keep track of the number of matches.
      */
@@ -68,15 +104,59 @@ public class Memory {
     private int moves;
 
     /**
-     * The first move made this round.
+     * The slot of the first move made this round, or {@link #NO_MOVE}. Moves
+     * are kept as slot indexes so that flipping a card allocates nothing.
+     */
+    private int move1 = NO_MOVE;
+
+    /**
+     * The slot of the second move made this round, or {@link #NO_MOVE}.
+     */
+    private int move2 = NO_MOVE;
+
+    /**
+     * The observers that are told about every flip. Observers may be added
+     * or removed from any thread.
+     */
+    private final List<MemoryObserver> observers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Told about every deal and flip, or null if the game isn't recorded.
      */
-    private Move move1;
+    private MoveRecorder recorder;
 
+    /**
+     * What has been seen of the board, or null if it isn't being kept.
+     */
+    private KnowledgeIndex knowledge;
 
     /**
-     * The second move made this round.
+     * The slots whose cards are face down, or null until they are first
+     * asked for.
      */
-    public Move move2;
+    private IndexSet faceDown;
+
+    /**
+     * The number of cards that have not been removed.
+     */
+    private int cardsLeft;
+
+    /**
+     * The slots changed by the flip in progress. A flip changes at most
+     * three slots: the pair from the last round and the flipped card.
+     */
+    private final int[] changed = new int[3];
+
+    /**
+     * The number of slots changed by the flip in progress.
+     */
+    private int changedCount;
+
+    /**
+     * The length of the longest symbol on the board, or 0 until it is first
+     * asked for.
+     */
+    private int symbolWidth;
 
     /**
      * Creates a new Memory game using a deck played into the specified number
@@ -90,34 +170,105 @@ public class Memory {
      * game of memory.
      */
     public Memory(int cols, int rows, char[] symbols) throws MemoryException {
+        this(cols, rows, symbols, BoardType.OBJECT);
+    }
+
+    /**
+     * Creates a new Memory game using a deck played into the specified number
+     * of rows and columns. The cards will use the provided symbols and will
+     * be kept in the specified kind of storage.
+     * 
+     * @param cols The number of columns on the board.
+     * @param rows The number of rows on the board.
+     * @param symbols The symbols used on the faces of the cards.
+     * @param type The storage used for the board.
+     * 
+     * @throws MemoryException If the provided configuration is invalid for a
+     * game of memory.
+     */
+    public Memory(int cols, int rows, char[] symbols, BoardType type) 
+            throws MemoryException {
+        this(cols, rows, Deck.of(symbols), type);
+    }
+
+    /**
+     * Creates a new Memory game using a deck played into the specified number
+     * of rows and columns.
+     * 
+     * @param cols The number of columns on the board.
+     * @param rows The number of rows on the board.
+     * @param deck The faces used on the cards.
+     * 
+     * @throws MemoryException If the provided configuration is invalid for a
+     * game of memory.
+     */
+    public Memory(int cols, int rows, Deck deck) throws MemoryException {
+        this(cols, rows, deck, BoardType.OBJECT);
+    }
+
+    /**
+     * Creates a new Memory game using a deck played into the specified number
+     * of rows and columns. The cards will be kept in the specified kind of
+     * storage.
+     * 
+     * @param cols The number of columns on the board.
+     * @param rows The number of rows on the board.
+     * @param deck The faces used on the cards.
+     * @param type The storage used for the board.
+     * 
+     * @throws MemoryException If the provided configuration is invalid for a
+     * game of memory.
+     */
+    public Memory(int cols, int rows, Deck deck, BoardType type) 
+            throws MemoryException {
+        this(cols, rows, deck, type, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Creates a new Memory game using a deck played into the specified number
+     * of rows and columns, shuffled with the specified seed. Two games
+     * created with the same size, deck and seed are dealt exactly the same
+     * way, whichever kind of storage they use.
+     * 
+     * @param cols The number of columns on the board.
+     * @param rows The number of rows on the board.
+     * @param deck The faces used on the cards.
+     * @param type The storage used for the board.
+     * @param seed The seed used to shuffle the cards.
+     * 
+     * @throws MemoryException If the provided configuration is invalid for a
+     * game of memory.
+     */
+    public Memory(int cols, int rows, Deck deck, BoardType type, long seed) 
+            throws MemoryException {
         this.cols = cols;
         this.rows = rows;
+        this.type = type;
+        this.deck = deck;
 
         int cardCount = rows * cols;
         this.pairs = cardCount / 2;
 
         if(cardCount % 2 != 0) {
             throw new MemoryException("Can't play memory with an odd number of cards.");
-        } else if(symbols.length < pairs) {
+        } else if(deck.size() < pairs) {
             throw new MemoryException(cardCount + " symbols needed for a "
                 + cols + "x" + rows + " board, but only " 
-                + symbols.length + " provided.");
+                + deck.size() + " provided.");
         }
 
-        board = new Card[cardCount];
-        for(int i=0; i<pairs; i++) {
-            board[i] = new Card(symbols[i]);
-            board[i + pairs] = new Card(symbols[i]);
+        if(type == BoardType.PACKED) {
+            board = new PackedBoard(deck, cardCount);
+        } else {
+            board = new CardBoard(deck, cardCount);
         }
-        shuffle(board);
-
-        this.score = 0;
-        this.moves = 0;
+        reset(seed);
     }
 
     /**
      * Creates a new Memory game using a deck played into the specified number
-     * of rows and columns. The cards will use the default symbols.
+     * of rows and columns. The cards will use the standard symbols: "A" to
+     * "Z", then "AA", "AB" and so on, as many as the board needs.
      * 
      * @param cols The number of columns on the board.
      * @param rows The number of rows on the board.
@@ -126,9 +277,232 @@ public class Memory {
      * game of memory.
      */
     public Memory(int cols, int rows) throws MemoryException {
-        this(cols, rows, DEFAULT_SYMBOLS);
+        this(cols, rows, Deck.standard(Math.max(0, cols * rows / 2)));
     }
     
+    /**
+     * Starts a new game on the same board: the cards are gathered up,
+     * shuffled and dealt face down into the same slots, and the score,
+     * moves and pending moves are cleared. The board and its cards are
+     * reused, so this is much cheaper than creating a new game.
+     *
+     * Observers are kept, but are not told about the new deal; every card
+     * is face down, so anything drawing the board should redraw it.
+     */
+    public void reset() {
+        reset(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Starts a new game on the same board, as for {@link #reset()}, with the
+     * cards shuffled using the specified seed.
+     * 
+     * @param seed The seed used to shuffle the cards.
+     */
+    public void reset(long seed) {
+        // card numbers, see Board. only needed while dealing
+        int[] deal = new int[this.board.size()];
+        for(int c=0; c<deal.length; c++) {
+            deal[c] = c;
+        }
+        Shuffler.shuffle(deal, seed);
+        this.board.deal(deal);
+        if(this.knowledge != null) {
+            // card c shows symbol c % pairs, see Board
+            for(int i=0; i<deal.length; i++) {
+                deal[i] %= this.pairs;
+            }
+            this.knowledge.dealt(deal);
+        }
+        if(this.faceDown != null) {
+            fillFaceDown();
+        }
+        this.cardsLeft = this.board.size();
+        this.seed = seed;
+        this.score = 0;
+        this.moves = 0;
+        this.move1 = NO_MOVE;
+        this.move2 = NO_MOVE;
+        if(this.recorder != null) {
+            this.recorder.dealt(this.cols, this.rows, seed);
+        }
+    }
+
+    /**
+     * Records this game from now on. The recorder is told about the current
+     * deal straight away, so it should be set before the first move; moves
+     * already made are not recorded.
+     * 
+     * @param recorder The recorder, or null to stop recording.
+     */
+    public void setRecorder(MoveRecorder recorder) {
+        this.recorder = recorder;
+        if(recorder != null) {
+            recorder.dealt(this.cols, this.rows, this.seed);
+        }
+    }
+
+    /**
+     * Starts keeping track of what has been seen of the board, so that
+     * {@link KnowledgeIndex} can tell where known pairs lie and which cards
+     * are still unseen. It is kept up to date with every flip and deal from
+     * now on, at a small constant cost per flip.
+     *
+     * Cards that are face up or removed now count as seen. Cards that were
+     * turned up earlier in this game and put back face down do not, so the
+     * index should be enabled before the first move.
+     *
+     * @return The index. Calling this again returns the same index.
+     */
+    public KnowledgeIndex enableKnowledge() {
+        if(this.knowledge == null) {
+            this.knowledge = new KnowledgeIndex(this.board.size());
+            dealKnowledge();
+        }
+        return this.knowledge;
+    }
+
+    /**
+     * Starts the knowledge index again from the board as it is, with only
+     * the cards that are face up or removed counting as seen.
+     */
+    private void dealKnowledge() {
+        int size = this.board.size();
+        int[] symbols = new int[size];
+        for(int i=0; i<size; i++) {
+            symbols[i] = this.board.isRemoved(i) ? -1 : this.deck.indexOf(this.board.getFace(i));
+        }
+        this.knowledge.dealt(symbols);
+        for(int i=0; i<size; i++) {
+            if(symbols[i] >= 0 && this.board.isFaceUp(i)) {
+                this.knowledge.revealed(i);
+            }
+        }
+        if(this.move2 != NO_MOVE && matches(this.move1, this.move2)) {
+            this.knowledge.matched(this.move2);
+        }
+    }
+
+    /**
+     * Returns the state of this game, which can be played on without
+     * changing the game. Takes a pass over the board.
+     *
+     * @return The state.
+     */
+    public GameState toState() {
+        int size = this.board.size();
+        int[] symbols = new int[size];
+        boolean[] live = new boolean[this.pairs];
+        PersistentBitSet removed = PersistentBitSet.empty(size);
+        for(int i=0; i<size; i++) {
+            if(this.board.isRemoved(i)) {
+                symbols[i] = -1;
+                removed = removed.set(i);
+            } else {
+                symbols[i] = this.deck.indexOf(this.board.getFace(i));
+                live[symbols[i]] = true;
+            }
+        }
+        // a removed card may have lost its face, but it can never be seen again, so
+        // the pairs that are gone are given out to the removed slots in any order
+        int symbol = 0;
+        boolean second = false;
+        for(int i=0; i<size; i++) {
+            if(symbols[i] < 0) {
+                while(live[symbol]) {
+                    symbol++;
+                }
+                symbols[i] = symbol;
+                if(second) {
+                    symbol++;
+                }
+                second = !second;
+            }
+        }
+        return new GameState(this.cols, this.rows, this.deck, this.seed, symbols, removed,
+            this.score, this.moves, this.move1, this.move2);
+    }
+
+    /**
+     * Puts this game in a state, e.g. one taken earlier with
+     * {@link #toState()} and played on. The knowledge index, if enabled,
+     * is the same index as before, but forgets everything seen before the
+     * load: only the cards face up or removed in the state count as seen,
+     * as if the index had been enabled just now. Neither the observers nor
+     * the recorder are told.
+     *
+     * @param state The state, of a game with the same size and faces.
+     *
+     * @throws IllegalArgumentException If the state is of a different kind
+     * of game.
+     */
+    public void load(GameState state) {
+        if(state.getCols() != this.cols || state.getRows() != this.rows) {
+            throw new IllegalArgumentException("Can't load a " + state.getCols() + "x"
+                + state.getRows() + " game into a " + this.cols + "x" + this.rows + " game.");
+        }
+        for(int i=0; i<this.pairs; i++) {
+            if(state.getDeck().get(i) != this.deck.get(i)) {
+                throw new IllegalArgumentException("Can't load a game played with different faces.");
+            }
+        }
+        this.board.deal(state.deal());
+        int size = this.board.size();
+        this.cardsLeft = size;
+        for(int i=0; i<size; i++) {
+            if(state.isRemoved(i)) {
+                this.board.remove(i);
+                this.cardsLeft--;
+            }
+        }
+        this.move1 = state.getFirstSlot();
+        this.move2 = state.getSecondSlot();
+        if(this.move1 != NO_MOVE) {
+            this.board.turnFaceUp(this.move1);
+        }
+        if(this.move2 != NO_MOVE) {
+            this.board.turnFaceUp(this.move2);
+        }
+        this.seed = state.getSeed();
+        this.score = state.getScore();
+        this.moves = state.getMoves();
+        this.changedCount = 0;
+        if(this.faceDown != null) {
+            fillFaceDown();
+        }
+        if(this.knowledge != null) {
+            dealKnowledge();
+        }
+    }
+
+    /**
+     * Returns what has been seen of the board.
+     *
+     * @return The index, or null if {@link #enableKnowledge()} hasn't been
+     * called.
+     */
+    public KnowledgeIndex getKnowledge() {
+        return this.knowledge;
+    }
+
+    /**
+     * Adds an observer that is told about every flip made in this game.
+     * 
+     * @param observer The observer to add.
+     */
+    public void addObserver(MemoryObserver observer) {
+        this.observers.add(observer);
+    }
+
+    /**
+     * Removes an observer that was added to this game.
+     * 
+     * @param observer The observer to remove.
+     */
+    public void removeObserver(MemoryObserver observer) {
+        this.observers.remove(observer);
+    }
+
     /**
      * Returns the number of columns on the board.
      * 
@@ -147,6 +521,64 @@ public class Memory {
         return this.rows;
     }
 
+    /**
+     * Returns the kind of storage used for the board.
+     * 
+     * @return The storage used for the board.
+     */
+    public BoardType getBoardType() {
+        return this.type;
+    }
+
+    /**
+     * Returns the seed the current deal was shuffled with. Passing it to
+     * {@link #reset(long)}, or to a new game of the same size and deck,
+     * deals the cards the same way again.
+     * 
+     * @return The seed.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Returns the faces used on the cards.
+     * 
+     * @return The deck.
+     */
+    public Deck getDeck() {
+        return this.deck;
+    }
+
+    /**
+     * Returns the length of the longest symbol on the board, which every
+     * card is padded to when the board is written out. Takes a pass over
+     * the faces the first time.
+     * 
+     * @return The number of characters, at least one.
+     */
+    public int getSymbolWidth() {
+        if(this.symbolWidth == 0) {
+            int width = 1;
+            for(int i=0; i<this.pairs; i++) {
+                width = Math.max(width, this.deck.get(i).getSymbol().length());
+            }
+            this.symbolWidth = width;
+        }
+        return this.symbolWidth;
+    }
+
+    /**
+     * Returns an estimate of the number of bytes of heap used to store the
+     * board, assuming a 64-bit JVM with compressed object pointers. The
+     * deck and its faces are shared and are not included.
+     * 
+     * @return The estimated size of the board in bytes.
+     */
+    public long getFootprint() {
+        return this.board.footprint();
+    }
+
     /**
      * Returns the number of moves made in this game - this is the number of
      * times any single card has been flipped.
@@ -184,18 +616,49 @@ public class Memory {
      * @param row The row of the desired card.
      * 
      * @return The card at the specified column and row. This may be null!
+     * On an {@link BoardType#OBJECT} board this is the card in the game.
+     * A {@link BoardType#PACKED} board keeps no cards, so the card is a
+     * snapshot of the slot made for this call: it doesn't follow the game,
+     * and flipping it throws {@link UnsupportedOperationException}.
      * 
      * @exception MemoryException If the column or row is invalid.
      */
     public Card getCard(int col, int row) throws MemoryException {
-        if(col < 0 || col >= this.cols) {
-            throw new MemoryException("Invalid column: " + col);
-        } else if(row < 0 || row >= this.rows) {
-            throw new MemoryException("Invalid row: " + row);
-        }
+        return board.getCard(indexOf(col, row));
+    }
+
+    /**
+     * Gets the face of the card at the specified column and row. Unlike
+     * {@link #getCard(int, int)} this never creates a card.
+     * 
+     * @param col The column of the desired card.
+     * @param row The row of the desired card.
+     * 
+     * @return The face of the card, or {@link CardFace#NULL} if it has been
+     * removed.
+     * 
+     * @exception MemoryException If the column or row is invalid.
+     */
+    public CardFace getFace(int col, int row) throws MemoryException {
+        return board.getFace(indexOf(col, row));
+    }
 
-        int index = col * this.rows + row;
-        return board[index];
+    /**
+     * Returns the first move made this round.
+     * 
+     * @return The first move made this round, or null if there isn't one.
+     */
+    public Move getFirstMove() {
+        return toMove(this.move1);
+    }
+
+    /**
+     * Returns the second move made this round.
+     * 
+     * @return The second move made this round, or null if there isn't one.
+     */
+    public Move getSecondMove() {
+        return toMove(this.move2);
     }
 
     /**
@@ -208,98 +671,452 @@ public class Memory {
      * is already face up.
      */
     public void flip(int col, int row) throws MemoryException {
-        Card card = getCard(col, row);
-
-        // gids rid of any end game MemoryExceptions and prints options to retarts a new game or quit
-        if(this.isGameOver() == true){
-            throw new MemoryException("You Won! Press \"Restart\" to restart or \"Quit\" to quit.");
-        }else if(card == Card.NULL_CARD) {
-            throw new MemoryException("Can't play a card that has been removed.");
-        } else if(card.isFaceUp()) {
-            throw new MemoryException("Can't flip a card that is already face up!");
-        } 
-
-        card.flip();
+        int status = tryFlip(col, row);
+        if(status < 0) {
+            throw new MemoryException(describe(status, col, row));
+        }
+    }
+
+    /**
+     * Flips the card at the specified location without throwing an exception
+     * if the move is invalid. Nothing is allocated, so this is meant for bots
+     * and servers that make a lot of moves.
+     * 
+     * @param col The column of the card to flip.
+     * @param row The row of the card to flip.
+     * 
+     * @return {@link #FLIPPED} or {@link #MATCHED} if the card was flipped, 
+     * otherwise one of the negative status codes explaining why it was not.
+     */
+    public int tryFlip(int col, int row) {
+        if(col < 0 || col >= this.cols) {
+            return INVALID_COLUMN;
+        } else if(row < 0 || row >= this.rows) {
+            return INVALID_ROW;
+        }
+        return flipSlot(col * this.rows + row);
+    }
+
+    /**
+     * Ends the turn early: if two cards are face up, they are removed if
+     * they match and turned face down if they do not, just as they would be
+     * by the next flip, and the observers are told. A single face up card
+     * is left as it is, since its turn is not over. This is not a move, but
+     * it is recorded, since a card turned back face down can be flipped
+     * again straight away, which it could not have been before.
+     *
+     * @return True if any card changed, false otherwise.
+     */
+    public boolean endTurn() {
+        if(this.move2 == NO_MOVE) {
+            return false;
+        }
+        this.changedCount = 0;
+        if(matches(this.move1, this.move2)) {
+            removeCard(this.move1);
+            removeCard(this.move2);
+        } else {
+            placeCardFaceDown(this.move1);
+            placeCardFaceDown(this.move2);
+        }
+        this.move1 = NO_MOVE;
+        this.move2 = NO_MOVE;
+        if(this.recorder != null) {
+            this.recorder.endedTurn();
+        }
+        notifyObservers();
+        return true;
+    }
+
+    /**
+     * Makes a series of moves. Each move is the index of a slot on the board,
+     * i.e. {@code col * rows + row}. Stops at the first move that could not 
+     * be made.
+     * 
+     * @param packedMoves The moves to make.
+     * 
+     * @return The number of moves that were made.
+     */
+    public int applyMoves(int[] packedMoves) {
+        return applyMoves(packedMoves, 0, packedMoves.length);
+    }
+
+    /**
+     * Makes a series of moves taken from part of an array. Each move is the
+     * index of a slot on the board, i.e. {@code col * rows + row}. Stops at 
+     * the first move that could not be made.
+     * 
+     * @param packedMoves The moves to make.
+     * @param offset The position of the first move in the array.
+     * @param length The number of moves to make.
+     * 
+     * @return The number of moves that were made.
+     */
+    public int applyMoves(int[] packedMoves, int offset, int length) {
+        int size = this.board.size();
+        for(int i=0; i<length; i++) {
+            int index = packedMoves[offset + i];
+            if(index < 0 || index >= size || flipSlot(index) < 0) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Returns a message describing why a move could not be made.
+     * 
+     * @param status The status returned by {@link #tryFlip(int, int)}.
+     * @param col The column of the move.
+     * @param row The row of the move.
+     * 
+     * @return The message.
+     */
+    public static String describe(int status, int col, int row) {
+        switch(status) {
+            case FLIPPED:
+            case MATCHED:
+                return "Flipped the card at " + col + ", " + row + ".";
+            case INVALID_COLUMN:
+                return "Invalid column: " + col;
+            case INVALID_ROW:
+                return "Invalid row: " + row;
+            case GAME_OVER:
+                // gids rid of any end game MemoryExceptions and prints options to retarts a new game or quit
+                return "You Won! Press \"Restart\" to restart or \"Quit\" to quit.";
+            case REMOVED:
+                return "Can't play a card that has been removed.";
+            case FACE_UP:
+                return "Can't flip a card that is already face up!";
+            default:
+                return "Unknown status: " + status;
+        }
+    }
+
+    /**
+     * Flips the card in the specified slot.
+     * 
+     * @param index The slot of the card to flip. Must be on the board.
+     * 
+     * @return The status of the move, as for {@link #tryFlip(int, int)}.
+     */
+    private int flipSlot(int index) {
+        if(this.isGameOver()) {
+            return GAME_OVER;
+        } else if(board.isRemoved(index)) {
+            return REMOVED;
+        } else if(board.isFaceUp(index)) {
+            return FACE_UP;
+        }
+
+        // the event class isn't even loaded unless metrics are on
+        FlipEvent event = Metrics.ENABLED ? FlipEvent.start() : null;
+        board.turnFaceUp(index);
+        if(faceDown != null) {
+            faceDown.remove(index);
+        }
+        if(knowledge != null) {
+            knowledge.revealed(index);
+        }
         moves++;
-        Move move = new Move(col, row, card);
-        
-        if(move1 == null) {
-            move1 = move;
-        } else if(move2 == null) {
-            move2 = move;
-            if(move1.matches(move2)) {
+        int status = FLIPPED;
+        changedCount = 0;
+
+        if(move1 == NO_MOVE) {
+            move1 = index;
+        } else if(move2 == NO_MOVE) {
+            move2 = index;
+            if(matches(move1, move2)) {
                 score++;
+                status = MATCHED;
+                if(knowledge != null) {
+                    knowledge.matched(index);
+                }
             }
         } else {
-            if(move1.matches(move2)) {
+            if(matches(move1, move2)) {
                 removeCard(move1);
                 removeCard(move2);
             } else {
                 placeCardFaceDown(move1);
                 placeCardFaceDown(move2);
             }
-            move1 = move;
-            move2 = null;
+            move1 = index;
+            move2 = NO_MOVE;
         }
-        // noitifies the observer after a flip
-        notifyObserver(card, col, row);
+        changed[changedCount++] = index;
+        if(recorder != null) {
+            recorder.flipped(index);
+        }
+        // tells the observers about everything the flip changed at once
+        notifyObservers();
+        if(event != null) {
+            event.finish(index, status);
+        }
+        return status;
     }
 
     @Override
     public String toString() {
-        StringBuilder builder = new StringBuilder();
+        StringBuilder builder = new StringBuilder(this.rows * (this.cols * (getSymbolWidth() + 2) + 1));
+        try {
+            appendTo(builder);
+        } catch(IOException ioe) {
+            // a StringBuilder never throws
+            throw new UncheckedIOException(ioe);
+        }
+        return builder.toString();
+    }
 
+    /**
+     * Writes the board as {@link #toString()} shows it, one line per row,
+     * without creating any objects along the way: the symbols are appended
+     * as they are stored, each card padded to {@link #getSymbolWidth()} so
+     * the columns line up. Writing into a reused {@link StringBuilder} or a
+     * buffered {@link java.io.Writer} draws a board without allocating.
+     *
+     * @param out Where to write the board.
+     *
+     * @throws IOException If the board can't be written.
+     */
+    public void appendTo(Appendable out) throws IOException {
+        int width = getSymbolWidth();
         for(int row=0; row<this.rows; row++) {
             for(int col=0; col<this.cols; col++) {
                 int index = col * this.rows + row;
-                Card card = this.board[index];
-                // this uses the ternary operator - look it up!
-                builder.append(card != Card.NULL_CARD ? card : "   ");
+                int padding = width;
+                if(board.isRemoved(index)) {
+                    out.append(' ');
+                } else {
+                    out.append('[');
+                    if(board.isFaceUp(index)) {
+                        String symbol = board.getFace(index).getSymbol();
+                        out.append(symbol);
+                        padding -= symbol.length();
+                    }
+                }
+                for(int i=0; i<padding; i++) {
+                    out.append(' ');
+                }
+                out.append(board.isRemoved(index) ? ' ' : ']');
             }
-            builder.append("\n");
+            out.append('\n');
         }
+    }
 
-        return builder.toString();
+    /**
+     * Returns true if the card in the specified slot is face up. Removed
+     * cards are not face up.
+     *
+     * @param index The slot, i.e. {@code col * rows + row}. Must be on the
+     * board.
+     *
+     * @return True if the card is face up, false otherwise.
+     */
+    public boolean isFaceUp(int index) {
+        return !this.board.isRemoved(index) && this.board.isFaceUp(index);
+    }
+
+    /**
+     * Returns true if the card in the specified slot has been removed.
+     *
+     * @param index The slot, i.e. {@code col * rows + row}. Must be on the
+     * board.
+     *
+     * @return True if the card has been removed, false otherwise.
+     */
+    public boolean isRemoved(int index) {
+        return this.board.isRemoved(index);
+    }
+
+    /**
+     * Returns the face of the card in the specified slot. Nothing is
+     * created.
+     *
+     * @param index The slot, i.e. {@code col * rows + row}. Must be on the
+     * board.
+     *
+     * @return The face of the card, or {@link CardFace#NULL} if it has been
+     * removed.
+     */
+    public CardFace getFace(int index) {
+        return this.board.getFace(index);
+    }
+
+    /**
+     * Returns the number of cards that have not been removed, whether face
+     * up or face down.
+     *
+     * @return The number of cards.
+     */
+    public int getCardsLeft() {
+        return this.cardsLeft;
+    }
+
+    /**
+     * Returns the number of cards that are face down, i.e. that can be
+     * flipped. The slots of the face down cards are kept from the first
+     * time any of them are asked for, which takes a pass over the board,
+     * and are then kept up to date with every flip and deal at a small
+     * constant cost, so this and {@link #getFaceDownSlot(int)} and
+     * {@link #randomFaceDown(RandomGenerator)} take constant time however
+     * big the board and however few cards are left.
+     *
+     * @return The number of cards.
+     */
+    public int getFaceDownCount() {
+        return faceDown().size();
+    }
+
+    /**
+     * Returns the slot of one of the face down cards. Together with
+     * {@link #getFaceDownCount()} this goes through every face down card,
+     * in no particular order. Positions change when a card is flipped.
+     *
+     * @param position The position, from 0 to {@code getFaceDownCount() - 1}.
+     *
+     * @return The slot, i.e. {@code col * rows + row}.
+     */
+    public int getFaceDownSlot(int position) {
+        IndexSet slots = faceDown();
+        if(position < 0 || position >= slots.size()) {
+            throw new IndexOutOfBoundsException("No face down card at " + position
+                + " of " + slots.size());
+        }
+        return slots.get(position);
+    }
+
+    /**
+     * Picks one of the face down cards uniformly at random.
+     *
+     * @param rng The random number generator to use.
+     *
+     * @return The slot, i.e. {@code col * rows + row}, or -1 if no card is
+     * face down.
+     */
+    public int randomFaceDown(RandomGenerator rng) {
+        return faceDown().random(rng);
+    }
+
+    /**
+     * Returns the slots of the face down cards, finding them first if they
+     * haven't been asked for yet.
+     */
+    private IndexSet faceDown() {
+        if(this.faceDown == null) {
+            this.faceDown = new IndexSet(this.board.size());
+            fillFaceDown();
+        }
+        return this.faceDown;
+    }
+
+    private void fillFaceDown() {
+        this.faceDown.clear();
+        for(int i=0; i<this.board.size(); i++) {
+            if(!this.board.isRemoved(i) && !this.board.isFaceUp(i)) {
+                this.faceDown.add(i);
+            }
+        }
     }
 
     /**
-     * Helper function that shuffles a board.
+     * Returns the index of the specified column and row on the board.
+     * 
+     * @param col The column.
+     * @param row The row.
      * 
-     * @param board The board to shuffle.
+     * @return The index of the slot on the board.
+     * 
+     * @throws MemoryException If the column or row is invalid.
      */
-    private static void shuffle(Card[] board) {
-        for(int i=0; i<board.length; i++) {
-            int j = RNG.nextInt(board.length);
-            Card temp = board[i];
-            board[i] = board[j];
-            board[j] = temp;
+    private int indexOf(int col, int row) throws MemoryException {
+        if(col < 0 || col >= this.cols) {
+            throw new MemoryException("Invalid column: " + col);
+        } else if(row < 0 || row >= this.rows) {
+            throw new MemoryException("Invalid row: " + row);
         }
+        return col * this.rows + row;
+    }
+
+    /**
+     * Returns true if the cards in two different slots match.
+     * 
+     * @param a The first slot.
+     * @param b The second slot.
+     * 
+     * @return True if the cards match, and false otherwise.
+     */
+    private boolean matches(int a, int b) {
+        // faces are interned, so matching cards share the same face
+        return a != b && this.board.getFace(a) == this.board.getFace(b);
+    }
+
+    /**
+     * Creates a move for a slot.
+     * 
+     * @param index The slot, or {@link #NO_MOVE}.
+     * 
+     * @return The move, or null if there is no slot.
+     */
+    private Move toMove(int index) {
+        if(index == NO_MOVE) {
+            return null;
+        }
+        return new Move(index / this.rows, index % this.rows, this.board.getCard(index));
     }
 
     /**
      * Replaces a card on the board with the null card.
      * 
-     * @param move The move that represents the card that should be removed.
+     * @param index The slot of the card that should be removed.
      */
-    private void removeCard(Move move) throws MemoryException{
-        if(move != null) {
-            int col = move.getCol();
-            int row = move.getRow();
-            int index = col * this.rows + row;
-            this.board[index] = Card.NULL_CARD;
-            // notifies the observer after a card is removed
-            notifyObserver(this.board[index], col, row);
+    private void removeCard(int index) {
+        // the card is face up, so it has already left faceDown
+        this.board.remove(index);
+        this.cardsLeft--;
+        if(this.knowledge != null) {
+            this.knowledge.removed(index);
         }
+        this.changed[this.changedCount++] = index;
     }
 
     /**
      * Caled when a card is placed face down after a match fails.
      * 
-     * @param move The move that contains the location of the card.
+     * @param index The slot of the card.
+     */
+    private void placeCardFaceDown(int index) {
+        this.board.turnFaceDown(index);
+        if(this.faceDown != null) {
+            this.faceDown.add(index);
+        }
+        this.changed[this.changedCount++] = index;
+    }
+
+    /**
+     * Sends the slots changed by the flip in progress to the observers as a
+     * single change. Nothing is allocated if there are no observers.
      */
-    private void placeCardFaceDown(Move move) throws MemoryException{
-        move.placeCardFaceDown();
-        // notifies an observer after a card is put face down
-        notifyObserver(move.getCard(), move.getCol(), move.getRow());
+    private void notifyObservers() {
+        if(this.observers.isEmpty()) {
+            return;
+        }
+        long start = Metrics.DISPATCH.start();
+        int count = this.changedCount;
+        int[] slots = new int[count];
+        CardFace[] faces = new CardFace[count];
+        boolean[] faceUp = new boolean[count];
+        for(int i=0; i<count; i++) {
+            int index = this.changed[i];
+            slots[i] = index;
+            faces[i] = this.board.getFace(index);
+            faceUp[i] = this.board.isFaceUp(index);
+        }
+        MemoryChange change = new MemoryChange(this, slots, faces, faceUp,
+            this.score, this.moves, isGameOver());
+        for(MemoryObserver observer : this.observers) {
+            observer.memoryChanged(change);
+        }
+        Metrics.DISPATCH.stop(start);
     }
 }
@@ -0,0 +1,239 @@
+package memory.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything that changed in a game of Memory as the result of a single
+ * flip: the slots whose cards changed, along with the state of those cards
+ * after the flip, and the score and number of moves.
+ *
+ * A change is a snapshot. It does not read from the game, so it can be
+ * handed to another thread while the game carries on.
+ */
+public class MemoryChange {
+    /**
+     * The game that changed.
+     */
+    private final Memory source;
+
+    /**
+     * The slots that changed, in the order they changed.
+     */
+    private final int[] slots;
+
+    /**
+     * The face of the card in each slot, or {@link CardFace#NULL} if it was
+     * removed.
+     */
+    private final CardFace[] faces;
+
+    /**
+     * Whether the card in each slot is face up.
+     */
+    private final boolean[] faceUp;
+
+    /**
+     * The score after the change.
+     */
+    private final int score;
+
+    /**
+     * The number of moves after the change.
+     */
+    private final int moves;
+
+    /**
+     * Whether the game was over after the change.
+     */
+    private final boolean gameOver;
+
+    /**
+     * Creates a new change.
+     *
+     * @param source The game that changed.
+     * @param slots The slots that changed.
+     * @param faces The face of the card in each slot.
+     * @param faceUp Whether the card in each slot is face up.
+     * @param score The score after the change.
+     * @param moves The number of moves after the change.
+     * @param gameOver Whether the game was over after the change.
+     */
+    MemoryChange(Memory source, int[] slots, CardFace[] faces, boolean[] faceUp,
+            int score, int moves, boolean gameOver) {
+        this.source = source;
+        this.slots = slots;
+        this.faces = faces;
+        this.faceUp = faceUp;
+        this.score = score;
+        this.moves = moves;
+        this.gameOver = gameOver;
+    }
+
+    /**
+     * Combines a series of changes to the same game into one. Each slot is
+     * reported once with its latest state, and the score and moves are
+     * taken from the last change.
+     *
+     * @param changes The changes, oldest first. There must be at least one.
+     *
+     * @return The combined change.
+     */
+    public static MemoryChange coalesce(List<MemoryChange> changes) {
+        if(changes.size() == 1) {
+            return changes.get(0);
+        }
+        Map<Integer, Integer> positions = new HashMap<>();
+        int total = 0;
+        for(MemoryChange change : changes) {
+            total += change.slots.length;
+        }
+        int[] slots = new int[total];
+        CardFace[] faces = new CardFace[total];
+        boolean[] faceUp = new boolean[total];
+        int count = 0;
+        for(MemoryChange change : changes) {
+            for(int i=0; i<change.slots.length; i++) {
+                Integer position = positions.putIfAbsent(change.slots[i], count);
+                int at = position != null ? position : count++;
+                slots[at] = change.slots[i];
+                faces[at] = change.faces[i];
+                faceUp[at] = change.faceUp[i];
+            }
+        }
+        MemoryChange last = changes.get(changes.size() - 1);
+        return new MemoryChange(last.source, Arrays.copyOf(slots, count),
+            Arrays.copyOf(faces, count), Arrays.copyOf(faceUp, count),
+            last.score, last.moves, last.gameOver);
+    }
+
+    /**
+     * Returns the game that changed.
+     *
+     * @return The game.
+     */
+    public Memory getSource() {
+        return this.source;
+    }
+
+    /**
+     * Returns the number of slots that changed.
+     *
+     * @return The number of slots.
+     */
+    public int size() {
+        return this.slots.length;
+    }
+
+    /**
+     * Returns the index of a slot that changed, i.e. {@code col * rows + row}.
+     *
+     * @param i Which of the changed slots, from 0 to {@link #size()}.
+     *
+     * @return The index of the slot.
+     */
+    public int getSlot(int i) {
+        return this.slots[i];
+    }
+
+    /**
+     * Returns the column of a slot that changed.
+     *
+     * @param i Which of the changed slots, from 0 to {@link #size()}.
+     *
+     * @return The column of the slot.
+     */
+    public int getCol(int i) {
+        return this.slots[i] / this.source.getRows();
+    }
+
+    /**
+     * Returns the row of a slot that changed.
+     *
+     * @param i Which of the changed slots, from 0 to {@link #size()}.
+     *
+     * @return The row of the slot.
+     */
+    public int getRow(int i) {
+        return this.slots[i] % this.source.getRows();
+    }
+
+    /**
+     * Returns the face of the card in a slot that changed.
+     *
+     * @param i Which of the changed slots, from 0 to {@link #size()}.
+     *
+     * @return The face of the card, or {@link CardFace#NULL} if it was
+     * removed.
+     */
+    public CardFace getFace(int i) {
+        return this.faces[i];
+    }
+
+    /**
+     * Returns true if the card in a slot that changed is face up.
+     *
+     * @param i Which of the changed slots, from 0 to {@link #size()}.
+     *
+     * @return True if the card is face up, false otherwise.
+     */
+    public boolean isFaceUp(int i) {
+        return this.faceUp[i];
+    }
+
+    /**
+     * Returns true if the card in a slot that changed was removed.
+     *
+     * @param i Which of the changed slots, from 0 to {@link #size()}.
+     *
+     * @return True if the card was removed, false otherwise.
+     */
+    public boolean isRemoved(int i) {
+        return this.faces[i] == CardFace.NULL;
+    }
+
+    /**
+     * Returns a card in the state of a slot that changed.
+     *
+     * @param i Which of the changed slots, from 0 to {@link #size()}.
+     *
+     * @return A card with the face and face up state of the slot, or
+     * {@link Card#NULL_CARD} if the card was removed. The card is a
+     * snapshot, and can't be flipped.
+     */
+    public Card getCard(int i) {
+        if(isRemoved(i)) {
+            return Card.NULL_CARD;
+        }
+        return new Card(this.faces[i], this.faceUp[i]);
+    }
+
+    /**
+     * Returns the score after the change.
+     *
+     * @return The score.
+     */
+    public int getScore() {
+        return this.score;
+    }
+
+    /**
+     * Returns the number of moves after the change.
+     *
+     * @return The number of moves.
+     */
+    public int getMoves() {
+        return this.moves;
+    }
+
+    /**
+     * Returns true if the game was over after the change.
+     *
+     * @return True if the game was over, false otherwise.
+     */
+    public boolean isGameOver() {
+        return this.gameOver;
+    }
+}
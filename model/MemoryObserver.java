@@ -1,8 +1,17 @@
 package memory.model;
 
-// creates a new memory observer for the game Memroy
+/**
+ * Observes a game of Memory. Any number of observers may be added to a game
+ * with {@link Memory#addObserver(MemoryObserver)}.
+ */
 public interface MemoryObserver {
 
-    public void memoryChanged(Card card, int col, int row);
+    /**
+     * Called once after each flip, on the thread that made the flip, with
+     * every slot that the flip changed.
+     *
+     * @param change What changed.
+     */
+    public void memoryChanged(MemoryChange change);
     
 }
@@ -73,6 +73,9 @@ public class Move {
 
     /**
      * Places the card face down if it is not already.
+     * 
+     * @throws UnsupportedOperationException If the card is face up and is
+     * a snapshot, as the cards of {@link BoardType#PACKED} games are.
      */
     public void placeCardFaceDown() throws MemoryException{
         if(this.card.isFaceUp()) {
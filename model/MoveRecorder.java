@@ -0,0 +1,36 @@
+package memory.model;
+
+/**
+ * Records what happens to a game of Memory, so that it can be replayed
+ * later. A game has at most one recorder, set with
+ * {@link Memory#setRecorder(MoveRecorder)}.
+ *
+ * Unlike a {@link MemoryObserver}, a recorder is told only the move itself,
+ * so recording allocates nothing and costs the flip very little.
+ */
+public interface MoveRecorder {
+
+    /**
+     * Called when the cards are dealt, including when the recorder is set.
+     *
+     * @param cols The number of columns on the board.
+     * @param rows The number of rows on the board.
+     * @param seed The seed the cards were shuffled with.
+     */
+    public void dealt(int cols, int rows, long seed);
+
+    /**
+     * Called after each card is flipped, on the thread that flipped it.
+     * Moves that could not be made are not recorded.
+     *
+     * @param slot The slot of the card, i.e. {@code col * rows + row}.
+     */
+    public void flipped(int slot);
+
+    /**
+     * Called after {@link Memory#endTurn()} has put away a pair, on the
+     * thread that ended the turn. Not called if no card changed.
+     */
+    public void endedTurn();
+
+}
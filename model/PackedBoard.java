@@ -0,0 +1,157 @@
+package memory.model;
+
+import java.util.Arrays;
+
+/**
+ * A board that stores the symbol id of each slot, i.e. the position of its
+ * face in the deck, and the face up and removed state of each slot as bits.
+ * Cards are only created when one is asked for.
+ */
+class PackedBoard implements Board {
+    /**
+     * The most pairs whose symbol ids fit in a char.
+     */
+    private static final int NARROW_LIMIT = Character.MAX_VALUE + 1;
+
+    /**
+     * The faces used on the cards. Decks are shared between games and are
+     * not counted in the footprint.
+     */
+    private final Deck deck;
+
+    /**
+     * The symbol id of the card in each slot as an unsigned 16-bit value, or
+     * null if the deck is too big and {@link #wideIds} is used instead.
+     */
+    private final char[] ids;
+
+    /**
+     * The symbol id of the card in each slot, or null if the deck is small
+     * enough for {@link #ids}.
+     */
+    private final int[] wideIds;
+
+    /**
+     * One bit per slot that is set when the card in the slot is face up.
+     */
+    private final long[] faceUp;
+
+    /**
+     * One bit per slot that is set when the card in the slot was removed.
+     */
+    private final long[] removed;
+
+    /**
+     * Creates a new, empty board.
+     *
+     * @param deck The faces used on the cards.
+     * @param size The number of slots on the board.
+     */
+    PackedBoard(Deck deck, int size) {
+        this.deck = deck;
+        if(size / 2 <= NARROW_LIMIT) {
+            this.ids = new char[size];
+            this.wideIds = null;
+        } else {
+            this.ids = null;
+            this.wideIds = new int[size];
+        }
+        int words = (size + 63) >>> 6;
+        this.faceUp = new long[words];
+        this.removed = new long[words];
+    }
+
+    @Override
+    public void deal(int[] deal) {
+        int pairs = deal.length / 2;
+        if(this.ids != null) {
+            for(int i=0; i<deal.length; i++) {
+                this.ids[i] = (char)(deal[i] % pairs);
+            }
+        } else {
+            for(int i=0; i<deal.length; i++) {
+                this.wideIds[i] = deal[i] % pairs;
+            }
+        }
+        Arrays.fill(this.faceUp, 0L);
+        Arrays.fill(this.removed, 0L);
+    }
+
+    @Override
+    public int size() {
+        return this.ids != null ? this.ids.length : this.wideIds.length;
+    }
+
+    @Override
+    public CardFace getFace(int index) {
+        return isRemoved(index) ? CardFace.NULL : this.deck.face(idAt(index));
+    }
+
+    @Override
+    public boolean isFaceUp(int index) {
+        return isSet(this.faceUp, index) || isSet(this.removed, index);
+    }
+
+    @Override
+    public boolean isRemoved(int index) {
+        return isSet(this.removed, index);
+    }
+
+    @Override
+    public void turnFaceUp(int index) {
+        this.faceUp[index >>> 6] |= 1L << index;
+    }
+
+    @Override
+    public void turnFaceDown(int index) {
+        this.faceUp[index >>> 6] &= ~(1L << index);
+    }
+
+    @Override
+    public void remove(int index) {
+        this.removed[index >>> 6] |= 1L << index;
+        turnFaceDown(index);
+    }
+
+    @Override
+    public Card getCard(int index) {
+        if(isRemoved(index)) {
+            return Card.NULL_CARD;
+        }
+        return new Card(this.deck.face(idAt(index)), isSet(this.faceUp, index));
+    }
+
+    @Override
+    public long footprint() {
+        long ids = this.ids != null
+            ? Board.arraySize(this.ids.length, Character.BYTES)
+            : Board.arraySize(this.wideIds.length, Integer.BYTES);
+        return Board.align(OBJECT_HEADER + 5 * REFERENCE)
+            + ids
+            + Board.arraySize(this.faceUp.length, Long.BYTES)
+            + Board.arraySize(this.removed.length, Long.BYTES);
+    }
+
+    /**
+     * Returns the symbol id of the card in the specified slot.
+     *
+     * @param index The slot.
+     *
+     * @return The symbol id.
+     */
+    private int idAt(int index) {
+        return this.ids != null ? this.ids[index] : this.wideIds[index];
+    }
+
+    /**
+     * Returns true if the bit for the specified slot is set.
+     *
+     * @param bits The bits to check.
+     * @param index The slot.
+     *
+     * @return True if the bit is set, false otherwise.
+     */
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+}
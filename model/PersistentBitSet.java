@@ -0,0 +1,101 @@
+package memory.model;
+
+import java.util.Arrays;
+
+/**
+ * A fixed number of bits that never change once made. Setting a bit makes
+ * a new set that shares everything but the path to that bit with the old
+ * one, so both can be kept and used at once.
+ *
+ * The bits are held in leaves of {@link #LEAF_WORDS} longs under a tree of
+ * nodes with {@link #WIDTH} children each. Reading or setting a bit visits
+ * one node per level, and there are only three levels of nodes for a
+ * million bits. A new set of all clear bits shares one leaf and one node per
+ * level between all of its branches.
+ */
+final class PersistentBitSet {
+    private static final int LEAF_WORDS = 8;
+    private static final int LEAF_BITS = LEAF_WORDS * Long.SIZE;
+    private static final int SHIFT = 5;
+    private static final int WIDTH = 1 << SHIFT;
+    private static final int MASK = WIDTH - 1;
+
+    /**
+     * The top node, or the only leaf if there are no nodes.
+     */
+    private final Object root;
+
+    /**
+     * The number of levels of nodes above the leaves.
+     */
+    private final int levels;
+
+    private PersistentBitSet(Object root, int levels) {
+        this.root = root;
+        this.levels = levels;
+    }
+
+    /**
+     * Returns a set of clear bits.
+     *
+     * @param size The number of bits.
+     *
+     * @return The set.
+     */
+    static PersistentBitSet empty(int size) {
+        Object node = new long[LEAF_WORDS];
+        int levels = 0;
+        for(long capacity = LEAF_BITS; capacity < size; capacity *= WIDTH) {
+            Object[] parent = new Object[WIDTH];
+            Arrays.fill(parent, node);
+            node = parent;
+            levels++;
+        }
+        return new PersistentBitSet(node, levels);
+    }
+
+    /**
+     * Returns true if a bit is set.
+     *
+     * @param index The bit.
+     *
+     * @return True if the bit is set, false otherwise.
+     */
+    boolean get(int index) {
+        Object node = this.root;
+        for(int level=this.levels; level>0; level--) {
+            node = ((Object[])node)[(index / LEAF_BITS) >>> (SHIFT * (level - 1)) & MASK];
+        }
+        long[] leaf = (long[])node;
+        return (leaf[(index % LEAF_BITS) >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns a set with a bit set and every other bit as in this one.
+     *
+     * @param index The bit.
+     *
+     * @return The new set, or this one if the bit was set already.
+     */
+    PersistentBitSet set(int index) {
+        if(get(index)) {
+            return this;
+        }
+        return new PersistentBitSet(set(this.root, this.levels, index), this.levels);
+    }
+
+    /**
+     * Copies the path down to a bit, setting it in the copy of its leaf.
+     */
+    private static Object set(Object node, int level, int index) {
+        if(level == 0) {
+            long[] leaf = ((long[])node).clone();
+            leaf[(index % LEAF_BITS) >>> 6] |= 1L << index;
+            return leaf;
+        }
+        Object[] copy = ((Object[])node).clone();
+        int child = (index / LEAF_BITS) >>> (SHIFT * (level - 1)) & MASK;
+        copy[child] = set(copy[child], level - 1, index);
+        return copy;
+    }
+}
@@ -0,0 +1,139 @@
+package memory.model;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+
+/**
+ * Unbiased shuffles for deals. Every permutation is equally likely, and the
+ * result depends only on the random number generator, so a deal can be
+ * repeated exactly from its seed.
+ */
+public final class Shuffler {
+    /**
+     * Arrays at least this long are shuffled in parallel by
+     * {@link #shuffle(int[], long)}. The choice depends only on the length,
+     * never on the number of cores, so a seed gives the same deal on any
+     * machine.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 18;
+
+    /**
+     * The number of buckets the parallel shuffle scatters into.
+     */
+    private static final int BUCKETS = 64;
+
+    /**
+     * The number of elements each parallel task scatters.
+     */
+    private static final int CHUNK = 1 << 15;
+
+    private Shuffler() {
+    }
+
+    /**
+     * Shuffles an array, in parallel if it is long enough.
+     *
+     * @param values The values to shuffle.
+     * @param seed The seed for the shuffle.
+     */
+    public static void shuffle(int[] values, long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        if(values.length >= PARALLEL_THRESHOLD) {
+            parallelShuffle(values, rng);
+        } else {
+            shuffle(values, rng);
+        }
+    }
+
+    /**
+     * Shuffles an array with the Fisher-Yates algorithm.
+     *
+     * @param values The values to shuffle.
+     * @param rng The random number generator to draw from.
+     */
+    public static void shuffle(int[] values, RandomGenerator rng) {
+        shuffle(values, 0, values.length, rng);
+    }
+
+    /**
+     * Shuffles an array using every core. Each value is scattered into one
+     * of a fixed number of buckets chosen uniformly at random, and then each
+     * bucket is shuffled with Fisher-Yates (the Rao-Sandelius method). This
+     * gives the same distribution as a single Fisher-Yates shuffle, and the
+     * same result for a given generator however many cores there are.
+     *
+     * @param values The values to shuffle.
+     * @param rng The random number generator to split for each task.
+     */
+    public static void parallelShuffle(int[] values, SplittableRandom rng) {
+        int length = values.length;
+        int chunks = (length + CHUNK - 1) / CHUNK;
+
+        // the generators are split up front, in order, so that the result
+        // does not depend on which thread runs which task
+        SplittableRandom[] chunkRngs = new SplittableRandom[chunks];
+        for(int c=0; c<chunks; c++) {
+            chunkRngs[c] = rng.split();
+        }
+        SplittableRandom[] bucketRngs = new SplittableRandom[BUCKETS];
+        for(int b=0; b<BUCKETS; b++) {
+            bucketRngs[b] = rng.split();
+        }
+
+        // picks a bucket for every value and counts them per chunk
+        byte[] buckets = new byte[length];
+        int[][] counts = new int[chunks][BUCKETS];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            SplittableRandom chunkRng = chunkRngs[c];
+            int[] count = counts[c];
+            for(int i=c * CHUNK, end=Math.min(length, i + CHUNK); i<end; i++) {
+                int bucket = chunkRng.nextInt(BUCKETS);
+                buckets[i] = (byte)bucket;
+                count[bucket]++;
+            }
+        });
+
+        // turns the counts into where each chunk writes into each bucket
+        int[] bucketStart = new int[BUCKETS + 1];
+        int position = 0;
+        for(int b=0; b<BUCKETS; b++) {
+            bucketStart[b] = position;
+            for(int c=0; c<chunks; c++) {
+                int count = counts[c][b];
+                counts[c][b] = position;
+                position += count;
+            }
+        }
+        bucketStart[BUCKETS] = length;
+
+        int[] scattered = new int[length];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] next = counts[c];
+            for(int i=c * CHUNK, end=Math.min(length, i + CHUNK); i<end; i++) {
+                scattered[next[buckets[i]]++] = values[i];
+            }
+        });
+
+        IntStream.range(0, BUCKETS).parallel().forEach(b ->
+            shuffle(scattered, bucketStart[b], bucketStart[b + 1], bucketRngs[b]));
+        System.arraycopy(scattered, 0, values, 0, length);
+    }
+
+    /**
+     * Shuffles part of an array with the Fisher-Yates algorithm.
+     *
+     * @param values The values to shuffle.
+     * @param from The first index to shuffle.
+     * @param to One past the last index to shuffle.
+     * @param rng The random number generator to draw from.
+     */
+    private static void shuffle(int[] values, int from, int to, RandomGenerator rng) {
+        for(int i=to - 1; i>from; i--) {
+            int j = from + rng.nextInt(i - from + 1);
+            int temp = values[i];
+            values[i] = values[j];
+            values[j] = temp;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+#!/bin/sh
+# Builds a self-contained Linux image of the game in target/image:
+#
+#   bin/memory       the GUI
+#   bin/memory-cli   the terminal game
+#   app/memory.jar   the game and its images
+#
+# The runtime is cut down with jlink to the JDK and JavaFX modules the game
+# uses. Both launchers start from class data sharing archives made by
+# training runs, so the classes they load at startup are mapped in already
+# parsed and verified instead of being read from the jars.
+#
+# Needs a JDK 17 on the path and the JavaFX jars for Linux in the local
+# Maven repository, which "mvn package" downloads. The GUI can only be
+# trained where it can open a window; set TRAIN_GUI=headless to train it
+# on the Monocle platform instead, or TRAIN_GUI=no to skip it.
+set -e
+
+cd "$(dirname "$0")/../.."
+REPO=${MAVEN_REPO:-$HOME/.m2/repository}
+FX=${JAVAFX_VERSION:-17.0.2}
+# absolute, since the archives record the class path they were trained with
+IMAGE=$PWD/target/image
+
+mvn -B -q package -pl game -am
+JAR=$(ls game/target/memory-*.jar | head -n 1)
+
+FX_PATH=
+for module in base graphics controls media; do
+    FX_PATH="$FX_PATH:$REPO/org/openjfx/javafx-$module/$FX/javafx-$module-$FX-linux.jar"
+done
+FX_PATH=${FX_PATH#:}
+
+rm -rf "$IMAGE"
+jlink --module-path "$FX_PATH" \
+    --add-modules javafx.controls,javafx.media,java.management,jdk.jfr \
+    --strip-debug --no-header-files --no-man-pages --compress=2 \
+    --output "$IMAGE"
+mkdir -p "$IMAGE/app"
+cp "$JAR" "$IMAGE/app/memory.jar"
+
+# the default archive of JDK classes, which the app archives build on
+"$IMAGE/bin/java" -Xshare:dump > /dev/null
+
+cat > "$IMAGE/bin/memory-cli" <<'LAUNCHER'
+#!/bin/sh
+DIR=$(cd "$(dirname "$0")/.." && pwd)
+CDS=
+[ -f "$DIR/app/cli.jsa" ] && CDS="-XX:SharedArchiveFile=$DIR/app/cli.jsa"
+exec "$DIR/bin/java" $CDS -cp "$DIR/app/memory.jar" memory.view.MemoryCLI "$@"
+LAUNCHER
+
+# an archive trained on Monocle only maps if Monocle is on the class path,
+# with the same exports, when the game is started too
+cat > "$IMAGE/bin/memory" <<'LAUNCHER'
+#!/bin/sh
+DIR=$(cd "$(dirname "$0")/.." && pwd)
+CDS=
+[ -f "$DIR/app/gui.jsa" ] && CDS="-XX:SharedArchiveFile=$DIR/app/gui.jsa"
+CP="$DIR/app/memory.jar"
+MONOCLE=
+if [ -f "$DIR/app/monocle.jar" ]; then
+    CP="$CP:$DIR/app/monocle.jar"
+    MONOCLE=$(cat "$DIR/app/monocle.args")
+fi
+exec "$DIR/bin/java" $CDS $MONOCLE -cp "$CP" memory.view.MemoryGUI "$@"
+LAUNCHER
+chmod +x "$IMAGE/bin/memory-cli" "$IMAGE/bin/memory"
+
+echo "Training the CLI archive"
+printf 'move 0 0\nmove 0 1\nhelp\nstats\nquit\ny\n' | "$IMAGE/bin/java" \
+    -XX:ArchiveClassesAtExit="$IMAGE/app/cli.jsa" \
+    -cp "$IMAGE/app/memory.jar" memory.view.MemoryCLI > /dev/null
+
+# the GUI is left without an archive, rather than the image unbuilt
+gui_failed() {
+    echo "Training the GUI archive failed; the GUI will start without it" >&2
+    rm -f "$IMAGE/app/gui.jsa" "$IMAGE/app/monocle.jar" "$IMAGE/app/monocle.args"
+}
+
+case "${TRAIN_GUI:-yes}" in
+    no)
+        ;;
+    headless)
+        echo "Training the GUI archive on Monocle"
+        # Monocle sits on the class path, but the JavaFX modules are linked
+        # into the image, so the internals it builds on have to be exported
+        cp "$(ls "$REPO"/org/testfx/openjfx-monocle/*/openjfx-monocle-*.jar | head -n 1)" \
+            "$IMAGE/app/monocle.jar"
+        EXPORTS=
+        for package in javafx.graphics/com.sun.glass.events javafx.graphics/com.sun.glass.ui \
+                javafx.graphics/com.sun.glass.ui.delegate javafx.graphics/com.sun.glass.utils \
+                javafx.graphics/com.sun.javafx.tk javafx.graphics/com.sun.javafx.util \
+                javafx.base/com.sun.javafx.logging; do
+            EXPORTS="$EXPORTS --add-exports $package=ALL-UNNAMED"
+        done
+        echo $EXPORTS > "$IMAGE/app/monocle.args"
+        "$IMAGE/bin/java" -XX:ArchiveClassesAtExit="$IMAGE/app/gui.jsa" $EXPORTS \
+            -Dglass.platform=Monocle -Dmonocle.platform=Headless -Dprism.order=sw \
+            -Dmemory.exitAfterFirstFrame=true \
+            -cp "$IMAGE/app/memory.jar:$IMAGE/app/monocle.jar" memory.view.MemoryGUI > /dev/null \
+            || gui_failed
+        ;;
+    *)
+        echo "Training the GUI archive"
+        "$IMAGE/bin/java" -XX:ArchiveClassesAtExit="$IMAGE/app/gui.jsa" \
+            -Dmemory.exitAfterFirstFrame=true \
+            -cp "$IMAGE/app/memory.jar" memory.view.MemoryGUI > /dev/null \
+            || gui_failed
+        ;;
+esac
+
+du -sh "$IMAGE"
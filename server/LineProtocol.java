@@ -0,0 +1,239 @@
+package memory.server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import memory.model.Deck;
+import memory.model.Memory;
+
+/**
+ * The bytes of the text protocol spoken by {@link MemoryServer}, which is
+ * the same conversation a player has with {@link memory.view.MemoryCLI}.
+ * Every fixed message is encoded once, and numbers and boards are written
+ * straight into the output buffer, so answering a command builds no
+ * strings.
+ */
+final class LineProtocol {
+    /**
+     * The longest command line kept. Anything longer is cut short.
+     */
+    static final int LINE_LIMIT = 128;
+
+    /**
+     * The most bytes of the metrics table sent for "stats". The table is a
+     * few hundred bytes, so this only matters if its counts grow enormous.
+     */
+    static final int STATS_LIMIT = 1024;
+
+    static final byte NL = '\n';
+    static final byte[] PROMPT = ascii(">> ");
+    static final byte[] WON = ascii("You won!\n");
+    static final byte[] GOODBYE = ascii("Better luck next time, champ.\n");
+    static final byte[] ARE_YOU_SURE = ascii("Are you sure? (y/n): ");
+    static final byte[] HELP = ascii("Available commands: \n"
+        + "  help - displays this message\n"
+        + "  move C R - makes a move in the specified row and column.\n"
+        + "  stats - displays how long flips and renders are taking\n"
+        + "  quit - quits the game\n"
+        + "\n");
+    static final byte[] ENTER_COMMAND = ascii("Please enter a command.\n");
+    static final byte[] INVALID_COMMAND = ascii("Invalid command: ");
+    static final byte[] INVALID_MOVE = ascii("Invalid move! Please try again.\n");
+    static final byte[] NOT_INTEGERS = ascii("Column and row must be integers.\n");
+    static final byte[] INVALID_COLUMN = ascii("Invalid column: ");
+    static final byte[] INVALID_ROW = ascii("Invalid row: ");
+    static final byte[] MOVES = ascii("Moves: ");
+    static final byte[] SCORE = ascii("Score: ");
+
+    /**
+     * The messages for the statuses that don't mention the move, indexed by
+     * the negated status.
+     */
+    private static final byte[][] STATUS = new byte[6][];
+
+    static {
+        for(int status : new int[] {Memory.GAME_OVER, Memory.REMOVED, Memory.FACE_UP}) {
+            STATUS[-status] = ascii(Memory.describe(status, 0, 0) + "\n");
+        }
+    }
+
+    /**
+     * The digits of the largest int, which is the longest number written.
+     */
+    private static final int INT_DIGITS = 11;
+
+    private LineProtocol() {
+    }
+
+    /**
+     * Returns the length of the longest symbol in a deck, which every card
+     * on the board is padded to.
+     *
+     * @param deck The deck.
+     *
+     * @return The length, at least 1.
+     */
+    static int symbolWidth(Deck deck) {
+        int width = 1;
+        for(int i=0; i<deck.size(); i++) {
+            width = Math.max(width, deck.get(i).getSymbol().length());
+        }
+        return width;
+    }
+
+    /**
+     * Returns the most bytes a single response can take for a board of the
+     * specified size.
+     *
+     * @param cols The number of columns on the board.
+     * @param rows The number of rows on the board.
+     * @param width The longest symbol in the deck, from
+     * {@link #symbolWidth(Deck)}.
+     *
+     * @return The size of the largest response.
+     */
+    static int maxResponse(int cols, int rows, int width) {
+        int board = MOVES.length + INT_DIGITS + 1 + SCORE.length + INT_DIGITS + 1 + 1
+            + rows * (cols * (width + 2) + 1) + 1 + 1;
+        int message = Math.max(HELP.length + INVALID_COMMAND.length + LINE_LIMIT + 1,
+            Math.max(INVALID_COLUMN.length + INT_DIGITS + 1, STATS_LIMIT));
+        for(byte[] status : STATUS) {
+            if(status != null) {
+                message = Math.max(message, status.length);
+            }
+        }
+        return message + board + Math.max(PROMPT.length, WON.length);
+    }
+
+    /**
+     * Writes the message for a move that could not be made.
+     *
+     * @param status The negative status returned by
+     * {@link Memory#tryFlip(int, int)}.
+     * @param col The column of the move.
+     * @param row The row of the move.
+     * @param out The buffer to write to.
+     */
+    static void putStatus(int status, int col, int row, ByteBuffer out) {
+        if(status == Memory.INVALID_COLUMN) {
+            out.put(INVALID_COLUMN);
+            putInt(col, out);
+            out.put(NL);
+        } else if(status == Memory.INVALID_ROW) {
+            out.put(INVALID_ROW);
+            putInt(row, out);
+            out.put(NL);
+        } else {
+            out.put(STATUS[-status]);
+        }
+    }
+
+    /**
+     * Writes the moves, score and board, as {@code MemoryCLI} prints them,
+     * but with every card padded to the longest symbol so that the columns
+     * line up.
+     *
+     * @param memory The game to write.
+     * @param width The longest symbol in the deck, from
+     * {@link #symbolWidth(Deck)}.
+     * @param out The buffer to write to.
+     */
+    static void putBoard(Memory memory, int width, ByteBuffer out) {
+        out.put(MOVES);
+        putInt(memory.getMoves(), out);
+        out.put(NL);
+        out.put(SCORE);
+        putInt(memory.getScore(), out);
+        out.put(NL);
+        out.put(NL);
+        int rows = memory.getRows();
+        for(int row=0; row<rows; row++) {
+            for(int col=0; col<memory.getCols(); col++) {
+                int index = col * rows + row;
+                int padding = width;
+                if(memory.isRemoved(index)) {
+                    out.put((byte)' ');
+                } else {
+                    out.put((byte)'[');
+                    if(memory.isFaceUp(index)) {
+                        String symbol = memory.getFace(index).getSymbol();
+                        for(int i=0; i<symbol.length(); i++) {
+                            char c = symbol.charAt(i);
+                            out.put(c < 128 ? (byte)c : (byte)'?');
+                        }
+                        padding -= symbol.length();
+                    }
+                }
+                for(int i=0; i<padding; i++) {
+                    out.put((byte)' ');
+                }
+                out.put(memory.isRemoved(index) ? (byte)' ' : (byte)']');
+            }
+            out.put(NL);
+        }
+        out.put(NL);
+        out.put(NL);
+    }
+
+    /**
+     * Writes an int in decimal.
+     *
+     * @param value The int to write.
+     * @param out The buffer to write to.
+     */
+    static void putInt(int value, ByteBuffer out) {
+        long remaining = value;
+        if(remaining < 0) {
+            out.put((byte)'-');
+            remaining = -remaining;
+        }
+        int digits = 1;
+        for(long bound=10; bound<=remaining; bound*=10) {
+            digits++;
+        }
+        int end = out.position() + digits;
+        for(int i=end - 1; i>=out.position(); i--) {
+            out.put(i, (byte)('0' + remaining % 10));
+            remaining /= 10;
+        }
+        out.position(end);
+    }
+
+    /**
+     * Parses an int the way {@link Integer#parseInt(String)} does, from part
+     * of an array of ASCII bytes.
+     *
+     * @param bytes The bytes.
+     * @param from The first byte of the number.
+     * @param to One past the last byte of the number.
+     *
+     * @return The int, or {@link Long#MIN_VALUE} if the bytes are not one.
+     */
+    static long parseInt(byte[] bytes, int from, int to) {
+        boolean negative = false;
+        if(from < to && (bytes[from] == '-' || bytes[from] == '+')) {
+            negative = bytes[from] == '-';
+            from++;
+        }
+        if(from == to) {
+            return Long.MIN_VALUE;
+        }
+        long value = 0;
+        for(int i=from; i<to; i++) {
+            int digit = bytes[i] - '0';
+            if(digit < 0 || digit > 9) {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + digit;
+            if(value > (long)Integer.MAX_VALUE + 1) {
+                return Long.MIN_VALUE;
+            }
+        }
+        value = negative ? -value : value;
+        return value > Integer.MAX_VALUE ? Long.MIN_VALUE : value;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
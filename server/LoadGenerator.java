@@ -0,0 +1,383 @@
+package memory.server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import memory.journal.MoveJournal;
+
+/**
+ * Plays many games at once against a {@link MemoryServer} over loopback and
+ * reports how quickly it answers. Every connection plays one game to the
+ * end, reading the board the server sends after each move, and is then
+ * replaced by a new one, so the number of games in play stays the same.
+ *
+ * The latency of a move is the time from sending "move C R" until the
+ * whole answer has arrived. All connections are driven from one thread
+ * with a {@link Selector}, so the generator itself stays out of the way.
+ *
+ * Usage: {@code LoadGenerator [--sessions N] [--seconds N] [--cols C]
+ * [--rows R] [--port N] [--threads N] [--journal FILE]}. Without
+ * {@code --port} a server is started in the same JVM with {@code --threads}
+ * event loops, recording its games in the journal if one is given; with it,
+ * the server on that port must be serving boards of the same size.
+ */
+public class LoadGenerator {
+    /**
+     * The largest board whose symbols are all one letter, which is all the
+     * players read.
+     */
+    private static final int MAX_CARDS = 52;
+
+    private final InetSocketAddress address;
+    private final int cols;
+    private final int rows;
+    private final Selector selector;
+
+    /**
+     * The latency of every move, in nanoseconds.
+     */
+    private long[] latencies = new long[1 << 16];
+    private int moves;
+    private int games;
+    private int failures;
+
+    private LoadGenerator(InetSocketAddress address, int cols, int rows) throws IOException {
+        this.address = address;
+        this.cols = cols;
+        this.rows = rows;
+        this.selector = Selector.open();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sessions = 1000;
+        int seconds = 10;
+        int cols = 4;
+        int rows = 5;
+        int port = -1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path journalFile = null;
+        for(int i=0; i<args.length; i++) {
+            switch(args[i]) {
+                case "--sessions":
+                    sessions = Integer.parseInt(args[++i]);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(args[++i]);
+                    break;
+                case "--cols":
+                    cols = Integer.parseInt(args[++i]);
+                    break;
+                case "--rows":
+                    rows = Integer.parseInt(args[++i]);
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--journal":
+                    journalFile = Paths.get(args[++i]);
+                    break;
+                default:
+                    System.out.println("Usage: LoadGenerator [--sessions N] [--seconds N]"
+                        + " [--cols C] [--rows R] [--port N] [--threads N] [--journal FILE]");
+                    return;
+            }
+        }
+        if(cols * rows > MAX_CARDS) {
+            System.out.println("Boards of more than " + MAX_CARDS + " cards can't be played from their text.");
+            return;
+        }
+
+        MemoryServer server = null;
+        MoveJournal journal = null;
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        if(port < 0) {
+            journal = journalFile != null ? new MoveJournal(journalFile) : null;
+            server = new MemoryServer(new InetSocketAddress(loopback, 0), cols, rows,
+                threads, journal);
+            server.start();
+            port = server.getPort();
+        }
+        try {
+            LoadGenerator generator = new LoadGenerator(new InetSocketAddress(loopback, port), cols, rows);
+            System.out.println(sessions + " sessions of " + cols + "x" + rows
+                + " for " + seconds + "s against port " + port);
+            generator.run(sessions, seconds * 1_000_000_000L);
+        } finally {
+            if(server != null) {
+                server.close();
+            }
+            if(journal != null) {
+                journal.close();
+            }
+        }
+    }
+
+    /**
+     * Keeps the specified number of games in play until the time is up,
+     * then prints the results.
+     */
+    private void run(int sessions, long duration) throws IOException {
+        for(int i=0; i<sessions; i++) {
+            connect();
+        }
+        long start = System.nanoTime();
+        long end = start + duration;
+        while(System.nanoTime() < end) {
+            this.selector.select(100);
+            Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+            while(keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Player player = (Player)key.attachment();
+                try {
+                    if(key.isConnectable()) {
+                        player.channel.finishConnect();
+                        key.interestOps(SelectionKey.OP_READ);
+                    } else if(key.isWritable()) {
+                        player.send(key);
+                    } else if(key.isReadable()) {
+                        player.receive(key);
+                    }
+                } catch(IOException ioe) {
+                    this.failures++;
+                    key.cancel();
+                    player.channel.close();
+                    connect();
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        for(SelectionKey key : this.selector.keys()) {
+            key.channel().close();
+        }
+        this.selector.close();
+        report(elapsed);
+    }
+
+    private void report(long elapsed) {
+        long[] sorted = Arrays.copyOf(this.latencies, this.moves);
+        Arrays.sort(sorted);
+        double seconds = elapsed / 1e9;
+        System.out.printf("games=%d sessions/sec=%.0f moves=%d moves/sec=%.0f failures=%d%n",
+            this.games, this.games / seconds, this.moves, this.moves / seconds, this.failures);
+        if(sorted.length > 0) {
+            System.out.printf("move latency: p50=%.1fus p99=%.1fus max=%.1fus%n",
+                percentile(sorted, 0.50) / 1e3, percentile(sorted, 0.99) / 1e3,
+                sorted[sorted.length - 1] / 1e3);
+        }
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int)(fraction * sorted.length))];
+    }
+
+    private void connect() throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Player player = new Player(channel);
+        int ops = channel.connect(this.address) ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT;
+        channel.register(this.selector, ops, player);
+    }
+
+    private void record(long latency) {
+        if(this.moves == this.latencies.length) {
+            this.latencies = Arrays.copyOf(this.latencies, this.moves * 2);
+        }
+        this.latencies[this.moves++] = latency;
+    }
+
+    /**
+     * One connection playing one game. Remembers every card it has seen,
+     * matches a pair as soon as it knows where both cards are, and
+     * otherwise turns up cards it hasn't seen yet.
+     */
+    private class Player {
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocate(LineProtocol.maxResponse(cols, rows, 1));
+        private final ByteBuffer out = ByteBuffer.allocate(32);
+
+        /**
+         * The symbol seen in each slot, or 0 if it hasn't been seen.
+         */
+        private final byte[] known = new byte[cols * rows];
+        private final boolean[] removed = new boolean[cols * rows];
+        private final boolean[] faceUp = new boolean[cols * rows];
+
+        /**
+         * The last slot seen with each symbol, used to find pairs.
+         */
+        private final int[] seenAt = new int[128];
+
+        /**
+         * When the last move was sent, or 0 before the first move.
+         */
+        private long sent;
+
+        Player(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Reads what the server sent, and once a whole answer has arrived
+         * records the latency and makes the next move.
+         */
+        void receive(SelectionKey key) throws IOException {
+            if(this.channel.read(this.in) < 0) {
+                throw new IOException("The server closed the connection.");
+            }
+            boolean won = endsWith(LineProtocol.WON);
+            if(!won && !endsWith(LineProtocol.PROMPT)) {
+                return;
+            }
+            if(this.sent != 0) {
+                record(System.nanoTime() - this.sent);
+            }
+            if(won) {
+                games++;
+                key.cancel();
+                this.channel.close();
+                connect();
+                return;
+            }
+            int moveCount = parse();
+            this.in.clear();
+            int slot = choose(moveCount);
+            this.out.clear();
+            this.out.put((byte)'m').put((byte)'o').put((byte)'v').put((byte)'e').put((byte)' ');
+            LineProtocol.putInt(slot / rows, this.out);
+            this.out.put((byte)' ');
+            LineProtocol.putInt(slot % rows, this.out);
+            this.out.put(LineProtocol.NL);
+            this.out.flip();
+            this.sent = System.nanoTime();
+            send(key);
+        }
+
+        /**
+         * Writes as much of the next move as the socket will take.
+         */
+        void send(SelectionKey key) throws IOException {
+            this.channel.write(this.out);
+            key.interestOps(this.out.hasRemaining() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        /**
+         * Reads the board out of an answer.
+         *
+         * @return The number of moves made so far.
+         */
+        private int parse() throws IOException {
+            byte[] bytes = this.in.array();
+            int at = indexOf(bytes, LineProtocol.MOVES);
+            int moveCount = 0;
+            for(at+=LineProtocol.MOVES.length; bytes[at] != '\n'; at++) {
+                moveCount = moveCount * 10 + bytes[at] - '0';
+            }
+            // skips the score line and the blank line after it
+            at = indexOf(bytes, LineProtocol.SCORE, at);
+            while(bytes[at] != '\n') {
+                at++;
+            }
+            at += 2;
+            for(int row=0; row<rows; row++) {
+                for(int col=0; col<cols; col++) {
+                    int slot = col * rows + row;
+                    byte cell = bytes[at + col * 3 + 1];
+                    this.removed[slot] = bytes[at + col * 3] == ' ';
+                    this.faceUp[slot] = !this.removed[slot] && cell != ' ';
+                    if(this.faceUp[slot]) {
+                        this.known[slot] = cell;
+                    }
+                }
+                at += cols * 3 + 1;
+            }
+            return moveCount;
+        }
+
+        /**
+         * Chooses the next slot to flip.
+         */
+        private int choose(int moveCount) {
+            Arrays.fill(this.seenAt, -1);
+            int size = this.known.length;
+            if(moveCount % 2 == 1) {
+                // the only face up card is the first of this turn
+                int first = 0;
+                while(!this.faceUp[first]) {
+                    first++;
+                }
+                for(int slot=0; slot<size; slot++) {
+                    if(slot != first && this.known[slot] == this.known[first] && canFlip(slot)) {
+                        return slot;
+                    }
+                }
+            } else {
+                for(int slot=0; slot<size; slot++) {
+                    if(canFlip(slot) && this.known[slot] != 0) {
+                        int other = this.seenAt[this.known[slot]];
+                        if(other >= 0) {
+                            return other;
+                        }
+                        this.seenAt[this.known[slot]] = slot;
+                    }
+                }
+            }
+            int fallback = -1;
+            for(int slot=0; slot<size; slot++) {
+                if(canFlip(slot)) {
+                    if(this.known[slot] == 0) {
+                        return slot;
+                    }
+                    fallback = slot;
+                }
+            }
+            return fallback;
+        }
+
+        private boolean canFlip(int slot) {
+            return !this.removed[slot] && !this.faceUp[slot];
+        }
+
+        private boolean endsWith(byte[] suffix) {
+            int end = this.in.position();
+            if(end < suffix.length) {
+                return false;
+            }
+            byte[] bytes = this.in.array();
+            for(int i=0; i<suffix.length; i++) {
+                if(bytes[end - suffix.length + i] != suffix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int indexOf(byte[] bytes, byte[] word) throws IOException {
+            return indexOf(bytes, word, 0);
+        }
+
+        private int indexOf(byte[] bytes, byte[] word, int from) throws IOException {
+            int last = this.in.position() - word.length;
+            for(int i=from; i<=last; i++) {
+                if(Arrays.equals(bytes, i, i + word.length, word, 0, word.length)) {
+                    return i;
+                }
+            }
+            throw new IOException("Unexpected answer from the server.");
+        }
+    }
+}
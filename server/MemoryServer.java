@@ -0,0 +1,420 @@
+package memory.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.file.Paths;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import memory.journal.MoveJournal;
+import memory.model.BoardType;
+import memory.model.Deck;
+import memory.model.Memory;
+import memory.model.MemoryException;
+
+/**
+ * Hosts games of Memory over TCP. Every connection gets its own game and
+ * talks to it with the same commands and sees the same output as a player
+ * of {@link memory.view.MemoryCLI}: "help", "move C R" and "quit", one per
+ * line. The connection is closed when the game is won or the player quits.
+ *
+ * One thread accepts connections and hands them out in turn to a fixed
+ * number of event loops, each of which serves all of its connections with
+ * a {@link Selector}. A loop renders every answer into one reused buffer,
+ * so thousands of idle sessions cost little more than their games.
+ *
+ * Usage: {@code MemoryServer [--port N] [--cols C] [--rows R] [--threads N]
+ * [--journal FILE]}, where every game is recorded in the journal if one is
+ * given.
+ */
+public class MemoryServer implements Closeable {
+    /**
+     * The number of connections the operating system may queue before they
+     * are accepted.
+     */
+    private static final int BACKLOG = 4096;
+
+    private final int cols;
+    private final int rows;
+    private final Deck deck;
+    private final int symbolWidth;
+    private final MoveJournal journal;
+    private final ServerSocketChannel server;
+    private final EventLoop[] loops;
+    private final Thread acceptor;
+
+    /**
+     * The number of sessions that are open right now.
+     */
+    private final AtomicInteger open = new AtomicInteger();
+
+    /**
+     * The number of sessions ever started.
+     */
+    private final LongAdder started = new LongAdder();
+
+    private volatile boolean closed;
+
+    /**
+     * Creates a new server. Nothing is accepted until {@link #start()}.
+     *
+     * @param address The address to listen on. A port of 0 picks any free
+     * port.
+     * @param cols The number of columns on every board.
+     * @param rows The number of rows on every board.
+     * @param threads The number of event loops serving connections.
+     *
+     * @throws MemoryException If the board size is invalid for a game of
+     * memory.
+     * @throws IOException If the address can't be listened on.
+     */
+    public MemoryServer(InetSocketAddress address, int cols, int rows, int threads)
+            throws MemoryException, IOException {
+        this(address, cols, rows, threads, null);
+    }
+
+    /**
+     * Creates a new server that records every game it hosts. Nothing is
+     * accepted until {@link #start()}.
+     *
+     * @param address The address to listen on. A port of 0 picks any free
+     * port.
+     * @param cols The number of columns on every board.
+     * @param rows The number of rows on every board.
+     * @param threads The number of event loops serving connections.
+     * @param journal The journal to record games in, or null to not record
+     * them.
+     *
+     * @throws MemoryException If the board size is invalid for a game of
+     * memory.
+     * @throws IOException If the address can't be listened on.
+     */
+    public MemoryServer(InetSocketAddress address, int cols, int rows, int threads,
+            MoveJournal journal) throws MemoryException, IOException {
+        this.cols = cols;
+        this.rows = rows;
+        this.journal = journal;
+        this.deck = Deck.standard(Math.max(0, cols * rows / 2));
+        this.symbolWidth = LineProtocol.symbolWidth(this.deck);
+        // fails here, rather than on the first connection, if the size is bad
+        new Memory(cols, rows, this.deck, BoardType.OBJECT, 0);
+
+        this.server = ServerSocketChannel.open();
+        this.server.bind(address, BACKLOG);
+        this.loops = new EventLoop[threads];
+        for(int i=0; i<threads; i++) {
+            this.loops[i] = new EventLoop(LineProtocol.maxResponse(cols, rows, this.symbolWidth), i);
+        }
+        this.acceptor = new Thread(this::accept, "memory-acceptor");
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = 4444;
+        int cols = 4;
+        int rows = 5;
+        int threads = Runtime.getRuntime().availableProcessors();
+        MoveJournal journal = null;
+        for(int i=0; i<args.length; i++) {
+            switch(args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--cols":
+                    cols = Integer.parseInt(args[++i]);
+                    break;
+                case "--rows":
+                    rows = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--journal":
+                    journal = new MoveJournal(Paths.get(args[++i]));
+                    break;
+                default:
+                    System.out.println("Usage: MemoryServer [--port N] [--cols C] [--rows R]"
+                        + " [--threads N] [--journal FILE]");
+                    return;
+            }
+        }
+        if(journal != null) {
+            // commits the last moves when the server is stopped
+            MoveJournal toClose = journal;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    toClose.close();
+                } catch(IOException ioe) {
+                    System.err.println("Could not close the journal: " + ioe.getMessage());
+                }
+            }));
+        }
+        MemoryServer server = new MemoryServer(new InetSocketAddress(port), cols, rows,
+            threads, journal);
+        server.start();
+        System.out.println("Serving " + cols + "x" + rows + " games on port "
+            + server.getPort() + " with " + threads + " threads");
+    }
+
+    /**
+     * Starts accepting connections.
+     */
+    public void start() {
+        for(EventLoop loop : this.loops) {
+            loop.thread.start();
+        }
+        this.acceptor.start();
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return this.server.socket().getLocalPort();
+    }
+
+    /**
+     * Returns the number of sessions that are open right now.
+     *
+     * @return The number of open sessions.
+     */
+    public int getOpenSessions() {
+        return this.open.get();
+    }
+
+    /**
+     * Returns the number of sessions started since the server was created.
+     *
+     * @return The number of sessions started.
+     */
+    public long getStartedSessions() {
+        return this.started.sum();
+    }
+
+    /**
+     * Stops accepting connections and closes every open session.
+     */
+    @Override
+    public void close() throws IOException {
+        this.closed = true;
+        this.server.close();
+        for(EventLoop loop : this.loops) {
+            loop.selector.wakeup();
+        }
+    }
+
+    /**
+     * Accepts connections until the server is closed, handing each one to
+     * the next event loop in turn.
+     */
+    private void accept() {
+        int next = 0;
+        while(!this.closed) {
+            try {
+                SocketChannel channel = this.server.accept();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                EventLoop loop = this.loops[next];
+                next = next + 1 == this.loops.length ? 0 : next + 1;
+                loop.accepted.add(channel);
+                loop.selector.wakeup();
+            } catch(ClosedChannelException cce) {
+                return;
+            } catch(IOException ioe) {
+                // a connection that failed while being accepted; keep going
+                System.err.println("Accept failed: " + ioe.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Serves a share of the connections on its own thread.
+     */
+    private class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Thread thread;
+
+        /**
+         * Connections accepted for this loop but not yet registered with
+         * its selector, which may only be done on the loop's thread.
+         */
+        private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Every answer is rendered here and written from here.
+         */
+        private final ByteBuffer out;
+
+        EventLoop(int capacity, int index) throws IOException {
+            this.selector = Selector.open();
+            this.out = ByteBuffer.allocateDirect(capacity);
+            this.thread = new Thread(this, "memory-loop-" + index);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while(!closed) {
+                    this.selector.select();
+                    register();
+                    Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                    while(keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        try {
+                            if(key.isReadable()) {
+                                read(key);
+                            } else if(key.isWritable()) {
+                                flush(key);
+                            }
+                        } catch(IOException e) {
+                            // the player went away; only their session is lost
+                            close(key);
+                        }
+                    }
+                }
+            } catch(IOException | ClosedSelectorException e) {
+                System.err.println("Event loop failed: " + e.getMessage());
+            } finally {
+                List<SelectionKey> keys = new ArrayList<>(this.selector.keys());
+                for(SelectionKey key : keys) {
+                    close(key);
+                }
+                try {
+                    this.selector.close();
+                } catch(IOException ioe) {
+                    // already shutting down
+                }
+            }
+        }
+
+        /**
+         * Starts a session for every newly accepted connection.
+         */
+        private void register() {
+            SocketChannel channel;
+            while((channel = this.accepted.poll()) != null) {
+                Session session;
+                SelectionKey key = null;
+                try {
+                    Memory memory = new Memory(cols, rows, deck, BoardType.OBJECT,
+                        ThreadLocalRandom.current().nextLong());
+                    if(journal != null) {
+                        journal.record(memory);
+                    }
+                    session = new Session(memory, symbolWidth);
+                    key = channel.register(this.selector, SelectionKey.OP_READ, session);
+                    open.incrementAndGet();
+                    started.increment();
+                    this.out.clear();
+                    session.greet(this.out);
+                    write(key, session);
+                } catch(IOException | MemoryException e) {
+                    if(key != null) {
+                        close(key);
+                    } else {
+                        try {
+                            channel.close();
+                        } catch(IOException ioe) {
+                            // nothing more to do for this connection
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Reads what the player sent and answers every complete line.
+         */
+        private void read(SelectionKey key) throws IOException {
+            Session session = (Session)key.attachment();
+            SocketChannel channel = (SocketChannel)key.channel();
+            if(channel.read(session.getInput()) < 0) {
+                close(key);
+                return;
+            }
+            answer(key, session);
+        }
+
+        /**
+         * Answers lines one at a time until there are none left, or until
+         * an answer can't be written in full. Lines that arrive while an
+         * answer is pending stay unread, so a slow reader slows its own
+         * session down rather than filling the server's memory.
+         */
+        private void answer(SelectionKey key, Session session) throws IOException {
+            while(key.isValid() && session.getPending() == null && !session.isFinished()) {
+                this.out.clear();
+                if(!session.answer(this.out)) {
+                    return;
+                }
+                write(key, session);
+            }
+        }
+
+        /**
+         * Writes the answer in {@link #out}, keeping whatever the socket
+         * won't take until it is writable again.
+         */
+        private void write(SelectionKey key, Session session) throws IOException {
+            this.out.flip();
+            ((SocketChannel)key.channel()).write(this.out);
+            if(this.out.hasRemaining()) {
+                ByteBuffer pending = ByteBuffer.allocate(this.out.remaining());
+                pending.put(this.out).flip();
+                session.setPending(pending);
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else if(session.isFinished()) {
+                close(key);
+            }
+        }
+
+        /**
+         * Writes more of a pending answer, then goes back to reading once it
+         * has all been written.
+         */
+        private void flush(SelectionKey key) throws IOException {
+            Session session = (Session)key.attachment();
+            ((SocketChannel)key.channel()).write(session.getPending());
+            if(session.getPending().hasRemaining()) {
+                return;
+            }
+            session.setPending(null);
+            if(session.isFinished()) {
+                close(key);
+                return;
+            }
+            key.interestOps(SelectionKey.OP_READ);
+            answer(key, session);
+        }
+
+        private void close(SelectionKey key) {
+            if(key.attachment() != null) {
+                key.attach(null);
+                open.decrementAndGet();
+            }
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch(IOException ioe) {
+                // the session is over either way
+            }
+        }
+    }
+}
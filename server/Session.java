@@ -0,0 +1,238 @@
+package memory.server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import memory.metrics.Metrics;
+import memory.model.Memory;
+
+/**
+ * One player's game on a {@link MemoryServer}. Collects the bytes read from
+ * the player's connection into lines and answers each one exactly as
+ * {@link memory.view.MemoryCLI} would, writing the answer into a buffer
+ * supplied by the caller.
+ */
+final class Session {
+    private final Memory memory;
+
+    /**
+     * The longest symbol in the deck, which every card is padded to.
+     */
+    private final int width;
+
+    /**
+     * The bytes read but not yet answered.
+     */
+    private final ByteBuffer in = ByteBuffer.allocate(LineProtocol.LINE_LIMIT);
+
+    /**
+     * Where each of the first three tokens of a command starts and ends.
+     */
+    private final int[] starts = new int[3];
+    private final int[] ends = new int[3];
+
+    /**
+     * The end of the last answer that could not be written straight away,
+     * or null if everything has been written.
+     */
+    private ByteBuffer pending;
+
+    /**
+     * Set after "quit" until the player answers whether they are sure.
+     */
+    private boolean confirmingQuit;
+
+    /**
+     * Set while the rest of a line that was too long is thrown away.
+     */
+    private boolean discarding;
+
+    /**
+     * Set once the game has ended and the connection should be closed after
+     * the last answer has been written.
+     */
+    private boolean finished;
+
+    Session(Memory memory, int width) {
+        this.memory = memory;
+        this.width = width;
+    }
+
+    ByteBuffer getInput() {
+        return this.in;
+    }
+
+    ByteBuffer getPending() {
+        return this.pending;
+    }
+
+    void setPending(ByteBuffer pending) {
+        this.pending = pending;
+    }
+
+    boolean isFinished() {
+        return this.finished;
+    }
+
+    /**
+     * Writes the board and prompt a new player is greeted with.
+     *
+     * @param out The buffer to write to.
+     */
+    void greet(ByteBuffer out) {
+        LineProtocol.putBoard(this.memory, this.width, out);
+        out.put(LineProtocol.PROMPT);
+    }
+
+    /**
+     * Answers the next complete line that has been read, if there is one.
+     *
+     * @param out The buffer to write the answer to. Must have room for
+     * {@link LineProtocol#maxResponse(int, int, int)} bytes.
+     *
+     * @return True if a line was answered, false if there is no complete
+     * line yet.
+     */
+    boolean answer(ByteBuffer out) {
+        byte[] bytes = this.in.array();
+        int length = this.in.position();
+        int end = 0;
+        while(end < length && bytes[end] != '\n') {
+            end++;
+        }
+        if(end == length && length < bytes.length) {
+            return false;
+        }
+        boolean complete = end < length;
+        boolean discarded = this.discarding;
+        // a line that fills the buffer is answered as far as it goes
+        this.discarding = !complete;
+
+        int lineEnd = end > 0 && bytes[end - 1] == '\r' ? end - 1 : end;
+        if(discarded) {
+            consume(complete ? end + 1 : end);
+            return true;
+        }
+        if(this.confirmingQuit) {
+            answerQuit(bytes, lineEnd, out);
+        } else {
+            answerCommand(bytes, lineEnd, out);
+        }
+        consume(complete ? end + 1 : end);
+        return true;
+    }
+
+    /**
+     * Answers a command read at the prompt.
+     */
+    private void answerCommand(byte[] line, int length, ByteBuffer out) {
+        // finds the tokens the way String.split(" ") does, which drops
+        // empty tokens only at the end
+        int[] starts = this.starts;
+        int[] ends = this.ends;
+        int tokens = 0;
+        int start = 0;
+        int lastNonEmpty = 0;
+        for(int i=0; i<=length; i++) {
+            if(i == length || line[i] == ' ') {
+                if(tokens < 3) {
+                    starts[tokens] = start;
+                    ends[tokens] = i;
+                }
+                tokens++;
+                if(i > start) {
+                    lastNonEmpty = tokens;
+                }
+                start = i + 1;
+            }
+        }
+        tokens = length == 0 ? 1 : lastNonEmpty;
+
+        if(tokens == 0) {
+            out.put(LineProtocol.ENTER_COMMAND);
+            out.put(LineProtocol.HELP);
+        } else if(is(line, starts[0], ends[0], "quit")) {
+            this.confirmingQuit = true;
+            out.put(LineProtocol.ARE_YOU_SURE);
+            return;
+        } else if(is(line, starts[0], ends[0], "move")) {
+            move(line, tokens, out);
+            if(this.memory.isGameOver()) {
+                LineProtocol.putBoard(this.memory, this.width, out);
+                out.put(LineProtocol.WON);
+                this.finished = true;
+                return;
+            }
+        } else if(is(line, starts[0], ends[0], "help")) {
+            out.put(LineProtocol.HELP);
+        } else if(is(line, starts[0], ends[0], "stats")) {
+            byte[] stats = Metrics.report().getBytes(StandardCharsets.US_ASCII);
+            out.put(stats, 0, Math.min(stats.length, LineProtocol.STATS_LIMIT));
+        } else {
+            out.put(LineProtocol.INVALID_COMMAND);
+            out.put(line, 0, length);
+            out.put(LineProtocol.NL);
+            out.put(LineProtocol.HELP);
+        }
+        LineProtocol.putBoard(this.memory, this.width, out);
+        out.put(LineProtocol.PROMPT);
+    }
+
+    /**
+     * Makes the move in a "move C R" command, or explains why it can't.
+     */
+    private void move(byte[] line, int tokens, ByteBuffer out) {
+        if(tokens != 3) {
+            out.put(LineProtocol.INVALID_MOVE);
+            return;
+        }
+        long col = LineProtocol.parseInt(line, this.starts[1], this.ends[1]);
+        long row = LineProtocol.parseInt(line, this.starts[2], this.ends[2]);
+        if(col == Long.MIN_VALUE || row == Long.MIN_VALUE) {
+            out.put(LineProtocol.NOT_INTEGERS);
+            return;
+        }
+        int status = this.memory.tryFlip((int)col, (int)row);
+        if(status < 0) {
+            LineProtocol.putStatus(status, (int)col, (int)row, out);
+        }
+    }
+
+    /**
+     * Answers "Are you sure?" after a quit.
+     */
+    private void answerQuit(byte[] line, int length, ByteBuffer out) {
+        this.confirmingQuit = false;
+        if(length == 1 && (line[0] == 'y' || line[0] == 'Y')) {
+            out.put(LineProtocol.GOODBYE);
+            this.finished = true;
+        } else {
+            LineProtocol.putBoard(this.memory, this.width, out);
+            out.put(LineProtocol.PROMPT);
+        }
+    }
+
+    /**
+     * Drops the first bytes read, keeping whatever follows them.
+     */
+    private void consume(int count) {
+        this.in.flip();
+        this.in.position(count);
+        this.in.compact();
+    }
+
+    /**
+     * Returns true if part of a line is the specified ASCII word.
+     */
+    private static boolean is(byte[] line, int from, int to, String word) {
+        if(to - from != word.length()) {
+            return false;
+        }
+        for(int i=0; i<word.length(); i++) {
+            if(line[from + i] != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,115 @@
+package memory.sim;
+
+import java.util.SplittableRandom;
+
+import memory.model.IndexSet;
+
+/**
+ * Keeps track of which cards are face down and of the pair flipped this
+ * turn, mirroring the rules in {@link memory.model.Memory#flip(int, int)}:
+ * the two cards flipped in a turn stay face up until the first flip of the
+ * next turn, at which point they are either removed or turned face down.
+ */
+abstract class AbstractPlayer implements Player {
+    /**
+     * The random number generator for the current game.
+     */
+    protected SplittableRandom rng;
+
+    /**
+     * Every slot that holds a card that is face down. These are the only
+     * legal moves.
+     */
+    protected IndexSet faceDown;
+
+    /**
+     * The first slot flipped this turn, or -1.
+     */
+    protected int first;
+
+    /**
+     * The symbol on the first card flipped this turn.
+     */
+    protected int firstSymbol;
+
+    /**
+     * The second slot flipped this turn, or -1.
+     */
+    private int second;
+
+    /**
+     * The symbol on the second card flipped this turn.
+     */
+    private int secondSymbol;
+
+    @Override
+    public void newGame(int cols, int rows, SplittableRandom rng) {
+        int cards = cols * rows;
+        this.rng = rng;
+        if(this.faceDown == null || this.faceDown.capacity() != cards) {
+            this.faceDown = new IndexSet(cards);
+        } else {
+            this.faceDown.clear();
+        }
+        for(int i=0; i<cards; i++) {
+            this.faceDown.add(i);
+        }
+        this.first = -1;
+        this.second = -1;
+    }
+
+    @Override
+    public void revealed(int index, int symbol) {
+        this.faceDown.remove(index);
+        if(this.second >= 0) {
+            // the first flip of a turn settles the pair from the last turn
+            if(this.firstSymbol != this.secondSymbol) {
+                this.faceDown.add(this.first);
+                this.faceDown.add(this.second);
+            }
+            this.first = index;
+            this.firstSymbol = symbol;
+            this.second = -1;
+            seen(index, symbol);
+        } else if(this.first >= 0) {
+            this.second = index;
+            this.secondSymbol = symbol;
+            seen(index, symbol);
+            if(this.firstSymbol == symbol) {
+                matched(this.first, index, symbol);
+            }
+        } else {
+            this.first = index;
+            this.firstSymbol = symbol;
+            seen(index, symbol);
+        }
+    }
+
+    /**
+     * Returns true if the next move is the first flip of a turn.
+     *
+     * @return True if the next move starts a new turn.
+     */
+    protected boolean isFirstFlip() {
+        return this.first < 0 || this.second >= 0;
+    }
+
+    /**
+     * Called after a card is revealed.
+     *
+     * @param index The slot that was flipped.
+     * @param symbol The symbol on the card.
+     */
+    protected void seen(int index, int symbol) {
+    }
+
+    /**
+     * Called when the two cards flipped this turn match and will be removed.
+     *
+     * @param a The first slot.
+     * @param b The second slot.
+     * @param symbol The symbol on both cards.
+     */
+    protected void matched(int a, int b, int symbol) {
+    }
+}
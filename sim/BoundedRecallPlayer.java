@@ -0,0 +1,226 @@
+package memory.sim;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import memory.model.IndexSet;
+
+/**
+ * A player that remembers the location of the last few cards that it
+ * flipped. It always plays a pair that it remembers, and otherwise flips a
+ * card it does not remember.
+ */
+public class BoundedRecallPlayer extends AbstractPlayer {
+    /**
+     * The number of attempts made to pick a card that is both unknown and
+     * face down before falling back to any face down card.
+     */
+    private static final int ATTEMPTS = 8;
+
+    /**
+     * The maximum number of flips the player remembers.
+     */
+    private final int capacity;
+
+    /**
+     * The symbol the player remembers in each slot, or -1.
+     */
+    private int[] symbolAt;
+
+    /**
+     * The first remembered location of each symbol, or -1.
+     */
+    private int[] pos1;
+
+    /**
+     * The second remembered location of each symbol, or -1.
+     */
+    private int[] pos2;
+
+    /**
+     * The slots that were flipped most recently, oldest first, used as a
+     * ring buffer.
+     */
+    private int[] recent;
+
+    /**
+     * The position of the oldest entry in {@link #recent}.
+     */
+    private int head;
+
+    /**
+     * The number of entries in {@link #recent}.
+     */
+    private int count;
+
+    /**
+     * Symbols for which both locations are remembered.
+     */
+    private int[] pairs;
+
+    /**
+     * The number of entries in {@link #pairs}.
+     */
+    private int pairCount;
+
+    /**
+     * The slots that are still in play but whose symbol is not remembered.
+     */
+    private IndexSet unknown;
+
+    /**
+     * The slot the player will flip next to complete a pair, or -1.
+     */
+    private int planned;
+
+    /**
+     * Creates a new player.
+     *
+     * @param capacity The maximum number of flips to remember.
+     */
+    public BoundedRecallPlayer(int capacity) {
+        if(capacity < 0) {
+            throw new IllegalArgumentException("Capacity can't be negative: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public String getName() {
+        return "bounded:" + this.capacity;
+    }
+
+    @Override
+    public void newGame(int cols, int rows, SplittableRandom rng) {
+        super.newGame(cols, rows, rng);
+        int cards = cols * rows;
+        if(this.symbolAt == null || this.symbolAt.length != cards) {
+            this.symbolAt = new int[cards];
+            this.pos1 = new int[cards / 2];
+            this.pos2 = new int[cards / 2];
+            this.pairs = new int[cards];
+            this.recent = new int[Math.min(this.capacity, cards)];
+            this.unknown = new IndexSet(cards);
+        } else {
+            this.unknown.clear();
+        }
+        Arrays.fill(this.symbolAt, -1);
+        Arrays.fill(this.pos1, -1);
+        Arrays.fill(this.pos2, -1);
+        for(int i=0; i<cards; i++) {
+            this.unknown.add(i);
+        }
+        this.head = 0;
+        this.count = 0;
+        this.pairCount = 0;
+        this.planned = -1;
+    }
+
+    @Override
+    public int nextMove() {
+        if(isFirstFlip()) {
+            while(this.pairCount > 0) {
+                int symbol = this.pairs[--this.pairCount];
+                int a = this.pos1[symbol];
+                int b = this.pos2[symbol];
+                if(a < 0 || b < 0) {
+                    // forgotten since it was queued
+                    continue;
+                }
+                // one of the pair may still be face up from the last turn
+                if(this.faceDown.contains(a)) {
+                    this.planned = b;
+                    return a;
+                } else if(this.faceDown.contains(b)) {
+                    this.planned = a;
+                    return b;
+                }
+            }
+            return randomUnknown();
+        } else if(this.planned >= 0) {
+            int move = this.planned;
+            this.planned = -1;
+            return move;
+        } else {
+            int partner = this.pos1[this.firstSymbol] == this.first
+                ? this.pos2[this.firstSymbol]
+                : this.pos1[this.firstSymbol];
+            if(partner >= 0 && this.faceDown.contains(partner)) {
+                return partner;
+            }
+            return randomUnknown();
+        }
+    }
+
+    @Override
+    protected void seen(int index, int symbol) {
+        if(this.capacity == 0 || this.symbolAt[index] == symbol) {
+            return;
+        }
+        if(this.count == this.recent.length) {
+            forget(this.recent[this.head]);
+            this.head = (this.head + 1) % this.recent.length;
+            this.count--;
+        }
+        this.recent[(this.head + this.count) % this.recent.length] = index;
+        this.count++;
+
+        this.symbolAt[index] = symbol;
+        this.unknown.remove(index);
+        if(this.pos1[symbol] < 0) {
+            this.pos1[symbol] = index;
+        } else if(this.pos1[symbol] != index && this.pos2[symbol] < 0) {
+            this.pos2[symbol] = index;
+            this.pairs[this.pairCount++] = symbol;
+        }
+    }
+
+    @Override
+    protected void matched(int a, int b, int symbol) {
+        this.symbolAt[a] = -1;
+        this.symbolAt[b] = -1;
+        this.pos1[symbol] = -1;
+        this.pos2[symbol] = -1;
+        this.unknown.remove(a);
+        this.unknown.remove(b);
+    }
+
+    /**
+     * Forgets the symbol in a slot, if it is still remembered.
+     *
+     * @param index The slot.
+     */
+    private void forget(int index) {
+        int symbol = this.symbolAt[index];
+        if(symbol < 0) {
+            // removed from the board since it was seen
+            return;
+        }
+        this.symbolAt[index] = -1;
+        if(this.pos1[symbol] == index) {
+            this.pos1[symbol] = this.pos2[symbol];
+            this.pos2[symbol] = -1;
+        } else if(this.pos2[symbol] == index) {
+            this.pos2[symbol] = -1;
+        }
+        this.unknown.add(index);
+    }
+
+    /**
+     * Picks a face down card whose symbol is not remembered, or any face
+     * down card if there is no such card.
+     *
+     * @return The slot to flip.
+     */
+    private int randomUnknown() {
+        for(int i=0; i<ATTEMPTS; i++) {
+            int index = this.unknown.random(this.rng);
+            if(index < 0) {
+                break;
+            } else if(this.faceDown.contains(index)) {
+                return index;
+            }
+        }
+        return this.faceDown.random(this.rng);
+    }
+}
@@ -0,0 +1,209 @@
+package memory.sim;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+import memory.model.CardFace;
+import memory.model.ConcurrentMemory;
+import memory.model.Deck;
+import memory.model.MemoryException;
+
+/**
+ * Stress tests {@link ConcurrentMemory} by having a growing number of
+ * threads play one shared board to the end as fast as they can, then checks
+ * that the game ended in a consistent state and prints the throughput for
+ * each thread count.
+ *
+ * The players cheat: each one knows where the partner of every card is, so
+ * a game takes about one move per card and the players spend most of their
+ * time racing each other for the same cards rather than searching.
+ *
+ * Usage: {@code ConcurrentStress COLS ROWS [--threads N] [--seed N]
+ * [--rounds N]}, where the thread counts tried are 1, 2, 4 and so on up to
+ * {@code N}, which defaults to the number of cores.
+ */
+public class ConcurrentStress {
+    /**
+     * The number of random slots a player tries before looking for a face
+     * down card in order.
+     */
+    private static final int PROBES = 8;
+
+    public static void main(String[] args) throws Exception {
+        if(args.length < 2) {
+            System.out.println("Usage: ConcurrentStress COLS ROWS [--threads N] [--seed N] [--rounds N]");
+            return;
+        }
+        int cols = Integer.parseInt(args[0]);
+        int rows = Integer.parseInt(args[1]);
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        long seed = System.nanoTime();
+        int rounds = 3;
+        for(int i=2; i<args.length; i++) {
+            switch(args[i]) {
+                case "--threads":
+                    maxThreads = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--rounds":
+                    rounds = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        Deck deck = Deck.standard(cols * rows / 2);
+        System.out.println(cols + "x" + rows + " shared board, " + rounds
+            + " rounds per thread count (seed " + seed + ")");
+        for(int threads=1; threads<=maxThreads; threads*=2) {
+            double best = 0;
+            long moves = 0;
+            for(int round=0; round<rounds; round++) {
+                ConcurrentMemory game = new ConcurrentMemory(cols, rows, deck, seed + round);
+                int[] partners = partners(game);
+                long start = System.nanoTime();
+                List<ConcurrentMemory.Seat> seats = play(game, partners, threads, seed + round);
+                long elapsed = System.nanoTime() - start;
+                check(game, seats);
+                moves = game.getMoves();
+                best = Math.max(best, moves * 1e9 / elapsed);
+            }
+            System.out.printf("threads=%-3d moves=%-10d best moves/sec=%.0f%n",
+                threads, moves, best);
+            if(threads < maxThreads && threads * 2 > maxThreads) {
+                threads = maxThreads / 2;
+            }
+        }
+    }
+
+    /**
+     * Returns the slot holding the other card with the same face, for every
+     * slot on the board.
+     */
+    private static int[] partners(ConcurrentMemory game) {
+        int[] partners = new int[game.size()];
+        Map<CardFace, Integer> seen = new HashMap<>();
+        for(int i=0; i<game.size(); i++) {
+            Integer other = seen.remove(game.getFace(i));
+            if(other == null) {
+                seen.put(game.getFace(i), i);
+            } else {
+                partners[i] = other;
+                partners[other] = i;
+            }
+        }
+        return partners;
+    }
+
+    /**
+     * Plays a game to the end with the specified number of threads, each
+     * with its own seat.
+     *
+     * @return The seats that played.
+     */
+    private static List<ConcurrentMemory.Seat> play(ConcurrentMemory game, int[] partners,
+            int threads, long seed) throws InterruptedException {
+        List<ConcurrentMemory.Seat> seats = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        CountDownLatch go = new CountDownLatch(1);
+        SplittableRandom rng = new SplittableRandom(seed);
+        for(int t=0; t<threads; t++) {
+            ConcurrentMemory.Seat seat = game.join();
+            SplittableRandom seatRng = rng.split();
+            seats.add(seat);
+            workers.add(new Thread(() -> {
+                try {
+                    go.await();
+                } catch(InterruptedException ie) {
+                    return;
+                }
+                playSeat(seat, partners, seatRng);
+            }, "player-" + t));
+        }
+        for(Thread worker : workers) {
+            worker.start();
+        }
+        go.countDown();
+        for(Thread worker : workers) {
+            worker.join();
+        }
+        return seats;
+    }
+
+    /**
+     * Flips a random face down card and then its partner, until the game is
+     * over. If another player took the partner first, the player carries on
+     * with another random card. A player who can't find a face down card
+     * ends their turn, so that cards held by players don't stop the game
+     * from finishing.
+     */
+    private static void playSeat(ConcurrentMemory.Seat seat, int[] partners,
+            SplittableRandom rng) {
+        ConcurrentMemory game = seat.getGame();
+        int size = game.size();
+        int last = -1;
+        while(!game.isGameOver()) {
+            if(last >= 0 && seat.flipSlot(partners[last]) >= 0) {
+                last = -1;
+                continue;
+            }
+            last = -1;
+            for(int probe=0; probe<PROBES && last < 0; probe++) {
+                int index = rng.nextInt(size);
+                if(seat.flipSlot(index) >= 0) {
+                    last = index;
+                }
+            }
+            if(last < 0) {
+                // most of the board is gone, so look for a card in order
+                int start = rng.nextInt(size);
+                for(int i=0; i<size && last < 0; i++) {
+                    int index = start + i < size ? start + i : start + i - size;
+                    if(!game.isRemoved(index) && !game.isFaceUp(index)
+                            && seat.flipSlot(index) >= 0) {
+                        last = index;
+                    }
+                }
+            }
+            if(last < 0) {
+                seat.endTurn();
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Checks that the game ended in a consistent state: every pair matched
+     * exactly once, and the players' own counts add up to the totals.
+     */
+    private static void check(ConcurrentMemory game, List<ConcurrentMemory.Seat> seats)
+            throws MemoryException {
+        long score = 0;
+        long moves = 0;
+        for(ConcurrentMemory.Seat seat : seats) {
+            seat.endTurn();
+            score += seat.getScore();
+            moves += seat.getMoves();
+        }
+        int pairs = game.size() / 2;
+        if(score != pairs || game.getScore() != pairs) {
+            throw new MemoryException("Expected " + pairs + " matches but the players made "
+                + score + " and the board counted " + game.getScore());
+        } else if(moves != game.getMoves()) {
+            throw new MemoryException("The players made " + moves
+                + " moves but the board counted " + game.getMoves());
+        }
+        for(int i=0; i<game.size(); i++) {
+            if(!game.isRemoved(i)) {
+                throw new MemoryException("Slot " + i + " was never removed.");
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package memory.sim;
+
+/**
+ * A player that never forgets a card that it has seen.
+ */
+public class PerfectRecallPlayer extends BoundedRecallPlayer {
+    /**
+     * Creates a new player.
+     */
+    public PerfectRecallPlayer() {
+        super(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public String getName() {
+        return "perfect";
+    }
+}
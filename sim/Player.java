@@ -0,0 +1,47 @@
+package memory.sim;
+
+import java.util.SplittableRandom;
+
+/**
+ * A strategy used to play a game of Memory without a human. A player is
+ * only ever used by one thread at a time and is reused for every game that
+ * thread plays.
+ *
+ * Slots are addressed by index using the same column-major layout as
+ * {@link memory.model.Memory}, i.e. {@code col * rows + row}. Symbols are
+ * identified by a small id in the range {@code [0, pairs)}.
+ */
+public interface Player {
+    /**
+     * Returns the name of the strategy used in reports.
+     *
+     * @return The name of the strategy.
+     */
+    String getName();
+
+    /**
+     * Called before the first move of every game.
+     *
+     * @param cols The number of columns on the board.
+     * @param rows The number of rows on the board.
+     * @param rng The random number generator the player must use. It is not
+     * shared with any other thread.
+     */
+    void newGame(int cols, int rows, SplittableRandom rng);
+
+    /**
+     * Returns the slot that the player wants to flip next. The slot must
+     * hold a card that is face down and has not been removed.
+     *
+     * @return The index of the slot to flip.
+     */
+    int nextMove();
+
+    /**
+     * Called after every flip with the symbol that was revealed.
+     *
+     * @param index The index of the slot that was flipped.
+     * @param symbol The id of the symbol on the card.
+     */
+    void revealed(int index, int symbol);
+}
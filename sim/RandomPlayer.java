@@ -0,0 +1,17 @@
+package memory.sim;
+
+/**
+ * A player with no memory at all. Every move is a card picked uniformly at
+ * random from the cards that are face down.
+ */
+public class RandomPlayer extends AbstractPlayer {
+    @Override
+    public String getName() {
+        return "random";
+    }
+
+    @Override
+    public int nextMove() {
+        return this.faceDown.random(this.rng);
+    }
+}
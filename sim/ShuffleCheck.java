@@ -0,0 +1,252 @@
+package memory.sim;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import memory.model.BoardType;
+import memory.model.Deck;
+import memory.model.Memory;
+import memory.model.MemoryException;
+import memory.model.Shuffler;
+
+/**
+ * Checks that {@link Shuffler} deals fairly and repeatably, and fails with
+ * an exception if it does not:
+ *
+ * <ul>
+ * <li>every order of a few values comes up equally often, by a chi-square
+ * test, for both the Fisher-Yates and the parallel shuffle;</li>
+ * <li>on arrays long enough to be shuffled in parallel, values starting in
+ * any part of the array are equally likely to end up in any part, and the
+ * result is a permutation of the values;</li>
+ * <li>a seed deals the same board every time, whichever kind of board and
+ * whether it is a new game or a reset, on boards dealt either way.</li>
+ * </ul>
+ *
+ * The chi-square tests fail by chance once in 10,000 runs each, so a
+ * failure should be repeated with the seed it prints before it is believed.
+ *
+ * Usage: {@code ShuffleCheck [--shuffles N] [--seed N]}, where {@code N}
+ * is the number of shuffles of a few values tried with each shuffle,
+ * 240,000 by default.
+ */
+public class ShuffleCheck {
+    /**
+     * The number of values whose orders are counted.
+     */
+    private static final int VALUES = 4;
+
+    /**
+     * The number of parts a long array is cut into to see where its values
+     * end up.
+     */
+    private static final int PARTS = 16;
+
+    /**
+     * The number of long arrays shuffled.
+     */
+    private static final int LONG_SHUFFLES = 20;
+
+    /**
+     * The normal quantile for the chance of a fair shuffle failing a test,
+     * 1 in 10,000.
+     */
+    private static final double Z = 3.719;
+
+    public static void main(String[] args) throws Exception {
+        int shuffles = 240_000;
+        long seed = System.nanoTime();
+        for(int i=0; i<args.length; i++) {
+            switch(args[i]) {
+                case "--shuffles":
+                    shuffles = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    System.out.println("Usage: ShuffleCheck [--shuffles N] [--seed N]");
+                    return;
+            }
+        }
+        System.out.println("Checking shuffles (seed " + seed + ")");
+        SplittableRandom rng = new SplittableRandom(seed);
+
+        SplittableRandom serialRng = rng.split();
+        checkOrders("Fisher-Yates", shuffles, values -> Shuffler.shuffle(values, serialRng));
+        SplittableRandom parallelRng = rng.split();
+        checkOrders("parallel", shuffles, values -> Shuffler.parallelShuffle(values, parallelRng));
+        checkParts(rng.nextLong());
+        checkDeals(rng.nextLong());
+        System.out.println("All checks passed.");
+    }
+
+    /**
+     * Shuffles {@link #VALUES} values many times and checks that every
+     * order came up about as often.
+     */
+    private static void checkOrders(String name, int shuffles, Shuffle shuffle) throws MemoryException {
+        int orders = factorial(VALUES);
+        long[] counts = new long[orders];
+        int[] values = new int[VALUES];
+        for(int s=0; s<shuffles; s++) {
+            for(int i=0; i<VALUES; i++) {
+                values[i] = i;
+            }
+            shuffle.shuffle(values);
+            counts[rank(values)]++;
+        }
+        double expected = (double)shuffles / orders;
+        double chiSquare = 0;
+        long fewest = Long.MAX_VALUE;
+        long most = 0;
+        for(long count : counts) {
+            chiSquare += (count - expected) * (count - expected) / expected;
+            fewest = Math.min(fewest, count);
+            most = Math.max(most, count);
+        }
+        report(name + ": " + shuffles + " shuffles of " + VALUES + " values, each of the " + orders
+            + " orders came up " + fewest + " to " + most + " times", chiSquare, orders - 1);
+    }
+
+    /**
+     * Shuffles arrays long enough to be shuffled in parallel, checks that
+     * each is a permutation, and that a value is as likely to end up in any
+     * part of the array whichever part it started in.
+     */
+    private static void checkParts(long seed) throws MemoryException {
+        int length = Shuffler.PARALLEL_THRESHOLD;
+        int partLength = length / PARTS;
+        long[][] counts = new long[PARTS][PARTS];
+        SplittableRandom seeds = new SplittableRandom(seed);
+        int[] values = new int[length];
+        boolean[] seen = new boolean[length];
+        for(int s=0; s<LONG_SHUFFLES; s++) {
+            for(int i=0; i<length; i++) {
+                values[i] = i;
+            }
+            Shuffler.shuffle(values, seeds.nextLong());
+            Arrays.fill(seen, false);
+            for(int i=0; i<length; i++) {
+                int value = values[i];
+                if(value < 0 || value >= length || seen[value]) {
+                    throw new MemoryException("The parallel shuffle lost or repeated value " + value);
+                }
+                seen[value] = true;
+                counts[value / partLength][i / partLength]++;
+            }
+        }
+        double expected = (double)LONG_SHUFFLES * partLength / PARTS;
+        double chiSquare = 0;
+        for(long[] row : counts) {
+            for(long count : row) {
+                chiSquare += (count - expected) * (count - expected) / expected;
+            }
+        }
+        report("parallel: " + LONG_SHUFFLES + " shuffles of " + length
+            + " values are permutations, and values from each 1/" + PARTS
+            + " of the array spread evenly", chiSquare, (PARTS - 1) * (PARTS - 1));
+    }
+
+    /**
+     * Checks that a seed gives the same deal on both kinds of board, for a
+     * new game and after a reset, on a board small enough to be shuffled by
+     * Fisher-Yates and one big enough to be shuffled in parallel.
+     */
+    private static void checkDeals(long seed) throws MemoryException {
+        int[][] sizes = {{4, 5}, {512, 512}};
+        for(int[] size : sizes) {
+            int cols = size[0];
+            int rows = size[1];
+            Deck deck = Deck.standard(cols * rows / 2);
+            Memory object = new Memory(cols, rows, deck, BoardType.OBJECT, seed);
+            Memory packed = new Memory(cols, rows, deck, BoardType.PACKED, seed);
+            Memory other = new Memory(cols, rows, deck, BoardType.OBJECT, seed + 1);
+            int[] deal = deal(object);
+            compare(cols, rows, "an OBJECT and a PACKED board", deal, deal(packed));
+            object.reset(seed + 1);
+            object.reset(seed);
+            compare(cols, rows, "a new game and a reset", deal, deal(object));
+            if(Arrays.equals(deal, deal(other))) {
+                throw new MemoryException(cols + "x" + rows + ": seeds " + seed + " and " + (seed + 1)
+                    + " dealt the same board");
+            }
+            System.out.println(cols + "x" + rows + ": seed " + seed
+                + " deals the same board on both kinds of board and after a reset");
+        }
+    }
+
+    /**
+     * Returns the symbol id in every slot of a game.
+     */
+    private static int[] deal(Memory game) {
+        int[] deal = new int[game.getCols() * game.getRows()];
+        for(int i=0; i<deal.length; i++) {
+            deal[i] = game.getDeck().indexOf(game.getFace(i));
+        }
+        return deal;
+    }
+
+    private static void compare(int cols, int rows, String what, int[] expected, int[] actual)
+            throws MemoryException {
+        int slot = Arrays.mismatch(expected, actual);
+        if(slot >= 0) {
+            throw new MemoryException(cols + "x" + rows + ": " + what
+                + " dealt by the same seed differ at slot " + slot);
+        }
+    }
+
+    /**
+     * Prints the result of a chi-square test, or fails if the statistic is
+     * above the critical value.
+     */
+    private static void report(String result, double chiSquare, int degrees) throws MemoryException {
+        double critical = critical(degrees);
+        String line = String.format("%s: chi-square %.1f with %d degrees of freedom (limit %.1f)",
+            result, chiSquare, degrees, critical);
+        if(chiSquare > critical) {
+            throw new MemoryException("Biased shuffle. " + line);
+        }
+        System.out.println(line);
+    }
+
+    /**
+     * Returns the value a chi-square statistic with the specified degrees of
+     * freedom exceeds with a chance of 1 in 10,000, by the Wilson-Hilferty
+     * approximation, which is within a few percent from a few degrees up.
+     */
+    private static double critical(int degrees) {
+        double a = 2.0 / (9 * degrees);
+        double root = 1 - a + Z * Math.sqrt(a);
+        return degrees * root * root * root;
+    }
+
+    /**
+     * Returns the position of an order of 0 to {@code n - 1} among all of
+     * them, from 0 to {@code n! - 1}.
+     */
+    private static int rank(int[] values) {
+        int rank = 0;
+        for(int i=0; i<values.length; i++) {
+            int smaller = 0;
+            for(int j=i + 1; j<values.length; j++) {
+                if(values[j] < values[i]) {
+                    smaller++;
+                }
+            }
+            rank = rank * (values.length - i) + smaller;
+        }
+        return rank;
+    }
+
+    private static int factorial(int n) {
+        return n <= 1 ? 1 : n * factorial(n - 1);
+    }
+
+    /**
+     * A shuffle of a small array.
+     */
+    private interface Shuffle {
+        void shuffle(int[] values);
+    }
+}
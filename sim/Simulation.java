@@ -0,0 +1,183 @@
+package memory.sim;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+import memory.model.BoardType;
+import memory.model.Deck;
+import memory.model.Memory;
+import memory.model.MemoryException;
+
+/**
+ * Plays a large number of games of Memory without any user interface,
+ * spread over every core using a fork-join pool.
+ *
+ * Every worker plays its share of the games with its own game, player and
+ * random number generator, and records its results in its own stats. The
+ * only thing shared between workers are the immutable settings below, so
+ * throughput is limited only by the number of cores.
+ */
+public class Simulation {
+    /**
+     * The number of games a single task plays before it is worth splitting.
+     */
+    private static final int GAMES_PER_TASK = 256;
+
+    /**
+     * The number of columns on the board.
+     */
+    private final int cols;
+
+    /**
+     * The number of rows on the board.
+     */
+    private final int rows;
+
+    /**
+     * The storage used for the board.
+     */
+    private final BoardType type;
+
+    /**
+     * The faces on the cards, shared by every game.
+     */
+    private final Deck deck;
+
+    /**
+     * The symbol id told to players for each face, indexed by face id.
+     */
+    private final int[] symbolIds;
+
+    /**
+     * Creates a new simulation.
+     *
+     * @param cols The number of columns on the board.
+     * @param rows The number of rows on the board.
+     * @param type The storage used for the board.
+     *
+     * @throws MemoryException If the board size is invalid for a game of
+     * Memory.
+     */
+    public Simulation(int cols, int rows, BoardType type) throws MemoryException {
+        int pairs = Math.max(0, cols * rows / 2);
+        this.cols = cols;
+        this.rows = rows;
+        this.type = type;
+        this.deck = Deck.standard(pairs);
+        int maxId = -1;
+        for(int i=0; i<pairs; i++) {
+            maxId = Math.max(maxId, this.deck.get(i).getId());
+        }
+        this.symbolIds = new int[maxId + 1];
+        for(int i=0; i<pairs; i++) {
+            this.symbolIds[this.deck.get(i).getId()] = i;
+        }
+        // fails fast if the board itself is invalid
+        newGame();
+    }
+
+    /**
+     * Plays the specified number of games.
+     *
+     * @param players Creates a new player for each worker.
+     * @param games The number of games to play.
+     * @param seed Seeds the random number generators used by the players.
+     * @param pool The pool used to play the games.
+     *
+     * @return The combined results of all of the games.
+     */
+    public SimulationStats run(Supplier<? extends Player> players, long games,
+            long seed, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        SimulationStats stats = pool.invoke(
+            new Games(players, 0, games, new SplittableRandom(seed)));
+        stats.setElapsedNanos(System.nanoTime() - start);
+        return stats;
+    }
+
+    /**
+     * Creates a game that a worker can play over and over again.
+     *
+     * @return The game.
+     *
+     * @throws MemoryException If the board size is invalid.
+     */
+    Memory newGame() throws MemoryException {
+        return new Memory(this.cols, this.rows, this.deck, this.type, 0);
+    }
+
+    /**
+     * Plays a single game to the end. The game is dealt again with a seed
+     * drawn from the random number generator, so the deal is as
+     * reproducible as the player's moves.
+     *
+     * @param game The game to play, in any state.
+     * @param player The player.
+     * @param rng The random number generator used by the player.
+     *
+     * @return The number of moves needed to finish the game.
+     *
+     * @throws MemoryException If the player made an illegal move.
+     */
+    int play(Memory game, Player player, SplittableRandom rng) throws MemoryException {
+        game.reset(rng.nextLong());
+        player.newGame(this.cols, this.rows, rng);
+        while(!game.isGameOver()) {
+            int index = player.nextMove();
+            int col = index / this.rows;
+            int row = index % this.rows;
+            game.flip(col, row);
+            player.revealed(index, this.symbolIds[game.getFace(col, row).getId()]);
+        }
+        return game.getMoves();
+    }
+
+    /**
+     * Plays a range of games, splitting the range in half until it is small
+     * enough. The random number generator is split along with the range so
+     * that the games played do not depend on the number of threads.
+     */
+    private class Games extends RecursiveTask<SimulationStats> {
+        private static final long serialVersionUID = 1L;
+
+        private final Supplier<? extends Player> players;
+        private final long from;
+        private final long to;
+        private final SplittableRandom rng;
+
+        Games(Supplier<? extends Player> players, long from, long to,
+                SplittableRandom rng) {
+            this.players = players;
+            this.from = from;
+            this.to = to;
+            this.rng = rng;
+        }
+
+        @Override
+        protected SimulationStats compute() {
+            if(this.to - this.from > GAMES_PER_TASK) {
+                long middle = (this.from + this.to) >>> 1;
+                Games left = new Games(this.players, this.from, middle, this.rng.split());
+                Games right = new Games(this.players, middle, this.to, this.rng);
+                left.fork();
+                SimulationStats stats = right.compute();
+                return stats.merge(left.join());
+            }
+
+            Player player = this.players.get();
+            SimulationStats stats = new SimulationStats(player.getName());
+            try {
+                Memory game = newGame();
+                for(long i=this.from; i<this.to; i++) {
+                    stats.record(play(game, player, this.rng));
+                }
+            } catch(MemoryException me) {
+                throw new IllegalStateException(player.getName()
+                    + " made an illegal move: " + me.getMessage(), me);
+            }
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package memory.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import memory.model.BoardType;
+import memory.model.MemoryException;
+
+/**
+ * Plays a large number of games with each strategy and prints how they
+ * did.
+ *
+ * Usage: {@code SimulationCLI COLS ROWS GAMES [options] [strategy...]}
+ * where the options are {@code --threads N}, {@code --seed N} and
+ * {@code --packed}, and each strategy is one of {@code random},
+ * {@code perfect} or {@code bounded:N}.
+ */
+public class SimulationCLI {
+    public static void main(String[] args) throws MemoryException {
+        if(args.length < 3) {
+            usage();
+            return;
+        }
+        int cols = Integer.parseInt(args[0]);
+        int rows = Integer.parseInt(args[1]);
+        long games = Long.parseLong(args[2]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = System.nanoTime();
+        BoardType type = BoardType.OBJECT;
+        List<String> strategies = new ArrayList<>();
+
+        for(int i=3; i<args.length; i++) {
+            switch(args[i]) {
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--packed":
+                    type = BoardType.PACKED;
+                    break;
+                default:
+                    strategies.add(args[i]);
+            }
+        }
+        if(strategies.isEmpty()) {
+            strategies.add("random");
+            strategies.add("bounded:4");
+            strategies.add("bounded:16");
+            strategies.add("perfect");
+        }
+
+        Simulation simulation = new Simulation(cols, rows, type);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        System.out.println(games + " games per strategy on a " + cols + "x" + rows
+            + " board using " + threads + " threads (seed " + seed + ")");
+        try {
+            for(String strategy : strategies) {
+                SimulationStats stats = simulation.run(player(strategy), games, seed, pool);
+                System.out.println(stats);
+                stats.printHistogram(System.out, 10);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Returns a supplier of players for the named strategy.
+     *
+     * @param strategy The name of the strategy.
+     *
+     * @return Creates a new player using the strategy.
+     */
+    static Supplier<Player> player(String strategy) {
+        if(strategy.equals("random")) {
+            return RandomPlayer::new;
+        } else if(strategy.equals("perfect")) {
+            return PerfectRecallPlayer::new;
+        } else if(strategy.startsWith("bounded:")) {
+            int capacity = Integer.parseInt(strategy.substring("bounded:".length()));
+            return () -> new BoundedRecallPlayer(capacity);
+        }
+        throw new IllegalArgumentException("Unknown strategy: " + strategy);
+    }
+
+    private static void usage() {
+        System.out.println("Usage: SimulationCLI COLS ROWS GAMES [options] [strategy...]");
+        System.out.println("  options: --threads N, --seed N, --packed");
+        System.out.println("  strategies: random, perfect, bounded:N");
+    }
+}
@@ -0,0 +1,223 @@
+package memory.sim;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * The distribution of the number of moves needed to finish the games played
+ * by one strategy. Each worker fills in its own instance; they are merged
+ * once all of the games are done.
+ */
+public class SimulationStats {
+    /**
+     * The width of the bars printed by {@link #printHistogram(PrintStream, int)}.
+     */
+    private static final int BAR_WIDTH = 40;
+
+    /**
+     * The name of the strategy.
+     */
+    private final String name;
+
+    /**
+     * The number of games played with each move count.
+     */
+    private long[] histogram;
+
+    /**
+     * The number of games played.
+     */
+    private long games;
+
+    /**
+     * The total number of moves over all games.
+     */
+    private long totalMoves;
+
+    /**
+     * The sum of the squares of the move counts.
+     */
+    private double sumOfSquares;
+
+    /**
+     * The fewest moves needed to finish a game.
+     */
+    private int min = Integer.MAX_VALUE;
+
+    /**
+     * The most moves needed to finish a game.
+     */
+    private int max;
+
+    /**
+     * The wall clock time taken to play the games.
+     */
+    private long elapsedNanos;
+
+    /**
+     * Creates a new, empty set of stats.
+     *
+     * @param name The name of the strategy.
+     */
+    public SimulationStats(String name) {
+        this.name = name;
+        this.histogram = new long[64];
+    }
+
+    /**
+     * Records the result of a game.
+     *
+     * @param moves The number of moves needed to finish the game.
+     */
+    public void record(int moves) {
+        if(moves >= this.histogram.length) {
+            this.histogram = Arrays.copyOf(this.histogram,
+                Math.max(moves + 1, this.histogram.length * 2));
+        }
+        this.histogram[moves]++;
+        this.games++;
+        this.totalMoves += moves;
+        this.sumOfSquares += (double)moves * moves;
+        this.min = Math.min(this.min, moves);
+        this.max = Math.max(this.max, moves);
+    }
+
+    /**
+     * Adds the results recorded in another set of stats to these.
+     *
+     * @param other The other stats.
+     *
+     * @return These stats.
+     */
+    public SimulationStats merge(SimulationStats other) {
+        if(other.histogram.length > this.histogram.length) {
+            this.histogram = Arrays.copyOf(this.histogram, other.histogram.length);
+        }
+        for(int i=0; i<other.histogram.length; i++) {
+            this.histogram[i] += other.histogram[i];
+        }
+        this.games += other.games;
+        this.totalMoves += other.totalMoves;
+        this.sumOfSquares += other.sumOfSquares;
+        this.min = Math.min(this.min, other.min);
+        this.max = Math.max(this.max, other.max);
+        return this;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public long getGames() {
+        return this.games;
+    }
+
+    public int getMin() {
+        return this.games == 0 ? 0 : this.min;
+    }
+
+    public int getMax() {
+        return this.max;
+    }
+
+    /**
+     * Returns the mean number of moves needed to finish a game.
+     *
+     * @return The mean number of moves.
+     */
+    public double getMean() {
+        return this.games == 0 ? 0 : (double)this.totalMoves / this.games;
+    }
+
+    /**
+     * Returns the standard deviation of the number of moves needed to finish
+     * a game.
+     *
+     * @return The standard deviation of the number of moves.
+     */
+    public double getStandardDeviation() {
+        if(this.games < 2) {
+            return 0;
+        }
+        double mean = getMean();
+        double variance = (this.sumOfSquares - this.games * mean * mean) / (this.games - 1);
+        return Math.sqrt(Math.max(0, variance));
+    }
+
+    /**
+     * Returns the smallest move count that at least the given fraction of
+     * games were finished in.
+     *
+     * @param fraction The fraction of games, e.g. 0.99.
+     *
+     * @return The move count at that percentile.
+     */
+    public int getPercentile(double fraction) {
+        long target = (long)Math.ceil(fraction * this.games);
+        long seen = 0;
+        for(int moves=0; moves<this.histogram.length; moves++) {
+            seen += this.histogram[moves];
+            if(seen >= target && seen > 0) {
+                return moves;
+            }
+        }
+        return this.max;
+    }
+
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the number of games played per second of wall clock time.
+     *
+     * @return The number of games played per second.
+     */
+    public double getGamesPerSecond() {
+        return this.elapsedNanos == 0 ? 0 : this.games * 1e9 / this.elapsedNanos;
+    }
+
+    /**
+     * Prints a histogram of the move counts with the specified number of
+     * buckets.
+     *
+     * @param out The stream to print to.
+     * @param buckets The number of buckets.
+     */
+    public void printHistogram(PrintStream out, int buckets) {
+        if(this.games == 0) {
+            return;
+        }
+        int low = getMin();
+        int width = Math.max(1, (this.max - low + buckets) / buckets);
+        long[] counts = new long[buckets];
+        long tallest = 0;
+        for(int moves=low; moves<=this.max; moves++) {
+            int bucket = Math.min(buckets - 1, (moves - low) / width);
+            counts[bucket] += this.histogram[moves];
+            tallest = Math.max(tallest, counts[bucket]);
+        }
+        for(int i=0; i<buckets; i++) {
+            int start = low + i * width;
+            if(start > this.max) {
+                break;
+            }
+            int bar = (int)(counts[i] * BAR_WIDTH / tallest);
+            out.printf("  %7d-%-7d %10d %s%n", start, start + width - 1, counts[i],
+                "#".repeat(bar));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-12s games=%d games/sec=%.0f mean=%.2f sd=%.2f"
+            + " min=%d p50=%d p90=%d p99=%d max=%d",
+            this.name, this.games, getGamesPerSecond(), getMean(),
+            getStandardDeviation(), getMin(), getPercentile(0.5),
+            getPercentile(0.9), getPercentile(0.99), this.max);
+    }
+}
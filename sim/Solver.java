@@ -0,0 +1,529 @@
+package memory.sim;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.stream.IntStream;
+
+import memory.model.MemoryException;
+
+/**
+ * Works out the fewest moves needed on average to finish a game of Memory,
+ * for a player who never forgets a card and always makes the best move.
+ *
+ * Between turns, everything such a player needs to know is how many cards
+ * they have never seen, {@code u}, and how many of the cards they have seen
+ * are still waiting for their partner, {@code k}; a pair whose cards have
+ * both been seen is matched straight away. The expected number of moves
+ * from each state is worked out by dynamic programming over the states,
+ * one value of {@code u} at a time from the end of the game, taking the
+ * best of every sensible turn: flip a new card and then either another new
+ * card or a known one, or flip a known card and then a new one.
+ *
+ * The number of states grows with the square of the number of cards, so
+ * boards of more than {@link #FULL_LIMIT} cards are only solved for the
+ * states that the game reaches with a probability above {@link #PRUNE}.
+ * The answer for those boards comes with a bound on its error, which is far
+ * smaller than the precision of a double.
+ *
+ * Answers are kept in a cache file, so each size only has to be solved
+ * once. Only cached answers come back at once: the first solve grows
+ * faster than the number of cards, and on one core takes under a second
+ * for a 128x128 board, a few seconds for 300x300 to 500x500, and about a
+ * minute for 1000x1000.
+ */
+public class Solver {
+    /**
+     * Boards with at most this many cards are solved for every state.
+     */
+    public static final int FULL_LIMIT = 1 << 14;
+
+    /**
+     * States reached with a lower probability than this are left out of the
+     * solution of a large board.
+     */
+    static final double PRUNE = 1e-24;
+
+    /**
+     * The number of extra states solved on each side of the states that
+     * are reached, so that the best move is known there too.
+     */
+    private static final int MARGIN = 8;
+
+    /**
+     * Layers with at least this many states are split between cores. The
+     * widest layers of a fully solved board have a few thousand states, and
+     * those of the band solved for a large board a few hundred to a few
+     * thousand.
+     */
+    private static final int PARALLEL_WIDTH = 1 << 9;
+
+    /**
+     * True if there is more than one core to split layers between. On one
+     * core, splitting only adds to the time taken.
+     */
+    private static final boolean PARALLEL = Runtime.getRuntime().availableProcessors() > 1;
+
+    /**
+     * The number of states in each part of a layer split between cores.
+     */
+    private static final int CHUNK = 1 << 8;
+
+    /**
+     * Changed whenever the model changes, so that old answers in the cache
+     * are ignored.
+     */
+    private static final String CACHE_VERSION = "1";
+
+    /**
+     * The cache file, or null if answers are not cached.
+     */
+    private final Path cacheFile;
+
+    /**
+     * The answers in the cache file, loaded when first needed.
+     */
+    private Properties cache;
+
+    /**
+     * Creates a new solver.
+     *
+     * @param cacheFile The file answers are cached in, or null to not cache
+     * them.
+     */
+    public Solver(Path cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Returns the cache file used by default, in the user's home directory.
+     *
+     * @return The cache file.
+     */
+    public static Path defaultCacheFile() {
+        return Paths.get(System.getProperty("user.home"), ".memory", "solver.properties");
+    }
+
+    /**
+     * Returns the fewest moves needed on average to finish a game on a
+     * board of the specified size, from the cache if it has been solved
+     * before.
+     *
+     * @param cols The number of columns on the board.
+     * @param rows The number of rows on the board.
+     *
+     * @return The solution.
+     *
+     * @throws MemoryException If the board size is invalid for a game of
+     * memory.
+     */
+    public Solution solve(int cols, int rows) throws MemoryException {
+        if(cols < 0 || rows < 0) {
+            throw new MemoryException("Invalid board size: " + cols + "x" + rows);
+        } else if((long)cols * rows > Integer.MAX_VALUE) {
+            throw new MemoryException("Too many cards for a game of memory: " + cols + "x" + rows);
+        }
+        int cards = cols * rows;
+        if(cards % 2 != 0) {
+            throw new MemoryException("Can't play memory with an odd number of cards.");
+        }
+        Solution solution = cached(cards);
+        if(solution == null) {
+            solution = solve(cards);
+            store(solution);
+        }
+        return solution;
+    }
+
+    /**
+     * Solves a board with the specified number of cards, ignoring the
+     * cache.
+     *
+     * @param cards The number of cards on the board. Must be even.
+     *
+     * @return The solution.
+     */
+    public static Solution solve(int cards) {
+        if(cards == 0) {
+            return new Solution(0, 0, 0, true);
+        }
+        // the smallest and largest k solved for each u
+        int[] lo = new int[cards + 1];
+        int[] hi = new int[cards + 1];
+        double lost = 0;
+        if(cards <= FULL_LIMIT) {
+            for(int u=0; u<=cards; u++) {
+                lo[u] = u & 1;
+                hi[u] = Math.min(u, cards - u);
+            }
+        } else {
+            lost = band(cards, lo, hi);
+        }
+
+        // the values of the two layers below the one being solved; a layer
+        // is indexed by k / 2, as k always has the same parity as u
+        double[] below2 = new double[cards / 2 + 2];
+        double[] below1 = new double[cards / 2 + 2];
+        double[] layer = new double[cards / 2 + 2];
+        boolean greedy = true;
+        for(int u=1; u<=cards; u++) {
+            int width = lo[u] > hi[u] ? 0 : (hi[u] - lo[u]) / 2 + 1;
+            int u0 = u;
+            double[] e1 = below1;
+            double[] e2 = below2;
+            double[] e0 = layer;
+            if(PARALLEL && width >= PARALLEL_WIDTH) {
+                int chunks = (width + CHUNK - 1) / CHUNK;
+                greedy &= IntStream.range(0, chunks).parallel()
+                    .map(c -> solveLayer(u0, lo[u0] + 2 * c * CHUNK,
+                        Math.min(hi[u0], lo[u0] + 2 * ((c + 1) * CHUNK - 1)),
+                        e0, e1, e2, lo, hi) ? 0 : 1)
+                    .sum() == 0;
+            } else if(width > 0) {
+                greedy &= solveLayer(u, lo[u], hi[u], layer, below1, below2, lo, hi);
+            }
+            double[] spare = below2;
+            below2 = below1;
+            below1 = layer;
+            layer = spare;
+        }
+        // the largest difference between the bounds used for a state
+        // outside the band and its real value is half of cards
+        return new Solution(cards, below1[0], lost * cards / 2, greedy);
+    }
+
+    /**
+     * Solves the states {@code (u, k)} for every k of the right parity in
+     * a range.
+     *
+     * @return True if the best move in every state was to flip new cards
+     * whenever possible.
+     */
+    private static boolean solveLayer(int u, int from, int to, double[] layer,
+            double[] below1, double[] below2, int[] lo, int[] hi) {
+        boolean greedy = true;
+        double inv = 1.0 / u;
+        double inv1 = u > 1 ? 1.0 / (u - 1) : 0;
+        for(int k=from; k<=to; k+=2) {
+            double value;
+            if(k == u) {
+                // every card left is the partner of a known card
+                value = 2 * k;
+            } else {
+                // the second card when the first new card matched nothing:
+                // its partner, the partner of a known card, or a new pair
+                double twoNew = inv1 * ((2 + get(below2, u - 2, k, lo, hi))
+                    + k * (4 + get(below2, u - 2, k, lo, hi))
+                    + (u - 2 - k) * (2 + get(below2, u - 2, k + 2, lo, hi)));
+                double second = twoNew;
+                if(k > 0) {
+                    // or a known card, which shows nothing new but
+                    // keeps the unknown pair for later
+                    double known = 2 + get(below1, u - 1, k + 1, lo, hi);
+                    if(known < twoNew) {
+                        second = known;
+                        greedy &= known > twoNew * (1 - 1e-12) || !exact(u, k, lo, hi);
+                    }
+                }
+                double match = k > 0 ? 2 + get(below1, u - 1, k - 1, lo, hi) : 0;
+                value = inv * (k * match + (u - k) * second);
+                if(k > 0) {
+                    // a known card first, then a new one
+                    double knownFirst = inv * (match + (k - 1) * (match + 2)
+                        + (u - k) * (2 + get(below1, u - 1, k + 1, lo, hi)));
+                    if(knownFirst < value) {
+                        greedy &= knownFirst > value * (1 - 1e-12) || !exact(u, k, lo, hi);
+                        value = knownFirst;
+                    }
+                }
+            }
+            layer[k >> 1] = value;
+        }
+        return greedy;
+    }
+
+    /**
+     * Returns true if every state that the state {@code (u, k)} can lead
+     * to was solved, rather than estimated. Only then can its best move be
+     * trusted.
+     */
+    private static boolean exact(int u, int k, int[] lo, int[] hi) {
+        return solved(u - 2, k, lo, hi)
+            && (u - 2 == k || solved(u - 2, k + 2, lo, hi))
+            && (k == 0 || (solved(u - 1, k - 1, lo, hi) && solved(u - 1, k + 1, lo, hi)));
+    }
+
+    private static boolean solved(int u, int k, int[] lo, int[] hi) {
+        return u < 0 || (k >= lo[u] && k <= hi[u]);
+    }
+
+    /**
+     * Returns the value of the state {@code (u, k)} from its layer, or,
+     * if it is outside the states solved, the middle of the bounds
+     * {@code u + k} and {@code 2u + k} on its value: every card must be
+     * flipped once more, and flipping new cards never flips one more than
+     * twice.
+     */
+    private static double get(double[] layer, int u, int k, int[] lo, int[] hi) {
+        if(u < 0) {
+            return 0;
+        } else if(k < lo[u] || k > hi[u]) {
+            return 1.5 * u + k;
+        }
+        return layer[k >> 1];
+    }
+
+    /**
+     * Works out which states a game on a large board reaches with a
+     * probability above {@link #PRUNE}, if the player flips new cards
+     * whenever possible, by following the probability of every state from
+     * the start of the game. The probability of each state is gathered from
+     * the two layers above it, so wide layers are split between cores.
+     *
+     * @param cards The number of cards.
+     * @param lo Filled in with the smallest k to solve for each u.
+     * @param hi Filled in with the largest k to solve for each u.
+     *
+     * @return The total probability of the states left out.
+     */
+    private static double band(int cards, int[] lo, int[] hi) {
+        // the probabilities of the layers u, u + 1 and u + 2, by k / 2
+        double[][] layers = new double[3][cards / 2 + 2];
+        // the range of k holding any probability in each of those layers
+        int[] first = new int[3];
+        int[] last = new int[3];
+        for(int i=0; i<3; i++) {
+            first[i] = Integer.MAX_VALUE;
+            last[i] = -1;
+        }
+        // the first and last k kept, and the probability left out, by part
+        int parts = (cards / 2 + CHUNK) / CHUNK;
+        int[] kept = new int[2 * parts];
+        double[] lost = new double[parts];
+        double total = 0;
+        for(int u=cards; u>=0; u--) {
+            int slot = u % 3;
+            int above1 = (u + 1) % 3;
+            int above2 = (u + 2) % 3;
+            int from = u & 1;
+            int to = from;
+            if(u < cards) {
+                from = Math.max(from, Math.min(first[above1] - 1, first[above2]));
+                to = Math.min(Math.min(u, cards - u), Math.max(last[above1] - 1, last[above2] + 2));
+            } else {
+                layers[slot][0] = 1;
+            }
+            int width = from > to ? 0 : (to - from) / 2 + 1;
+            int chunks = PARALLEL && width >= PARALLEL_WIDTH ? (width + CHUNK - 1) / CHUNK : 1;
+            int u0 = u;
+            int from0 = from;
+            int to0 = to;
+            if(width == 0) {
+                kept[0] = Integer.MAX_VALUE;
+                kept[1] = -1;
+                lost[0] = 0;
+            } else if(chunks > 1) {
+                IntStream.range(0, chunks).parallel().forEach(c -> reach(u0, from0 + 2 * c * CHUNK,
+                    Math.min(to0, from0 + 2 * ((c + 1) * CHUNK - 1)), layers, first, last, kept, lost, c));
+            } else if(u < cards) {
+                reach(u, from, to, layers, first, last, kept, lost, 0);
+            } else {
+                kept[0] = 0;
+                kept[1] = 0;
+                lost[0] = 0;
+            }
+            first[slot] = Integer.MAX_VALUE;
+            last[slot] = -1;
+            for(int c=0; c<chunks; c++) {
+                first[slot] = Math.min(first[slot], kept[2 * c]);
+                last[slot] = Math.max(last[slot], kept[2 * c + 1]);
+                total += lost[c];
+            }
+
+            int top = Math.min(u, cards - u);
+            if(first[slot] > last[slot]) {
+                lo[u] = (u & 1) + 2;
+                hi[u] = u & 1;
+            } else {
+                lo[u] = Math.max(u & 1, first[slot] - 2 * MARGIN);
+                hi[u] = Math.min(top, last[slot] + 2 * MARGIN);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Works out the probability of the states {@code (u, k)} for every k
+     * of the right parity in a range, from the layers {@code u + 1} and
+     * {@code u + 2}, and leaves out those below {@link #PRUNE}.
+     *
+     * @param kept Filled in with the first and last k kept, at
+     * {@code 2 * part} and {@code 2 * part + 1}.
+     * @param lost Filled in with the probability left out, at {@code part}.
+     */
+    private static void reach(int u, int from, int to, double[][] layers, int[] first, int[] last,
+            int[] kept, double[] lost, int part) {
+        double[] p = layers[u % 3];
+        double[] p1 = layers[(u + 1) % 3];
+        double[] p2 = layers[(u + 2) % 3];
+        int first1 = first[(u + 1) % 3];
+        int last1 = last[(u + 1) % 3];
+        int first2 = first[(u + 2) % 3];
+        int last2 = last[(u + 2) % 3];
+        // each term is added over the range of k it reaches, so that the
+        // loops have no branches: a known card matched, a new pair was
+        // missed, or a new card was missed along with one or two cards that
+        // were known. k = 2j + parity
+        int parity = u & 1;
+        int jFrom = from >> 1;
+        int jTo = to >> 1;
+        Arrays.fill(p, jFrom, jTo + 1, 0);
+        double matched = 1.0 / (u + 1);
+        for(int j=Math.max(jFrom, (first1 - 1) >> 1), end=Math.min(jTo, (last1 - 1) >> 1); j<=end; j++) {
+            int k = 2 * j + parity;
+            p[j] += p1[(k + 1) >> 1] * (k + 1) * matched;
+        }
+        double fresh = 1.0 / ((double)(u + 2) * (u + 1));
+        for(int j=Math.max(jFrom, first2 >> 1), end=Math.min(jTo, last2 >> 1); j<=end; j++) {
+            int k = 2 * j + parity;
+            p[j] += p2[j] * ((double)(u + 2 - k) * (1 + k)) * fresh;
+        }
+        for(int j=Math.max(jFrom, (first2 >> 1) + 1), end=Math.min(jTo, (last2 >> 1) + 1); j<=end; j++) {
+            int k = 2 * j + parity;
+            p[j] += p2[j - 1] * ((double)(u + 4 - k) * (u - k)) * fresh;
+        }
+        int keptFirst = Integer.MAX_VALUE;
+        int keptLast = -1;
+        double left = 0;
+        for(int j=jFrom; j<=jTo; j++) {
+            if(p[j] < PRUNE) {
+                left += p[j];
+                p[j] = 0;
+            } else {
+                keptFirst = Math.min(keptFirst, 2 * j + parity);
+                keptLast = 2 * j + parity;
+            }
+        }
+        kept[2 * part] = keptFirst;
+        kept[2 * part + 1] = keptLast;
+        lost[part] = left;
+    }
+
+    /**
+     * Returns the cached solution for a number of cards, or null.
+     */
+    private synchronized Solution cached(int cards) {
+        String value = cache().getProperty(CACHE_VERSION + "." + cards);
+        if(value == null) {
+            return null;
+        }
+        String[] parts = value.split(" ");
+        return new Solution(cards, Double.parseDouble(parts[0]),
+            Double.parseDouble(parts[1]), Boolean.parseBoolean(parts[2]));
+    }
+
+    /**
+     * Adds a solution to the cache, and writes the cache file.
+     */
+    private synchronized void store(Solution solution) {
+        if(this.cacheFile == null) {
+            return;
+        }
+        // doubles print exactly, so the cached answer is the computed one
+        cache().setProperty(CACHE_VERSION + "." + solution.getCards(),
+            solution.getExpectedMoves() + " " + solution.getError() + " " + solution.isGreedy());
+        try {
+            Path parent = this.cacheFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, "solver", ".tmp");
+            try(Writer out = Files.newBufferedWriter(temp)) {
+                this.cache.store(out, "Expected moves for optimal play: cards=moves error greedy");
+            }
+            Files.move(temp, this.cacheFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch(IOException ioe) {
+            System.err.println("Could not write " + this.cacheFile + ": " + ioe.getMessage());
+        }
+    }
+
+    private Properties cache() {
+        if(this.cache == null) {
+            this.cache = new Properties();
+            if(this.cacheFile != null && Files.exists(this.cacheFile)) {
+                try(Reader in = Files.newBufferedReader(this.cacheFile)) {
+                    this.cache.load(in);
+                } catch(IOException | IllegalArgumentException e) {
+                    System.err.println("Ignoring " + this.cacheFile + ": " + e.getMessage());
+                }
+            }
+        }
+        return this.cache;
+    }
+
+    /**
+     * The expected number of moves for optimal play on a board.
+     */
+    public static class Solution {
+        private final int cards;
+        private final double expectedMoves;
+        private final double error;
+        private final boolean greedy;
+
+        Solution(int cards, double expectedMoves, double error, boolean greedy) {
+            this.cards = cards;
+            this.expectedMoves = expectedMoves;
+            this.error = error;
+            this.greedy = greedy;
+        }
+
+        public int getCards() {
+            return this.cards;
+        }
+
+        /**
+         * Returns the expected number of moves, i.e. flips, needed to
+         * finish a game with optimal play.
+         *
+         * @return The expected number of moves.
+         */
+        public double getExpectedMoves() {
+            return this.expectedMoves;
+        }
+
+        /**
+         * Returns a bound on the error in the expected number of moves
+         * from leaving unlikely states out. Zero for boards of at most
+         * {@link Solver#FULL_LIMIT} cards.
+         *
+         * @return The largest possible error.
+         */
+        public double getError() {
+            return this.error;
+        }
+
+        /**
+         * Returns true if, in every state solved, flipping a new card
+         * whenever there is no known pair was as good as anything else.
+         * When it is, {@link PerfectRecallPlayer} plays optimally, and the
+         * error bound holds.
+         *
+         * @return True if greedy play is optimal.
+         */
+        public boolean isGreedy() {
+            return this.greedy;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d cards: %.6f moves", this.cards, this.expectedMoves)
+                + (this.error > 0 ? String.format(" (+/- %.1e)", this.error) : "")
+                + (this.greedy ? "" : " (greedy play is not optimal)");
+        }
+    }
+}
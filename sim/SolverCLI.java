@@ -0,0 +1,127 @@
+package memory.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import memory.model.BoardType;
+import memory.model.MemoryException;
+
+/**
+ * Prints the fewest moves needed on average to finish games on boards of
+ * the specified sizes, and optionally checks each answer by playing games
+ * through {@link memory.model.Memory} with a {@link PerfectRecallPlayer},
+ * which plays optimally when {@link Solver.Solution#isGreedy()}.
+ *
+ * Usage: {@code SolverCLI CxR... [--games N] [--threads N] [--seed N]
+ * [--no-cache]}, e.g. {@code SolverCLI 4x5 6x6 100x100 --games 100000}.
+ * The sizes are solved in parallel.
+ */
+public class SolverCLI {
+    /**
+     * The largest difference between the simulated and solved means, in
+     * standard errors, that is still reported as agreeing.
+     */
+    private static final double TOLERANCE = 4;
+
+    public static void main(String[] args) throws Exception {
+        List<int[]> sizes = new ArrayList<>();
+        long games = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = System.nanoTime();
+        Solver solver = new Solver(Solver.defaultCacheFile());
+        for(int i=0; i<args.length; i++) {
+            switch(args[i]) {
+                case "--games":
+                    games = Long.parseLong(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--no-cache":
+                    solver = new Solver(null);
+                    break;
+                default:
+                    String[] size = args[i].split("x");
+                    if(size.length != 2) {
+                        usage();
+                        return;
+                    }
+                    sizes.add(new int[] {Integer.parseInt(size[0]), Integer.parseInt(size[1])});
+            }
+        }
+        if(sizes.isEmpty()) {
+            usage();
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Solver shared = solver;
+            List<Solver.Solution> solutions;
+            try {
+                solutions = pool.submit(() -> sizes.parallelStream()
+                    .map(size -> solve(shared, size[0], size[1]))
+                    .collect(Collectors.toList())).get();
+            } catch(ExecutionException ee) {
+                // the pool may wrap the exception thrown by solve() in a copy
+                Throwable cause = ee.getCause();
+                while(cause.getCause() instanceof IllegalArgumentException) {
+                    cause = cause.getCause();
+                }
+                System.out.println(cause.getMessage());
+                return;
+            }
+            for(int i=0; i<sizes.size(); i++) {
+                int cols = sizes.get(i)[0];
+                int rows = sizes.get(i)[1];
+                Solver.Solution solution = solutions.get(i);
+                System.out.println(cols + "x" + rows + ": " + solution);
+                if(games > 0) {
+                    check(cols, rows, solution, games, seed, pool);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Solver.Solution solve(Solver solver, int cols, int rows) {
+        try {
+            return solver.solve(cols, rows);
+        } catch(MemoryException me) {
+            throw new IllegalArgumentException(cols + "x" + rows + ": " + me.getMessage(), me);
+        }
+    }
+
+    /**
+     * Plays games with a perfect recall player and compares their mean
+     * number of moves with the solution.
+     */
+    private static void check(int cols, int rows, Solver.Solution solution, long games,
+            long seed, ForkJoinPool pool) throws MemoryException {
+        Simulation simulation = new Simulation(cols, rows, BoardType.OBJECT);
+        SimulationStats stats = simulation.run(PerfectRecallPlayer::new, games, seed, pool);
+        double error = stats.getStandardDeviation() / Math.sqrt(stats.getGames());
+        double z = error > 0 ? (stats.getMean() - solution.getExpectedMoves()) / error : 0;
+        String verdict;
+        if(!solution.isGreedy()) {
+            verdict = "perfect recall is not optimal here, so its mean is only an upper bound";
+        } else if(Math.abs(z) <= TOLERANCE) {
+            verdict = "agrees";
+        } else {
+            verdict = "DISAGREES";
+        }
+        System.out.printf("  %d games with perfect recall: mean %.4f +/- %.4f, z=%.2f, %s%n",
+            stats.getGames(), stats.getMean(), error, z, verdict);
+    }
+
+    private static void usage() {
+        System.out.println("Usage: SolverCLI CxR... [--games N] [--threads N] [--seed N] [--no-cache]");
+    }
+}
@@ -0,0 +1,47 @@
+package memory.sound;
+
+/**
+ * The sounds the game makes, and the file on the classpath each is played
+ * from.
+ */
+public enum Cue {
+    /**
+     * A new game.
+     */
+    START("media/sounds/start.wav"),
+
+    /**
+     * The first card of a turn being turned up.
+     */
+    FLIP("media/sounds/memory/flip.mp3"),
+
+    /**
+     * The second card of a turn matching the first.
+     */
+    MATCH("media/sounds/chomp.wav"),
+
+    /**
+     * The second card of a turn not matching the first.
+     */
+    MISMATCH("media/sounds/buzzer.wav"),
+
+    /**
+     * The last pair being matched.
+     */
+    GAME_OVER("media/sounds/end.wav");
+
+    private final String path;
+
+    private Cue(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Returns the path of the sound on the classpath.
+     *
+     * @return The path.
+     */
+    public String getPath() {
+        return this.path;
+    }
+}
@@ -0,0 +1,54 @@
+package memory.sound;
+
+import memory.model.MemoryChange;
+import memory.model.MemoryObserver;
+
+/**
+ * Plays a cue for every flip in a game: {@link Cue#FLIP} for the first card
+ * of a turn, {@link Cue#MATCH} or {@link Cue#MISMATCH} for the second, and
+ * {@link Cue#GAME_OVER} for the last. Turns ended early with
+ * {@code Memory.endTurn()} make no sound. Must observe the game itself rather
+ * than through {@code FxMemoryDispatcher}, which may merge several flips
+ * into one change, and so is called on the thread that flips.
+ */
+public class CueObserver implements MemoryObserver {
+    private final CuePlayer player;
+
+    /**
+     * The score after the last flip.
+     */
+    private int score;
+
+    /**
+     * Creates a new observer.
+     *
+     * @param player Where to play the cues.
+     */
+    public CueObserver(CuePlayer player) {
+        this.player = player;
+    }
+
+    @Override
+    public void memoryChanged(MemoryChange change) {
+        if(change.size() == 0 || !change.isFaceUp(change.size() - 1)) {
+            // a flip always ends with the card it turned up, so this ended a turn early
+            return;
+        }
+        int moves = change.getMoves();
+        if(moves == 1) {
+            // the first flip of a new game
+            this.score = 0;
+        }
+        Cue cue;
+        if(change.isGameOver()) {
+            cue = Cue.GAME_OVER;
+        } else if(moves % 2 == 1) {
+            // every flip is a move, and every turn is two flips
+            cue = Cue.FLIP;
+        } else {
+            cue = change.getScore() > this.score ? Cue.MATCH : Cue.MISMATCH;
+        }
+        this.score = change.getScore();
+        this.player.play(cue);
+    }
+}
@@ -0,0 +1,157 @@
+package memory.sound;
+
+import java.net.URL;
+
+import javafx.scene.media.AudioClip;
+import memory.metrics.Metrics;
+
+/**
+ * Plays the sound cues. Every cue is decoded once, by {@link #load()}, into
+ * an {@link AudioClip} that is reused for every time it is played; the
+ * clips mix on their own, so a cue can start while another is sounding.
+ *
+ * {@link #play(Cue)} can be called from any thread, the FX thread included,
+ * and never blocks on audio: the cue is put in a short queue and started by
+ * a daemon thread, "memory-sound". Starting a clip takes a few microseconds
+ * once warm, but several milliseconds the first time, which on the FX
+ * thread would be a dropped frame, so {@link #load()} also starts each clip
+ * once, silently. When the queue is full, or the same cue is already
+ * waiting, the new cue is dropped: a sound that comes late is worse than
+ * none.
+ *
+ * Sounds are on unless the JVM is started with {@code -Dmemory.sound=false}.
+ */
+public final class CuePlayer {
+    /**
+     * True if sounds are to be played.
+     */
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("memory.sound", "true"));
+
+    /**
+     * The most cues waiting to be started.
+     */
+    private static final int QUEUE = 4;
+
+    private static final Cue[] CUES = Cue.values();
+
+    /**
+     * The clip for each cue, or null if it could not be loaded or played.
+     */
+    private final AudioClip[] clips = new AudioClip[CUES.length];
+
+    /**
+     * True once every clip has been loaded, after which {@link #clips} is
+     * only used by the thread that plays them.
+     */
+    private volatile boolean loaded;
+
+    // the queue of cues waiting to be started, guarded by this
+    private final Cue[] queue = new Cue[QUEUE];
+    private final long[] queuedAt = new long[QUEUE];
+    private int head;
+    private int count;
+    private long dropped;
+
+    /**
+     * Decodes every cue and starts the thread that plays them. Cues played
+     * before this has finished are ignored. Takes a few hundred
+     * milliseconds the first time the media libraries are loaded, so should
+     * not be called on the FX thread.
+     */
+    public void load() {
+        for(Cue cue : CUES) {
+            URL url = CuePlayer.class.getClassLoader().getResource(cue.getPath());
+            try {
+                if(url == null) {
+                    throw new IllegalArgumentException("not found");
+                }
+                AudioClip clip = new AudioClip(url.toExternalForm());
+                clip.play(0);
+                this.clips[cue.ordinal()] = clip;
+            } catch(RuntimeException re) {
+                // the game goes on without the sound, e.g. where there is no media support
+                System.err.println("Could not load " + cue.getPath() + ": " + re.getMessage());
+            }
+        }
+        Thread thread = new Thread(this::run, "memory-sound");
+        thread.setDaemon(true);
+        thread.start();
+        this.loaded = true;
+    }
+
+    /**
+     * Plays a cue as soon as possible, or drops it if too many are waiting
+     * or it is waiting already.
+     *
+     * @param cue The cue.
+     */
+    public void play(Cue cue) {
+        if(!this.loaded) {
+            return;
+        }
+        long start = Metrics.CUE.start();
+        synchronized(this) {
+            if(this.count == QUEUE || isQueued(cue)) {
+                this.dropped++;
+                return;
+            }
+            int tail = (this.head + this.count) % QUEUE;
+            this.queue[tail] = cue;
+            this.queuedAt[tail] = start;
+            this.count++;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Returns the number of cues dropped so far.
+     *
+     * @return The number of cues.
+     */
+    public synchronized long getDropped() {
+        return this.dropped;
+    }
+
+    private boolean isQueued(Cue cue) {
+        for(int i=0; i<this.count; i++) {
+            if(this.queue[(this.head + i) % QUEUE] == cue) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts the cues in the order they were played.
+     */
+    private void run() {
+        while(true) {
+            Cue cue;
+            long start;
+            synchronized(this) {
+                while(this.count == 0) {
+                    try {
+                        wait();
+                    } catch(InterruptedException ie) {
+                        return;
+                    }
+                }
+                cue = this.queue[this.head];
+                start = this.queuedAt[this.head];
+                this.queue[this.head] = null;
+                this.head = (this.head + 1) % QUEUE;
+                this.count--;
+            }
+            AudioClip clip = this.clips[cue.ordinal()];
+            if(clip != null) {
+                try {
+                    clip.play();
+                } catch(RuntimeException re) {
+                    System.err.println("Could not play " + cue.getPath() + ": " + re.getMessage());
+                    this.clips[cue.ordinal()] = null;
+                }
+            }
+            Metrics.CUE.stop(start);
+        }
+    }
+}
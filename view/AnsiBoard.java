@@ -0,0 +1,182 @@
+package memory.view;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import memory.model.CardFace;
+import memory.model.Memory;
+
+/**
+ * Draws a game of Memory on an ANSI terminal, laid out as
+ * {@link MemoryCLI} draws it and followed by its prompt. The first frame
+ * is drawn in full. After that, as long as nothing else has been printed
+ * since, only the score, the moves and the cards that changed are
+ * rewritten: the cursor is moved back up over the last frame and across to
+ * each changed card with escape codes. A flip changes at most three cards,
+ * so a frame costs a few dozen bytes however big the board is.
+ *
+ * Cards are padded to the longest symbol in the deck, so every card stays
+ * in the same column. Nothing is allocated while drawing.
+ */
+public class AnsiBoard {
+    private static final String CSI = "\u001b[";
+
+    /**
+     * What a slot showed when it was last drawn: a face up card shows
+     * {@code FACE_UP + face id}.
+     */
+    private static final int NOT_DRAWN = -1;
+    private static final int REMOVED = 0;
+    private static final int FACE_DOWN = 1;
+    private static final int FACE_UP = 2;
+
+    /**
+     * The lines of a frame before the first row of the board: the moves,
+     * the score and a blank line.
+     */
+    private static final int HEADER_LINES = 3;
+
+    /**
+     * The lines of a frame after the last row of the board: two blank
+     * lines and the prompt, and the line the player's command left the
+     * cursor on.
+     */
+    private static final int FOOTER_LINES = 4;
+
+    private final Memory memory;
+    private final Appendable out;
+
+    /**
+     * The length of the longest symbol in the deck.
+     */
+    private final int symbolWidth;
+
+    /**
+     * What each slot showed when it was last drawn.
+     */
+    private final int[] shown;
+
+    /**
+     * The digits of a number being written, last digit last.
+     */
+    private final char[] digits = new char[11];
+
+    /**
+     * True if the last frame is still on screen, just above the cursor.
+     */
+    private boolean drawn;
+
+    /**
+     * Creates a new board. Nothing is drawn until {@link #draw()}.
+     *
+     * @param memory The game to draw.
+     * @param out Where to write the escape codes and text, ideally buffered.
+     */
+    public AnsiBoard(Memory memory, Appendable out) {
+        this.memory = memory;
+        this.out = out;
+        this.symbolWidth = memory.getSymbolWidth();
+        this.shown = new int[memory.getCols() * memory.getRows()];
+    }
+
+    /**
+     * Makes the next frame a full one, drawn below whatever is on screen.
+     * Must be called whenever anything else is printed, since the last
+     * frame is no longer where the next one would look for it.
+     */
+    public void invalidate() {
+        this.drawn = false;
+    }
+
+    /**
+     * Draws the board and the prompt, either in full or by rewriting what
+     * changed since the last frame. The output is not flushed.
+     *
+     * @throws IOException If the output can't be written.
+     */
+    public void draw() throws IOException {
+        int rows = this.memory.getRows();
+        int cols = this.memory.getCols();
+        boolean full = !this.drawn;
+        if(full) {
+            Arrays.fill(this.shown, NOT_DRAWN);
+        } else {
+            // back to the start of the moves line of the last frame
+            this.out.append(CSI);
+            appendInt(HEADER_LINES + rows + FOOTER_LINES - 1);
+            this.out.append('F');
+        }
+        this.out.append("Moves: ");
+        appendInt(this.memory.getMoves());
+        this.out.append(CSI).append("K\n").append("Score: ");
+        appendInt(this.memory.getScore());
+        this.out.append(CSI).append("K\n\n");
+        for(int row=0; row<rows; row++) {
+            for(int col=0; col<cols; col++) {
+                int index = col * rows + row;
+                int state = stateOf(index);
+                if(state == this.shown[index]) {
+                    continue;
+                }
+                if(!full) {
+                    // columns are counted from 1
+                    this.out.append(CSI);
+                    appendInt(col * (this.symbolWidth + 2) + 1);
+                    this.out.append('G');
+                }
+                appendCell(index, state);
+                this.shown[index] = state;
+            }
+            this.out.append('\n');
+        }
+        this.out.append("\n\n>> ").append(CSI).append('J');
+        this.drawn = true;
+    }
+
+    /**
+     * Returns what a slot shows right now.
+     */
+    private int stateOf(int index) {
+        if(this.memory.isRemoved(index)) {
+            return REMOVED;
+        } else if(this.memory.isFaceUp(index)) {
+            return FACE_UP + this.memory.getFace(index).getId();
+        }
+        return FACE_DOWN;
+    }
+
+    /**
+     * Writes one card, padded to the width of every card.
+     */
+    private void appendCell(int index, int state) throws IOException {
+        int padding = this.symbolWidth;
+        if(state == REMOVED) {
+            this.out.append(' ');
+        } else {
+            this.out.append('[');
+            if(state != FACE_DOWN) {
+                CardFace face = this.memory.getFace(index);
+                this.out.append(face.getSymbol());
+                padding -= face.getSymbol().length();
+            }
+        }
+        for(int i=0; i<padding; i++) {
+            this.out.append(' ');
+        }
+        this.out.append(state == REMOVED ? ' ' : ']');
+    }
+
+    /**
+     * Writes a number that isn't negative without creating a string.
+     */
+    private void appendInt(int value) throws IOException {
+        int at = this.digits.length;
+        do {
+            this.digits[--at] = (char)('0' + value % 10);
+            value /= 10;
+        } while(value > 0);
+        for(; at<this.digits.length; at++) {
+            this.out.append(this.digits[at]);
+        }
+    }
+}
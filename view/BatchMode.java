@@ -0,0 +1,371 @@
+package memory.view;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ThreadLocalRandom;
+
+import memory.model.BoardType;
+import memory.model.Deck;
+import memory.model.Memory;
+import memory.model.MemoryException;
+
+/**
+ * Plays scripts of moves without a board on screen, for checking recorded
+ * games in bulk. Run as {@code MemoryCLI --batch [FILE...]}, reading
+ * standard input if no files are given. A script holds any number of
+ * games, one command per line:
+ *
+ * <pre>
+ * # a comment
+ * game COLS ROWS [SEED]   starts a new game, dealt with the seed if given
+ * move COL ROW            flips a card; the word "move" may be left out
+ * end                     ends the game; so does the next "game" or the end of the input
+ * </pre>
+ *
+ * One line is printed for each game: its number, size, seed, moves,
+ * score, whether it was won, the number of moves that could not be made
+ * and the line of the first of them, or "-". Bad commands are reported on
+ * standard error and skipped.
+ *
+ * Scripts are read as bytes in large blocks and tokenized by hand, moves
+ * are made with {@link Memory#tryFlip(int, int)}, and a board of the same
+ * size is reused for the next game, so nothing is created per move.
+ */
+class BatchMode {
+    private static final int BUFFER = 1 << 16;
+
+    /**
+     * The longest command word that is looked at.
+     */
+    private static final int WORD = 8;
+
+    private final Writer out;
+    private final byte[] buffer = new byte[BUFFER];
+    private final byte[] word = new byte[WORD];
+    private InputStream in;
+    private int position;
+    private int limit;
+
+    /**
+     * The line of the current file being read, from 1.
+     */
+    private int line;
+    private String source;
+
+    private Memory memory;
+
+    /**
+     * True from a "game" command until the game is ended.
+     */
+    private boolean playing;
+    private int gameCount;
+    private long totalMoves;
+    private int invalid;
+    private int firstInvalid;
+
+    /**
+     * The numbers on the current line, and how many there are.
+     */
+    private final long[] numbers = new long[3];
+    private int numberCount;
+
+    BatchMode(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Plays every script named, or standard input if there are none, and
+     * prints a summary on standard error.
+     *
+     * @param files The scripts.
+     */
+    static void main(String[] files) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII), BUFFER);
+        BatchMode batch = new BatchMode(out);
+        long start = System.nanoTime();
+        out.write("# game size seed moves score result invalid first-invalid-line\n");
+        if(files.length == 0) {
+            batch.play(System.in, "stdin");
+        } else {
+            for(String file : files) {
+                try(InputStream in = Files.newInputStream(Paths.get(file))) {
+                    batch.play(in, file);
+                }
+            }
+        }
+        out.flush();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d games, %d moves in %.3fs: %.0f moves/sec%n", batch.gameCount,
+            batch.totalMoves, seconds, batch.totalMoves / seconds);
+    }
+
+    /**
+     * Plays one script to the end. A game still open at the end of the
+     * script is ended there.
+     *
+     * @param in The script.
+     * @param source The name used in error messages.
+     */
+    void play(InputStream in, String source) throws IOException {
+        this.in = in;
+        this.source = source;
+        this.position = 0;
+        this.limit = 0;
+        this.line = 0;
+        while(peek() >= 0) {
+            this.line++;
+            command();
+        }
+        endGame();
+    }
+
+    /**
+     * Reads and carries out one line.
+     */
+    private void command() throws IOException {
+        int length = readWord();
+        int c = peek();
+        if(length == 0 && (c == '#' || c == '\n' || c == '\r' || c < 0)) {
+            // a comment or a blank line
+            skipLine();
+            return;
+        }
+        if(length == 0 && c >= 0x80) {
+            // only comments may hold anything but ASCII, e.g. UTF-8 text or a byte order mark
+            skipLine();
+            error("not an ASCII character");
+            return;
+        }
+        if(length == 0 && c >= '0' && c <= '9') {
+            // a move without the word
+            if(readNumbers()) {
+                move();
+            }
+        } else if(is(length, "move")) {
+            if(readNumbers()) {
+                move();
+            }
+        } else if(is(length, "game")) {
+            if(readNumbers()) {
+                newGame();
+            }
+        } else if(is(length, "end")) {
+            if(readNumbers()) {
+                if(this.numberCount > 0) {
+                    error("expected: end");
+                } else {
+                    endGame();
+                }
+            }
+        } else {
+            skipLine();
+            error("unknown command");
+        }
+    }
+
+    private void newGame() throws IOException {
+        endGame();
+        if(this.numberCount != 2 && this.numberCount != 3) {
+            error("expected: game COLS ROWS [SEED]");
+            return;
+        } else if(this.numbers[0] < 0 || this.numbers[1] < 0) {
+            error("board size can't be negative");
+            return;
+        } else if(this.numbers[0] > Integer.MAX_VALUE || this.numbers[1] > Integer.MAX_VALUE
+                || this.numbers[0] * this.numbers[1] > Integer.MAX_VALUE) {
+            error("board too big");
+            return;
+        }
+        int cols = (int)this.numbers[0];
+        int rows = (int)this.numbers[1];
+        long seed = this.numberCount == 3 ? this.numbers[2] : ThreadLocalRandom.current().nextLong();
+        if(this.memory != null && this.memory.getCols() == cols && this.memory.getRows() == rows) {
+            this.memory.reset(seed);
+        } else {
+            try {
+                this.memory = new Memory(cols, rows, Deck.standard(Math.max(0, cols * rows / 2)),
+                    BoardType.OBJECT, seed);
+            } catch(MemoryException me) {
+                this.memory = null;
+                error(me.getMessage());
+                return;
+            }
+        }
+        this.playing = true;
+        this.gameCount++;
+        this.invalid = 0;
+        this.firstInvalid = 0;
+    }
+
+    private void move() throws IOException {
+        if(this.numberCount != 2) {
+            error("expected: move COL ROW");
+        } else if(!this.playing) {
+            error("no game has been started");
+        } else {
+            long col = this.numbers[0];
+            long row = this.numbers[1];
+            int status = col != (int)col || row != (int)row
+                ? Memory.INVALID_COLUMN
+                : this.memory.tryFlip((int)col, (int)row);
+            if(status < 0) {
+                if(this.invalid++ == 0) {
+                    this.firstInvalid = this.line;
+                }
+            } else {
+                this.totalMoves++;
+            }
+        }
+    }
+
+    /**
+     * Prints the record of the game in play, if there is one.
+     */
+    private void endGame() throws IOException {
+        if(!this.playing) {
+            return;
+        }
+        this.playing = false;
+        Writer out = this.out;
+        out.write(Integer.toString(this.gameCount));
+        out.write(' ');
+        out.write(Integer.toString(this.memory.getCols()));
+        out.write('x');
+        out.write(Integer.toString(this.memory.getRows()));
+        out.write(' ');
+        out.write(Long.toString(this.memory.getSeed()));
+        out.write(' ');
+        out.write(Integer.toString(this.memory.getMoves()));
+        out.write(' ');
+        out.write(Integer.toString(this.memory.getScore()));
+        out.write(this.memory.isGameOver() ? " won " : " open ");
+        out.write(Integer.toString(this.invalid));
+        out.write(' ');
+        out.write(this.invalid == 0 ? "-" : Integer.toString(this.firstInvalid));
+        out.write('\n');
+    }
+
+    /**
+     * Reads the numbers that make up the rest of the line. A number may
+     * start with a minus sign, as the seeds printed for games often do.
+     *
+     * @return True if the line held nothing else, or false if an error was
+     * reported.
+     */
+    private boolean readNumbers() throws IOException {
+        this.numberCount = 0;
+        while(true) {
+            skipBlanks();
+            int c = peek();
+            if(c < 0 || c == '\n' || c == '\r' || c == '#') {
+                skipLine();
+                return true;
+            } else if(this.numberCount == this.numbers.length) {
+                skipLine();
+                error("too many numbers");
+                return false;
+            }
+            boolean negative = c == '-';
+            if(negative) {
+                this.position++;
+                c = peek();
+            }
+            if(c < '0' || c > '9') {
+                skipLine();
+                error("expected a number");
+                return false;
+            }
+            // counted down from zero, since there is one more negative long than positive
+            long value = 0;
+            while((c = peek()) >= '0' && c <= '9') {
+                int digit = c - '0';
+                if(value < (Long.MIN_VALUE + digit) / 10 || (!negative && value * 10 - digit == Long.MIN_VALUE)) {
+                    skipLine();
+                    error("number too big");
+                    return false;
+                }
+                value = value * 10 - digit;
+                this.position++;
+            }
+            this.numbers[this.numberCount++] = negative ? value : -value;
+        }
+    }
+
+    /**
+     * Reads the letters at the start of the line into {@link #word}.
+     *
+     * @return The number of letters, which may be more than were kept.
+     */
+    private int readWord() throws IOException {
+        skipBlanks();
+        int length = 0;
+        int c;
+        while((c = peek()) >= 'a' && c <= 'z') {
+            if(length < WORD) {
+                this.word[length] = (byte)c;
+            }
+            length++;
+            this.position++;
+        }
+        return length;
+    }
+
+    private boolean is(int length, String expected) {
+        if(length != expected.length()) {
+            return false;
+        }
+        for(int i=0; i<length; i++) {
+            if(this.word[i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void skipBlanks() throws IOException {
+        int c;
+        while((c = peek()) == ' ' || c == '\t') {
+            this.position++;
+        }
+    }
+
+    /**
+     * Skips the rest of the line, including its end.
+     */
+    private void skipLine() throws IOException {
+        int c;
+        while((c = peek()) >= 0) {
+            this.position++;
+            if(c == '\n') {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the next byte without reading past it.
+     *
+     * @return The byte, from 0 to 255, or -1 at the end of the input.
+     */
+    private int peek() throws IOException {
+        if(this.position == this.limit) {
+            this.limit = this.in.read(this.buffer);
+            this.position = 0;
+            if(this.limit <= 0) {
+                this.limit = 0;
+                return -1;
+            }
+        }
+        return this.buffer[this.position] & 0xff;
+    }
+
+    private void error(String message) {
+        System.err.println(this.source + ":" + this.line + ": " + message);
+    }
+}
@@ -0,0 +1,189 @@
+package memory.view;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+import memory.model.Card;
+import memory.model.CardFace;
+import memory.model.Memory;
+import memory.model.MemoryChange;
+import memory.model.MemoryException;
+import memory.model.MemoryObserver;
+
+/**
+ * Draws a whole game of Memory on a single canvas, one square cell per slot.
+ * The board is painted in full once; after that only the cells reported in
+ * each {@link MemoryChange} are repainted, so the cost of a flip does not
+ * depend on the size of the board. Clicks are mapped to a column and row
+ * with {@link #colAt(double)} and {@link #rowAt(double)}.
+ *
+ * Faces without an image are drawn as a colored square with their symbol
+ * on it, so boards can be far bigger than the set of card images.
+ */
+public class BoardCanvas extends Canvas implements MemoryObserver {
+    /**
+     * Cells smaller than this are drawn without their symbol.
+     */
+    private static final double MIN_TEXT_CELL = 20;
+
+    /**
+     * The space left between cells, if the cells are big enough.
+     */
+    private static final double GAP = 1;
+
+    private final Memory memory;
+    private final ImageCache images;
+    private final double cellSize;
+    private final Image back;
+    private final Image wood;
+
+    // fonts for the symbols, by symbol length, made when first needed
+    private final Font[] fonts = new Font[8];
+
+    /**
+     * Creates a new canvas sized to fit the board.
+     *
+     * @param memory The game to draw.
+     * @param images The images for the faces and the back of the cards.
+     * @param cellSize The width and height of a single cell in pixels.
+     * @param back The path of the image for the back of a card.
+     * @param wood The path of the image for an empty slot.
+     */
+    public BoardCanvas(Memory memory, ImageCache images, double cellSize,
+            String back, String wood) {
+        super(memory.getCols() * cellSize, memory.getRows() * cellSize);
+        this.memory = memory;
+        this.images = images;
+        this.cellSize = cellSize;
+        this.back = images.get(back);
+        this.wood = images.get(wood);
+    }
+
+    /**
+     * Returns the size of the cells that fits a board into the specified
+     * space, between 1 and the full size of a card image.
+     *
+     * @param cols The number of columns on the board.
+     * @param rows The number of rows on the board.
+     * @param space The width and height available in pixels.
+     * @param max The largest cell size.
+     *
+     * @return The cell size.
+     */
+    public static double fit(int cols, int rows, double space, double max) {
+        return Math.max(1, Math.min(max, Math.floor(space / Math.max(cols, rows))));
+    }
+
+    /**
+     * Returns the column under an x coordinate on the canvas.
+     *
+     * @param x The x coordinate.
+     *
+     * @return The column, which may be off the board.
+     */
+    public int colAt(double x) {
+        return (int)Math.floor(x / this.cellSize);
+    }
+
+    /**
+     * Returns the row under a y coordinate on the canvas.
+     *
+     * @param y The y coordinate.
+     *
+     * @return The row, which may be off the board.
+     */
+    public int rowAt(double y) {
+        return (int)Math.floor(y / this.cellSize);
+    }
+
+    /**
+     * Paints every cell on the board.
+     */
+    public void paintAll() {
+        GraphicsContext gc = getGraphicsContext2D();
+        gc.setFill(Color.BLACK);
+        gc.fillRect(0, 0, getWidth(), getHeight());
+        for(int col=0; col<this.memory.getCols(); col++) {
+            for(int row=0; row<this.memory.getRows(); row++) {
+                try {
+                    Card card = this.memory.getCard(col, row);
+                    paintCell(gc, col, row, card.getFace(), card.isFaceUp(),
+                        card == Card.NULL_CARD);
+                } catch(MemoryException me) {
+                    // every slot on the board is valid
+                    throw new IllegalStateException(me);
+                }
+            }
+        }
+    }
+
+    /**
+     * Repaints only the cells that changed.
+     */
+    @Override
+    public void memoryChanged(MemoryChange change) {
+        GraphicsContext gc = getGraphicsContext2D();
+        for(int i=0; i<change.size(); i++) {
+            paintCell(gc, change.getCol(i), change.getRow(i), change.getFace(i),
+                change.isFaceUp(i), change.isRemoved(i));
+        }
+    }
+
+    /**
+     * Paints a single cell.
+     */
+    private void paintCell(GraphicsContext gc, int col, int row, CardFace face,
+            boolean faceUp, boolean removed) {
+        double gap = this.cellSize >= 8 ? GAP : 0;
+        double x = col * this.cellSize;
+        double y = row * this.cellSize;
+        double size = this.cellSize - gap;
+        gc.clearRect(x, y, this.cellSize, this.cellSize);
+        if(removed) {
+            gc.drawImage(this.wood, x, y, size, size);
+        } else if(!faceUp) {
+            gc.drawImage(this.back, x, y, size, size);
+        } else {
+            Image image = this.images.get(face);
+            if(image != null) {
+                gc.drawImage(image, x, y, size, size);
+            } else {
+                paintSymbol(gc, face, x, y, size);
+            }
+        }
+    }
+
+    /**
+     * Paints a face that has no image as a square in a color picked from its
+     * id, with the symbol on top if there is room.
+     */
+    private void paintSymbol(GraphicsContext gc, CardFace face, double x, double y,
+            double size) {
+        // the golden angle spreads consecutive ids around the color wheel
+        double hue = (face.getId() * 137.508) % 360;
+        gc.setFill(Color.hsb(hue, 0.55, 0.95));
+        gc.fillRect(x, y, size, size);
+        if(size >= MIN_TEXT_CELL) {
+            gc.setFill(Color.BLACK);
+            gc.setFont(font(face.getSymbol().length(), size));
+            gc.setTextAlign(TextAlignment.CENTER);
+            gc.setTextBaseline(VPos.CENTER);
+            gc.fillText(face.getSymbol(), x + size / 2, y + size / 2, size);
+        }
+    }
+
+    /**
+     * Returns the font used for symbols of the specified length.
+     */
+    private Font font(int length, double size) {
+        int index = Math.min(length, this.fonts.length) - 1;
+        if(this.fonts[index] == null) {
+            this.fonts[index] = Font.font(size / (1.5 + (index + 1) * 0.5));
+        }
+        return this.fonts[index];
+    }
+}
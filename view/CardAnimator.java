@@ -0,0 +1,241 @@
+package memory.view;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import memory.model.IndexSet;
+
+/**
+ * Animates the cards of a board from a single {@link AnimationTimer},
+ * however many cards are changing. Each card is shown by an
+ * {@link ImageView}, and a change of image is animated in two halves: the
+ * old image goes away, the new image is swapped in, and it comes back. A
+ * card can be turned, squashed sideways and stretched back, or faded out
+ * and in.
+ *
+ * The slots being animated are kept in an {@link IndexSet}, and only those
+ * are visited on each frame. The timer runs only while something is
+ * animating or an action is scheduled, so an idle board costs no pulses.
+ * At most a fixed number of cards animate at once, whatever the size of
+ * the board; a change made while that many are already animating is shown
+ * at once, so a frame never does more than that many cards' worth of work.
+ * Nothing is allocated per frame.
+ *
+ * Must only be used on the JavaFX application thread.
+ */
+public class CardAnimator extends AnimationTimer {
+    /**
+     * Squashes the card sideways, as if it were turned over.
+     */
+    public static final int TURN = 0;
+
+    /**
+     * Fades the card out and back in.
+     */
+    public static final int FADE = 1;
+
+    /**
+     * Means a slot has not been drawn since its animation started.
+     */
+    private static final long NOT_STARTED = -1;
+
+    /**
+     * The view of each slot.
+     */
+    private final ImageView[] views;
+
+    /**
+     * How long an animation takes, in nanoseconds.
+     */
+    private final long duration;
+
+    /**
+     * The most slots animated at once.
+     */
+    private final int maxAnimating;
+
+    /**
+     * The slots being animated.
+     */
+    private final IndexSet animating;
+
+    /**
+     * For each animating slot: the time of the frame it started on, the
+     * image it ends on, how it is animated and whether its image has been
+     * swapped yet.
+     */
+    private final long[] started;
+    private final Image[] targets;
+    private final int[] kinds;
+    private final boolean[] swapped;
+
+    /**
+     * The time of the last frame.
+     */
+    private long now;
+
+    /**
+     * The action to run once {@link #deadline} has passed, or null.
+     */
+    private Runnable action;
+    private long deadline;
+
+    private boolean running;
+
+    /**
+     * Creates a new animator. Nothing runs until a card changes.
+     *
+     * @param views The view of each slot.
+     * @param duration How long an animation takes, in nanoseconds.
+     * @param maxAnimating The most slots animated at once.
+     */
+    public CardAnimator(ImageView[] views, long duration, int maxAnimating) {
+        this.views = views;
+        this.duration = duration;
+        this.maxAnimating = maxAnimating;
+        this.animating = new IndexSet(views.length);
+        this.started = new long[views.length];
+        this.targets = new Image[views.length];
+        this.kinds = new int[views.length];
+        this.swapped = new boolean[views.length];
+    }
+
+    /**
+     * Changes the image of a slot, animated if it is not already showing
+     * the image. A slot that is already animating carries on towards the
+     * new image, turning back if it has got past the old one.
+     *
+     * @param slot The slot.
+     * @param image The image it ends on.
+     * @param kind {@link #TURN} or {@link #FADE}.
+     */
+    public void show(int slot, Image image, int kind) {
+        ImageView view = this.views[slot];
+        if(this.animating.contains(slot)) {
+            if(this.swapped[slot] && view.getImage() != image) {
+                // as far from the end of a new animation as it was from the end of the old one
+                this.started[slot] = 2 * this.now - this.duration - this.started[slot];
+                this.swapped[slot] = false;
+            }
+            if(this.kinds[slot] != kind) {
+                setLevel(view, this.kinds[slot], 1);
+                this.kinds[slot] = kind;
+            }
+            this.targets[slot] = image;
+            return;
+        }
+        if(view.getImage() == image) {
+            return;
+        }
+        if(this.animating.size() >= this.maxAnimating) {
+            view.setImage(image);
+            return;
+        }
+        this.animating.add(slot);
+        this.started[slot] = NOT_STARTED;
+        this.targets[slot] = image;
+        this.kinds[slot] = kind;
+        this.swapped[slot] = false;
+        wake();
+    }
+
+    /**
+     * Runs an action on the application thread once a delay has passed,
+     * in place of any action scheduled already.
+     *
+     * @param delay The delay in nanoseconds.
+     * @param action The action.
+     */
+    public void schedule(long delay, Runnable action) {
+        // frame times are taken from the same clock
+        this.deadline = System.nanoTime() + delay;
+        this.action = action;
+        wake();
+    }
+
+    /**
+     * Cancels the scheduled action, if there is one.
+     */
+    public void cancel() {
+        this.action = null;
+    }
+
+    /**
+     * Ends every animation at once, leaving each slot showing its image,
+     * and cancels the scheduled action.
+     */
+    public void finish() {
+        for(int i=this.animating.size() - 1; i>=0; i--) {
+            end(this.animating.get(i));
+        }
+        this.action = null;
+        sleep();
+    }
+
+    @Override
+    public void handle(long now) {
+        this.now = now;
+        // from the end, since removing a slot moves the last one into its place
+        for(int i=this.animating.size() - 1; i>=0; i--) {
+            int slot = this.animating.get(i);
+            if(this.started[slot] == NOT_STARTED) {
+                this.started[slot] = now;
+            }
+            double t = (double)(now - this.started[slot]) / this.duration;
+            if(t >= 1) {
+                end(slot);
+                continue;
+            }
+            ImageView view = this.views[slot];
+            if(t >= 0.5 && !this.swapped[slot]) {
+                view.setImage(this.targets[slot]);
+                this.swapped[slot] = true;
+            }
+            setLevel(view, this.kinds[slot], Math.abs(1 - 2 * t));
+        }
+        if(this.action != null && now >= this.deadline) {
+            Runnable run = this.action;
+            this.action = null;
+            run.run();
+        }
+        if(this.animating.size() == 0 && this.action == null) {
+            sleep();
+        }
+    }
+
+    /**
+     * Ends the animation of a slot, showing its image.
+     */
+    private void end(int slot) {
+        ImageView view = this.views[slot];
+        setLevel(view, this.kinds[slot], 1);
+        view.setImage(this.targets[slot]);
+        this.targets[slot] = null;
+        this.animating.remove(slot);
+    }
+
+    /**
+     * Sets how much of a card shows, from 0 for none to 1 for all of it.
+     */
+    private static void setLevel(ImageView view, int kind, double level) {
+        if(kind == TURN) {
+            view.setScaleX(level);
+        } else {
+            view.setOpacity(level);
+        }
+    }
+
+    private void wake() {
+        if(!this.running) {
+            this.running = true;
+            start();
+        }
+    }
+
+    private void sleep() {
+        if(this.running) {
+            this.running = false;
+            stop();
+        }
+    }
+}
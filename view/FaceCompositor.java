@@ -0,0 +1,246 @@
+package memory.view;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import memory.metrics.Metrics;
+import memory.model.CardFace;
+import memory.model.Deck;
+
+/**
+ * Draws the faces of a deck too big for the hand-drawn card images by
+ * layering emoji parts: a head, eyes, a nose, a mouth and brows, each in
+ * one of four styles, which makes {@link #FACES} different faces. The face
+ * at index i of the deck is made from the digits of i in base four, so
+ * every face of a deck looks different, and bigger decks can't be drawn.
+ *
+ * Faces are drawn the first time they are asked for, not before, on a
+ * daemon thread, "memory-faces", and kept in a cache of at most a fixed
+ * number of images, the least recently used going first. The parts are
+ * decoded once, at the size of a card, so each face is drawn at that size
+ * from {@link #LAYERS} images already in memory.
+ *
+ * {@link #get(CardFace)} must only be called on the FX thread. A face that
+ * is not ready yet is handed to a listener, on the FX thread, once it is.
+ */
+public class FaceCompositor {
+    static final String PART_PATH = "media/images/emojis/";
+
+    /**
+     * The styles of each part, from the bottom layer to the top.
+     */
+    private static final String[][] PARTS = {
+        {"headyellow.png", "headred.png", "headblue.png", "headgreen.png"},
+        {"eyesblack.png", "eyesbrown.png", "eyesblue.png", "eyesgreen.png"},
+        {"nosered.png", "noseorange.png", "noseblue.png", "nosegreen.png"},
+        {"mouthbasic.png", "mouthhm.png", "mouthohno.png", "mouthdelerious.png"},
+        {"browsbasic.png", "browsangry.png", "browsworried.png", "browshuh.png"},
+    };
+
+    /**
+     * The number of parts layered to make a face.
+     */
+    public static final int LAYERS = PARTS.length;
+
+    /**
+     * The number of styles of each part.
+     */
+    private static final int STYLES = 4;
+
+    /**
+     * The number of different faces.
+     */
+    public static final int FACES = (int)Math.pow(STYLES, LAYERS);
+
+    /**
+     * Decodes the parts.
+     */
+    private final ImageCache parts;
+
+    /**
+     * The faces drawn, whose position in the deck picks the parts.
+     */
+    private final Deck deck;
+
+    private final int capacity;
+
+    /**
+     * Told of each face drawn, on the FX thread.
+     */
+    private final BiConsumer<CardFace, Image> ready;
+
+    /**
+     * The faces drawn, by index, least recently used first. Only used on
+     * the FX thread.
+     */
+    private final Map<Integer, Image> drawn;
+
+    /**
+     * The indexes being drawn. Only used on the FX thread.
+     */
+    private final Set<Integer> drawing = new HashSet<>();
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "memory-faces");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The pixels of each style of each part, premultiplied, by layer and
+     * style. Only used on the worker thread.
+     */
+    private final int[][][] pixels = new int[LAYERS][STYLES][];
+    private int width;
+    private int height;
+
+    /**
+     * Creates a new compositor. Nothing is decoded or drawn until it is
+     * needed.
+     *
+     * @param parts Decodes the parts, at the size the faces are drawn at.
+     * @param deck The deck.
+     * @param capacity The most faces kept.
+     * @param ready Told of each face once it has been drawn, on the FX
+     * thread.
+     *
+     * @throws IllegalArgumentException If the deck has more than
+     * {@link #FACES} faces.
+     */
+    public FaceCompositor(ImageCache parts, Deck deck, int capacity, BiConsumer<CardFace, Image> ready) {
+        if(deck.size() > FACES) {
+            throw new IllegalArgumentException("Can't draw more than " + FACES + " different faces.");
+        }
+        this.parts = parts;
+        this.capacity = capacity;
+        this.ready = ready;
+        this.deck = deck;
+        this.drawn = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Image> eldest) {
+                return size() > FaceCompositor.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Decodes every part, spread over the common fork-join pool, so that the
+     * first face is drawn quickly. Should not be called on the FX thread.
+     */
+    public void preload() {
+        String[] paths = new String[LAYERS * STYLES];
+        for(int layer=0; layer<LAYERS; layer++) {
+            for(int style=0; style<STYLES; style++) {
+                paths[layer * STYLES + style] = PART_PATH + PARTS[layer][style];
+            }
+        }
+        this.parts.preload(paths);
+    }
+
+    /**
+     * Returns the image of a face if it has been drawn, or starts drawing
+     * it if it has not. The listener is told when it is ready.
+     *
+     * @param face The face, which must be in the deck.
+     *
+     * @return The image, or null if it is not ready yet.
+     */
+    public Image get(CardFace face) {
+        int index = this.deck.indexOf(face);
+        Image image = this.drawn.get(index);
+        if(image == null && this.drawing.add(index)) {
+            this.worker.execute(() -> {
+                Image made;
+                try {
+                    made = draw(index);
+                } catch(RuntimeException re) {
+                    // the card stays face down on screen, and the face is not tried again
+                    System.err.println("Could not draw face " + index + ": " + re.getMessage());
+                    return;
+                }
+                Platform.runLater(() -> {
+                    this.drawing.remove(index);
+                    this.drawn.put(index, made);
+                    this.ready.accept(face, made);
+                });
+            });
+        }
+        return image;
+    }
+
+    /**
+     * Returns the number of faces kept. Only to be called on the FX thread.
+     *
+     * @return The number of faces.
+     */
+    public int size() {
+        return this.drawn.size();
+    }
+
+    /**
+     * Draws a face on the worker thread, laying each part over the ones
+     * below it.
+     */
+    private Image draw(int index) {
+        long start = Metrics.COMPOSE.start();
+        int[] out = null;
+        for(int layer=0, digits=index; layer<LAYERS; layer++, digits/=STYLES) {
+            int[] part = part(layer, digits % STYLES);
+            if(out == null) {
+                out = part.clone();
+                continue;
+            }
+            for(int i=0; i<out.length; i++) {
+                int src = part[i];
+                int alpha = src >>> 24;
+                if(alpha == 0xff) {
+                    out[i] = src;
+                } else if(alpha != 0) {
+                    out[i] = src + scale(out[i], 0xff - alpha);
+                }
+            }
+        }
+        WritableImage image = new WritableImage(this.width, this.height);
+        image.getPixelWriter().setPixels(0, 0, this.width, this.height,
+            PixelFormat.getIntArgbPreInstance(), out, 0, this.width);
+        Metrics.COMPOSE.stop(start);
+        return image;
+    }
+
+    /**
+     * Returns the pixels of a style of a part, reading them the first time.
+     */
+    private int[] part(int layer, int style) {
+        int[] part = this.pixels[layer][style];
+        if(part == null) {
+            Image image = this.parts.get(PART_PATH + PARTS[layer][style]);
+            this.width = (int)image.getWidth();
+            this.height = (int)image.getHeight();
+            part = new int[this.width * this.height];
+            image.getPixelReader().getPixels(0, 0, this.width, this.height,
+                PixelFormat.getIntArgbPreInstance(), part, 0, this.width);
+            this.pixels[layer][style] = part;
+        }
+        return part;
+    }
+
+    /**
+     * Scales each channel of a premultiplied pixel by a fraction of 255.
+     */
+    private static int scale(int argb, int fraction) {
+        int rb = (argb & 0x00ff00ff) * fraction + 0x00800080;
+        int ag = (argb >>> 8 & 0x00ff00ff) * fraction + 0x00800080;
+        rb = (rb + (rb >>> 8 & 0x00ff00ff)) >>> 8 & 0x00ff00ff;
+        ag = (ag + (ag >>> 8 & 0x00ff00ff)) & 0xff00ff00;
+        return ag | rb;
+    }
+}
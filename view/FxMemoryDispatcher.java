@@ -0,0 +1,63 @@
+package memory.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.application.Platform;
+import memory.model.MemoryChange;
+import memory.model.MemoryObserver;
+
+/**
+ * Hands changes to an observer on the JavaFX application thread. Changes
+ * made on the FX thread are passed straight through. Changes made on any
+ * other thread, e.g. by a bot, are queued, and at most one
+ * {@link Platform#runLater(Runnable)} is outstanding at a time; when it runs,
+ * everything queued since is coalesced into a single change. However fast
+ * the game is played, the FX event queue only ever holds one update.
+ */
+public class FxMemoryDispatcher implements MemoryObserver {
+
+    private final MemoryObserver target;
+
+    // changes waiting for the FX thread, guarded by this
+    private List<MemoryChange> pending = new ArrayList<>();
+
+    // true while a runLater is outstanding, guarded by this
+    private boolean scheduled;
+
+    public FxMemoryDispatcher(MemoryObserver target){
+        this.target = target;
+    }
+
+    @Override
+    public void memoryChanged(MemoryChange change) {
+        if(Platform.isFxApplicationThread()){
+            // anything queued from other threads happened first
+            drain();
+            target.memoryChanged(change);
+            return;
+        }
+        synchronized(this){
+            pending.add(change);
+            if(scheduled){
+                return;
+            }
+            scheduled = true;
+        }
+        Platform.runLater(this::drain);
+    }
+
+    // delivers the queued changes as one change. runs on the FX thread
+    private void drain(){
+        List<MemoryChange> changes;
+        synchronized(this){
+            scheduled = false;
+            if(pending.isEmpty()){
+                return;
+            }
+            changes = pending;
+            pending = new ArrayList<>();
+        }
+        target.memoryChanged(MemoryChange.coalesce(changes));
+    }
+}
@@ -0,0 +1,130 @@
+package memory.view;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javafx.scene.image.Image;
+import memory.metrics.AssetLoadEvent;
+import memory.metrics.Metrics;
+import memory.model.CardFace;
+
+/**
+ * Decodes each image used by the board once, scaled to the size it is drawn
+ * at, and hands out the same {@link Image} every time after that. Images can
+ * be looked up by path or by the card face they show.
+ *
+ * Decoding does not need the FX thread, so {@link #preload(String...)} is
+ * meant to be called from a background thread, e.g. once the first frame
+ * is up, or from {@code Application.init()} for images needed on the
+ * first frame. Anything that was not preloaded is decoded the first time
+ * it is asked for, on the thread that asks.
+ */
+public class ImageCache {
+    /**
+     * The width and height the images are scaled to.
+     */
+    private final double size;
+
+    /**
+     * The path of the image for each face.
+     */
+    private final Map<CardFace, String> facePaths;
+
+    /**
+     * The decoded images, by path.
+     */
+    private final Map<String, Image> byPath = new ConcurrentHashMap<>();
+
+    /**
+     * The decoded images, by face.
+     */
+    private final Map<CardFace, Image> byFace = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new, empty cache.
+     *
+     * @param size The width and height the images are scaled to.
+     * @param facePaths The path of the image for each face.
+     */
+    public ImageCache(double size, Map<CardFace, String> facePaths) {
+        this.size = size;
+        this.facePaths = Map.copyOf(facePaths);
+    }
+
+    /**
+     * Decodes the image for every face and each of the specified images,
+     * spread over the common fork-join pool, and waits until they are all
+     * done.
+     *
+     * @param paths Other images to decode, e.g. the back of the cards.
+     */
+    public void preload(String... paths) {
+        List<String> all = new ArrayList<>(this.facePaths.values());
+        all.addAll(List.of(paths));
+        all.parallelStream().forEach(this::get);
+        for(CardFace face : this.facePaths.keySet()) {
+            get(face);
+        }
+    }
+
+    /**
+     * Returns the image at the specified path, decoding it if needed.
+     *
+     * @param path The path of the image on the classpath.
+     *
+     * @return The image.
+     */
+    public Image get(String path) {
+        return this.byPath.computeIfAbsent(path, this::load);
+    }
+
+    /**
+     * Returns the image for the specified face, decoding it if needed.
+     *
+     * @param face The face.
+     *
+     * @return The image, or null if the face has no image.
+     */
+    public Image get(CardFace face) {
+        Image image = this.byFace.get(face);
+        if(image == null) {
+            String path = this.facePaths.get(face);
+            if(path == null) {
+                return null;
+            }
+            image = get(path);
+            this.byFace.put(face, image);
+        }
+        return image;
+    }
+
+    /**
+     * Returns the number of images that have been decoded.
+     *
+     * @return The number of images.
+     */
+    public int size() {
+        return this.byPath.size();
+    }
+
+    /**
+     * Decodes an image on the calling thread.
+     *
+     * @param path The path of the image on the classpath.
+     *
+     * @return The image.
+     */
+    private Image load(String path) {
+        AssetLoadEvent event = Metrics.ENABLED ? AssetLoadEvent.start() : null;
+        Image image = new Image(path, this.size, this.size, true, true, false);
+        if(image.isError()) {
+            throw new IllegalArgumentException("Can't load " + path, image.getException());
+        }
+        if(event != null) {
+            event.finish(path);
+        }
+        return image;
+    }
+}
@@ -1,28 +1,66 @@
 package memory.view;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
 import java.util.Scanner;
 
+import memory.metrics.Metrics;
 import memory.model.Memory;
 import memory.model.MemoryException;
 
+/**
+ * Plays a game of Memory on the terminal. Usage: {@code MemoryCLI [COLS ROWS]
+ * [--ansi]}. With {@code --ansi} the board stays in one place on screen and
+ * only the cards that change are redrawn.
+ *
+ * {@code MemoryCLI --batch [FILE...]} plays scripts of moves instead, with
+ * no board on screen and one line of results per game; see
+ * {@link BatchMode}.
+ */
 public class MemoryCLI {
     private static final String NL = System.getProperty("line.separator");
 
-    public static void main(String[] args) throws MemoryException {
+    public static void main(String[] args) throws MemoryException, IOException {
+        if(args.length > 0 && args[0].equals("--batch")) {
+            BatchMode.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         int cols = 4;
         int rows = 5;
-        if(args.length == 2) {
-            cols = Integer.parseInt(args[0]);
-            rows = Integer.parseInt(args[1]);
+        boolean ansi = false;
+        int sizes = 0;
+        for(String arg : args) {
+            if(arg.equals("--ansi")) {
+                ansi = true;
+            } else if(sizes++ == 0) {
+                cols = Integer.parseInt(arg);
+            } else {
+                rows = Integer.parseInt(arg);
+            }
         }
         Memory memory = new Memory(cols, rows);
 
+        // frames go through one buffer and are written with a single flush.
+        // System.out is underneath, so everything else printed stays in order
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+        AnsiBoard board = ansi ? new AnsiBoard(memory, out) : null;
+
         try(Scanner scanner = new Scanner(System.in)) {
             boolean sentinel = true;
             while(sentinel) {
-                System.out.println(memoryToString(memory));
-                System.out.print(">> ");
+                if(board != null) {
+                    board.draw();
+                } else {
+                    drawBoard(memory, out);
+                    out.write(">> ");
+                }
+                out.flush();
                 String command = scanner.nextLine();
+                // anything but a good move prints something below the board
+                boolean printed = true;
                 String[] tokens = command.split(" ");
                 if(tokens.length == 0) {
                     System.out.println("Please enter a command.");
@@ -33,19 +71,26 @@ public class MemoryCLI {
                             sentinel = !areYouSure(scanner);
                             break;
                         case "move":
-                            move(tokens, memory);
+                            printed = !move(tokens, memory);
                             sentinel = !memory.isGameOver();
                             break;
                         case "help":
                             help();
                             break;
+                        case "stats":
+                            System.out.print(Metrics.report());
+                            break;
                         default:
                             invalid(command);
                     }
                 }
+                if(board != null && printed) {
+                    board.invalidate();
+                }
             }
             if(memory.isGameOver()) {
-                System.out.println(memoryToString(memory));
+                drawBoard(memory, out);
+                out.flush();
                 System.out.println("You won!");
             } else {
                 System.out.println("Better luck next time, champ.");
@@ -60,6 +105,7 @@ public class MemoryCLI {
         System.out.println("Available commands: ");
         System.out.println("  help - displays this message");
         System.out.println("  move C R - makes a move in the specified row and column.");
+        System.out.println("  stats - displays how long flips and renders are taking");
         System.out.println("  quit - quits the game");
         System.out.println();
     }
@@ -75,7 +121,12 @@ public class MemoryCLI {
         return response.equalsIgnoreCase("y");
     }
 
-    private static void move(String[] tokens, Memory memory) {
+    /**
+     * Makes the move in a "move C R" command, or explains why it can't.
+     *
+     * @return True if the move was made.
+     */
+    private static boolean move(String[] tokens, Memory memory) {
         if(tokens.length != 3) {
             System.err.println("Invalid move! Please try again.");
         } else {
@@ -83,12 +134,14 @@ public class MemoryCLI {
                 int col = Integer.parseInt(tokens[1]);
                 int row = Integer.parseInt(tokens[2]);
                 memory.flip(col, row);
+                return true;
             } catch(MemoryException me) {
                 System.err.println(me.getMessage());
             } catch(NumberFormatException nfe) {
                 System.err.println("Column and row must be integers.");
             }
         }
+        return false;
     }
 
     /**
@@ -101,15 +154,21 @@ public class MemoryCLI {
         help();
     }
 
-    private static String memoryToString(Memory memory) {
-        StringBuilder builder = new StringBuilder();
-
-        builder.append("Moves: " + memory.getMoves() + NL);
-        builder.append("Score: " + memory.getScore() + NL);
-        builder.append(NL);
-        builder.append(memory);
-        builder.append(NL);
-
-        return builder.toString();
+    /**
+     * Writes the moves, the score and the board, followed by two blank
+     * lines. The board is written straight into the buffer, so the only
+     * strings created are for the two numbers.
+     */
+    private static void drawBoard(Memory memory, Writer out) throws IOException {
+        out.write("Moves: ");
+        out.write(Integer.toString(memory.getMoves()));
+        out.write(NL);
+        out.write("Score: ");
+        out.write(Integer.toString(memory.getScore()));
+        out.write(NL);
+        out.write(NL);
+        memory.appendTo(out);
+        out.write(NL);
+        out.write(NL);
     }
 }
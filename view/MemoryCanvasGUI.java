@@ -0,0 +1,109 @@
+package memory.view;
+
+import java.util.List;
+
+import javafx.application.Application;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.stage.Stage;
+import memory.model.BoardType;
+import memory.model.Deck;
+import memory.model.Memory;
+import memory.model.MemoryChange;
+import memory.model.MemoryException;
+
+/**
+ * Plays Memory on boards of any size by drawing the whole board on a single
+ * {@link BoardCanvas} instead of one button per card.
+ *
+ * Usage: {@code MemoryCanvasGUI [COLS ROWS]}, 100x100 by default.
+ */
+public class MemoryCanvasGUI extends Application {
+    private static final String IMAGE_PATH = MemoryGUI.IMAGE_PATH;
+    private static final String BACK = IMAGE_PATH + "back.png";
+    private static final String WOOD = IMAGE_PATH + "wood.png";
+    private static final double BOARD_SPACE = 900;
+    private static final double MAX_CELL = 108;
+
+    private int cols = 100;
+    private int rows = 100;
+    private double cellSize;
+    private ImageCache images;
+    private Memory memory;
+    private BoardCanvas canvas;
+    private Label status;
+
+    // works out the board size and decodes the images before the first frame
+    @Override
+    public void init(){
+        List<String> args = getParameters().getRaw();
+        if(args.size() == 2){
+            cols = Integer.parseInt(args.get(0));
+            rows = Integer.parseInt(args.get(1));
+        }
+        cellSize = BoardCanvas.fit(cols, rows, BOARD_SPACE, MAX_CELL);
+        images = new ImageCache(cellSize, MemoryGUI.IMAGES);
+        images.preload(BACK, WOOD);
+    }
+
+    @Override
+    public void start(Stage stage) throws MemoryException{
+        Deck deck = Deck.standard(cols * rows / 2);
+        memory = new Memory(cols, rows, deck, BoardType.PACKED);
+        canvas = new BoardCanvas(memory, images, cellSize, BACK, WOOD);
+        canvas.setOnMouseClicked(e -> makeMove(canvas.colAt(e.getX()), canvas.rowAt(e.getY())));
+        canvas.paintAll();
+        memory.addObserver(new FxMemoryDispatcher(this::memoryChanged));
+
+        status = new Label();
+        status.setPadding(new Insets(5));
+        showScore(0, 0);
+        Button restart = new Button("Restart");
+        restart.setOnAction(e -> restart());
+
+        BorderPane pane = new BorderPane();
+        pane.setCenter(new ScrollPane(canvas));
+        pane.setBottom(new HBox(restart, status));
+        stage.setScene(new Scene(pane));
+        stage.setTitle("Memory! " + cols + "x" + rows);
+        stage.show();
+    }
+
+    // deals a new game onto the same board and canvas
+    private void restart(){
+        memory.reset();
+        canvas.paintAll();
+        showScore(0, 0);
+    }
+
+    // repaints the changed cells and the score
+    private void memoryChanged(MemoryChange change){
+        canvas.memoryChanged(change);
+        showScore(change.getScore(), change.getMoves());
+        if(change.isGameOver()){
+            status.setText(status.getText() + "   You Won!");
+        }
+    }
+
+    // flips the card under a click, if there is one
+    private void makeMove(int col, int row){
+        int result = memory.tryFlip(col, row);
+        if(result < 0){
+            status.setText("Score: " + memory.getScore() + "   Moves: " + memory.getMoves()
+                + "   " + Memory.describe(result, col, row));
+        }
+    }
+
+    private void showScore(int score, int moves){
+        status.setText("Score: " + score + "   Moves: " + moves);
+    }
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+}
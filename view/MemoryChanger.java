@@ -1,21 +1,19 @@
 package memory.view;
 
-import javafx.scene.control.Button;
-import memory.model.Card;
+import memory.model.MemoryChange;
 import memory.model.MemoryObserver;
 
+// updates every card on the board that a flip changed, along with the score and moves
 public class MemoryChanger implements MemoryObserver {
 
-    private final Button button;
     private final MemoryGUI memorygui;
 
-    public MemoryChanger(Button button, MemoryGUI memorygui){
-        this.button = button;
+    public MemoryChanger(MemoryGUI memorygui){
         this.memorygui = memorygui;
     }
 
     @Override
-    public void memoryChanged(Card card, int col, int row) {
-        memorygui.updateMemory(button, card, col, row);        
+    public void memoryChanged(MemoryChange change) {
+        memorygui.updateMemory(change);
     }
-}
\ No newline at end of file
+}
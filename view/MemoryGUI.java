@@ -1,6 +1,12 @@
 package memory.view;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -20,42 +26,108 @@ import javafx.scene.layout.GridPane;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
+import memory.metrics.Metrics;
+import memory.metrics.RenderEvent;
+import memory.model.BoardType;
 import memory.model.Card;
+import memory.model.CardFace;
+import memory.model.Deck;
 import memory.model.Memory;
+import memory.model.MemoryChange;
 import memory.model.MemoryException;
+import memory.model.Move;
+import memory.sound.Cue;
+import memory.sound.CueObserver;
+import memory.sound.CuePlayer;
 
 public class MemoryGUI extends Application{
-    private static final String IMAGE_PATH = "../media/images/memory/";   // CHANGE SOURCE FILE AS NEEDED
-    private static final int memory_cols = 4;
-    private static final int memory_rows = 5;
-    private Button[][] buttons = new Button[memory_cols][memory_rows];
-    private Card[] cards = {
-        new Card('A', IMAGE_PATH + "goat00.png"),
-        new Card('B', IMAGE_PATH + "goat01.png"),
-        new Card('C', IMAGE_PATH + "goat02.png"),
-        new Card('D', IMAGE_PATH + "goat03.png"),
-        new Card('E', IMAGE_PATH + "goat04.png"),
-        new Card('F', IMAGE_PATH + "goat05.png"),
-        new Card('G', IMAGE_PATH + "goat06.png"),
-        new Card('H', IMAGE_PATH + "goat07.png"),
-        new Card('I', IMAGE_PATH + "goat08.png"),
-        new Card('J', IMAGE_PATH + "goat09.png"),
-        new Card('K', IMAGE_PATH + "troll01.png"),
-        new Card('L', IMAGE_PATH + "troll02.png"),
-        new Card('M', IMAGE_PATH + "troll03.png"),
-        new Card('N', IMAGE_PATH + "troll04.png"),
+    static final String IMAGE_PATH = "media/images/memory/";   // loaded from the classpath, see game/pom.xml
+    private int memory_cols = 4;
+    private int memory_rows = 5;
+    private long seed = ThreadLocalRandom.current().nextLong();
+    private static final int CARD_SIZE = 108;
+    private static final long FLIP_TIME = 160_000_000;          // nanoseconds for a card to turn over or fade
+    private static final long FLIP_BACK_DELAY = 1_000_000_000;  // how long a pair stays up without another click
+    private static final int MAX_ANIMATING = 64;                // more cards than this change without animating
+    private static final int MAX_FACES = 256;                   // composed faces kept for bigger boards
+    private Button[][] buttons;
+    private ImageView[][] views;   // one per button, reused on every flip
+    private CardAnimator animator;  // every card animation on the board, from one timer
+    private static final String[] FACE_IMAGES = {
+        "goat00.png", "goat01.png", "goat02.png", "goat03.png", "goat04.png",
+        "goat05.png", "goat06.png", "goat07.png", "goat08.png", "goat09.png",
+        "troll01.png", "troll02.png", "troll03.png", "troll04.png",
     };
-    private char[] chars = {'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N'};
+    // the faces "A" to "N", one per image. faces are shared, so they can be used as keys
+    private static final Deck DECK = Deck.standard(FACE_IMAGES.length);
+    static final Map<CardFace, String> IMAGES = makeImages(DECK);   // shared with MemoryCanvasGUI
     private String BACK = IMAGE_PATH + "back.png";
     private String WOOD = IMAGE_PATH + "wood.png";
+    private Deck deck;
+    private ImageCache images;
+    private FaceCompositor faces;   // draws the faces when there are more pairs than images, otherwise null
+    private final CuePlayer sounds = new CuePlayer();
     private Memory memory;
+    private final Runnable endTurn = () -> memory.endTurn();
     private Label statusLable;
     private Label scoreVal;
     private Label movesVal;
 
+    // prints a line and exits once the first frame is up, for timing startup and training CDS archives
+    public static final String EXIT_AFTER_FIRST_FRAME = "memory.exitAfterFirstFrame";
+    public static final String FIRST_FRAME = "first frame";
+
+    public MemoryGUI(){
+    }
+
+    // plays on a board of the given size, dealt with the given seed, e.g. to replay a recorded game
+    public MemoryGUI(int cols, int rows, long seed){
+        memory_cols = cols;
+        memory_rows = rows;
+        this.seed = seed;
+    }
+
+    // works out the board size, which may be given as "COLS ROWS" when launched, and decodes the
+    // card back, the only image on the first frame, off the FX thread.
+    // the faces, the wood and the sounds are decoded in the background once the window is up.
+    // bigger boards than the images allow get faces composed from emoji parts as they are turned up
+    @Override
+    public void init(){
+        if(getParameters() != null){
+            List<String> args = getParameters().getRaw();
+            if(args.size() == 2){
+                memory_cols = Integer.parseInt(args.get(0));
+                memory_rows = Integer.parseInt(args.get(1));
+            }
+        }
+        int pairs = memory_cols * memory_rows / 2;
+        // pairs that looked the same but didn't match would make the game unplayable
+        if(pairs > FaceCompositor.FACES){
+            throw new IllegalArgumentException("A " + memory_cols + "x" + memory_rows + " board has "
+                + pairs + " pairs, but there are only " + FaceCompositor.FACES + " different faces.");
+        }
+        if(pairs <= FACE_IMAGES.length){
+            deck = DECK;
+            images = new ImageCache(CARD_SIZE, IMAGES);
+        }else{
+            deck = Deck.standard(pairs);
+            images = new ImageCache(CARD_SIZE, Map.of());
+            faces = new FaceCompositor(images, deck, MAX_FACES, this::faceReady);
+        }
+        buttons = new Button[memory_cols][memory_rows];
+        views = new ImageView[memory_cols][memory_rows];
+        images.get(BACK);
+    }
+
     @Override
     public void start(Stage stage) throws Exception, MemoryException{
-        memory = new Memory(memory_cols, memory_rows, chars);
+        memory = new Memory(memory_cols, memory_rows, deck, BoardType.OBJECT, seed);
+        // one observer for the whole board, fed through the FX thread
+        memory.addObserver(new FxMemoryDispatcher(new MemoryChanger(this)));
+        if(CuePlayer.ENABLED){
+            // straight from the game, so that every flip gets its own cue
+            memory.addObserver(new CueObserver(sounds));
+        }
         BorderPane pane = new BorderPane();
 
         // center pane
@@ -67,6 +139,13 @@ public class MemoryGUI extends Application{
             }
         }
         pane.setCenter(center);
+        ImageView[] slots = new ImageView[memory.getCols() * memory.getRows()];
+        for(int col = 0; col < memory.getCols(); col++){
+            for(int row = 0; row < memory.getRows(); row++){
+                slots[col * memory.getRows() + row] = views[col][row];
+            }
+        }
+        animator = new CardAnimator(slots, FLIP_TIME, MAX_ANIMATING);
 
         // left pane
         GridPane left = new GridPane();
@@ -80,8 +159,37 @@ public class MemoryGUI extends Application{
         left.add(movesVal, 0, 4, 5, 1);
         pane.setLeft(left);
         
-        // botton pane
+        // botton pane. only its space is kept on the first frame; it is filled in right after
         GridPane bottom = new GridPane();
+        bottom.setMinSize(473 + 2 * 70, 40);   // the status line and two buttons
+        pane.setBottom(bottom);
+
+        // initialization
+        Scene scene = new Scene(pane);
+        stage.setScene(scene);
+        stage.setTitle("Memory!");
+        stage.show();
+
+        Platform.runLater(() -> makeStatusBar(bottom, stage));
+        Thread preload = new Thread(() -> {
+            images.preload(WOOD);
+            if(faces != null){
+                faces.preload();
+            }
+            if(CuePlayer.ENABLED){
+                sounds.load();
+                sounds.play(Cue.START);
+            }
+        }, "memory-preload");
+        preload.setDaemon(true);
+        preload.start();
+        if(Boolean.getBoolean(EXIT_AFTER_FIRST_FRAME)){
+            exitAfterFirstFrame(scene);
+        }
+    }
+
+    // makes the status line and the restart and quit buttons
+    private void makeStatusBar(GridPane bottom, Stage stage){
         statusLable = makeLabel("Status: None!", 11, Color.BLACK, Color.LIGHTBLUE);
         statusLable.setAlignment(Pos.CENTER_LEFT);
         statusLable.setPadding(new Insets(5));
@@ -90,34 +198,62 @@ public class MemoryGUI extends Application{
 
         Button restart = makeButton("Restart");
         Button quit = makeButton("Quit");
-        restart.setOnAction(e -> {try {start(stage);} catch (MemoryException me) {} catch (Exception e1) {}});
+        restart.setOnAction(e -> restart());
         quit.setOnAction(e -> stage.close());
 
         bottom.add(statusLable, 1, 0, 10, 1);
         bottom.add(restart, 11, 0);
         bottom.add(quit, 12, 0);
-        pane.setBottom(bottom);
+    }
 
-        // initialization
-        Scene scene = new Scene(pane);
-        stage.setScene(scene);
-        stage.setTitle("Memory!");
-        stage.show();
+    // the first pulse lays out and renders the scene; anything run later comes after it
+    private static void exitAfterFirstFrame(Scene scene){
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            scene.removePostLayoutPulseListener(listener[0]);
+            Platform.runLater(() -> {
+                System.out.println(FIRST_FRAME);
+                Platform.exit();
+            });
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
+    }
+
+    // starts a new game on the same board, reusing every node that is already on screen
+    private void restart(){
+        RenderEvent event = Metrics.ENABLED ? RenderEvent.start(true) : null;
+        animator.finish();
+        memory.reset();
+        for(int col = 0; col < memory.getCols(); col++){
+            for(int row = 0; row < memory.getRows(); row++){
+                views[col][row].setImage(images.get(BACK));
+            }
+        }
+        scoreVal.setText(String.valueOf(memory.getScore()));
+        movesVal.setText(String.valueOf(memory.getMoves()));
+        setStatus("Status: None!");
+        sounds.play(Cue.START);
+        if(event != null){
+            event.finish(memory.getCols() * memory.getRows());
+        }
     }
 
     // makes a button for the memory grid
     private Button makeMemoryButton(int col, int row) throws MemoryException{
         Button button = new Button();
         button.setBackground(new Background(new BackgroundImage(
-            new Image(BACK),
+            images.get(BACK),
             BackgroundRepeat.NO_REPEAT,
             BackgroundRepeat.NO_REPEAT,
             BackgroundPosition.CENTER,
             BackgroundSize.DEFAULT
         )));
-        button.setMinSize(108, 108);
+        button.setMinSize(CARD_SIZE, CARD_SIZE);
         button.setPadding(Insets.EMPTY);
+        ImageView view = new ImageView();
+        button.setGraphic(view);
         buttons[col][row] = button;
+        views[col][row] = view;
 
         Card card = memory.getCard(col, row);
         updateMemory(button, card, col, row);
@@ -125,12 +261,16 @@ public class MemoryGUI extends Application{
         MemoryMoveMaker moveMaker = new MemoryMoveMaker(this, col, row);
         button.setOnAction(moveMaker);
 
-        MemoryChanger changer = new MemoryChanger(button, this);
-        memory.setOnChange(changer);
-
         return button;
     }
 
+    // shows a message on the status line, unless it hasn't been made yet
+    private void setStatus(String text){
+        if(statusLable != null){
+            statusLable.setText(text);
+        }
+    }
+
     // makes a regular button for restart and quit
     private static Button makeButton(String text){
         Button button = new Button(text);
@@ -154,35 +294,80 @@ public class MemoryGUI extends Application{
 
     // update memory method. changes pictures as called for by main memory method
     public void updateMemory(Button button, Card card, int col, int row){
+        Image face = card != Card.NULL_CARD && card.isFaceUp() ? getImage(card.getFace()) : null;
         if(card == Card.NULL_CARD){
-            buttons[col][row].setGraphic(new ImageView(WOOD));
-        }else if(card.isFaceUp() == true){
-            for(int i = 0; i < this.cards.length; i++){
-                if(this.cards[i].getSymbol() == card.getSymbol()){
-                    buttons[col][row].setGraphic(new ImageView(this.cards[i].getPath()));
-                    break;
+            views[col][row].setImage(images.get(WOOD));
+        }else if(face != null){
+            views[col][row].setImage(face);
+        }else{
+            views[col][row].setImage(images.get(BACK));
+        } 
+    }
+
+    // the image of a face, or null if it is still being composed
+    private Image getImage(CardFace face){
+        return faces == null ? images.get(face) : faces.get(face);
+    }
+
+    // turns up a composed face that was not ready when its card was flipped, if it is still up
+    private void faceReady(CardFace face, Image image){
+        for(Move move : new Move[]{memory.getFirstMove(), memory.getSecondMove()}){
+            if(move != null){
+                int slot = move.getCol() * memory.getRows() + move.getRow();
+                if(memory.isFaceUp(slot) && memory.getFace(slot) == face){
+                    animator.show(slot, image, CardAnimator.TURN);
                 }
             }
-        }else if(card.isFaceUp() == false){
-            buttons[col][row].setGraphic(new ImageView(BACK));
-        } 
+        }
+    }
+
+    // animates every card changed by a flip, then updates the score and moves
+    public void updateMemory(MemoryChange change){
+        RenderEvent event = Metrics.ENABLED ? RenderEvent.start(false) : null;
+        for(int i = 0; i < change.size(); i++){
+            if(change.isRemoved(i)){
+                animator.show(change.getSlot(i), images.get(WOOD), CardAnimator.FADE);
+            }else{
+                // a face still being composed is turned up once it is ready
+                Image image = change.isFaceUp(i) ? getImage(change.getFace(i)) : null;
+                animator.show(change.getSlot(i), image != null ? image : images.get(BACK), CardAnimator.TURN);
+            }
+        }
+        scoreVal.setText(String.valueOf(change.getScore()));
+        movesVal.setText(String.valueOf(change.getMoves()));
+        // a pair left up is settled after a while, unless the next click settles it first
+        if(memory.getSecondMove() != null){
+            animator.schedule(FLIP_BACK_DELAY, endTurn);
+        }else{
+            animator.cancel();
+        }
+        if(event != null){
+            event.finish(change.size());
+        }
     }
 
     // attempts to makes a move everytime a memory button is pressed 
     public void makeMove(int col, int row){ 
         try{
             memory.flip(col, row);
-            scoreVal.setText(String.valueOf(memory.getScore()));
-            movesVal.setText(String.valueOf(memory.getMoves()));
             if(memory.isGameOver() == true){
                 memory.flip(col, row);
-                statusLable.setText("Status: You Won! Press \"Restart\" to restart or \"Quit\" to quit.");
+                setStatus("Status: You Won! Press \"Restart\" to restart or \"Quit\" to quit.");
             }
         }catch(MemoryException me){
-            statusLable.setText("Status: " + me.getMessage());
+            setStatus("Status: " + me.getMessage());
         }
     }
     
+    // maps each face in the deck to the path of its image
+    private static Map<CardFace, String> makeImages(Deck deck){
+        Map<CardFace, String> images = new HashMap<>();
+        for(int i = 0; i < deck.size(); i++){
+            images.put(deck.get(i), IMAGE_PATH + FACE_IMAGES[i]);
+        }
+        return images;
+    }
+
     public static void main(String[] args) {
         launch(args);
     }  